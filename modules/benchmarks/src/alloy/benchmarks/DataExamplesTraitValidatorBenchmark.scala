@@ -0,0 +1,57 @@
+/* Copyright 2022 Disney Streaming
+ *
+ * Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package alloy.benchmarks
+
+import alloy.validation.DataExamplesTraitValidator
+import org.openjdk.jmh.annotations._
+import software.amazon.smithy.model.Model
+import software.amazon.smithy.model.validation.ValidationEvent
+
+import java.util.concurrent.TimeUnit
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Array(Mode.AverageTime))
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+class DataExamplesTraitValidatorBenchmark {
+
+  @Param(Array("20000"))
+  var structures: Int = 0
+
+  @Param(Array("false", "true"))
+  var parallel: Boolean = false
+
+  var model: Model = null
+
+  @Setup(Level.Trial)
+  def setup(): Unit =
+    model = SyntheticModels.generate(
+      SyntheticModels.Config(
+        services = 10,
+        structures = structures,
+        depth = 5,
+        protoShare = 0,
+        restShare = 0
+      )
+    )
+
+  @Benchmark
+  def validate(): java.util.List[ValidationEvent] =
+    new DataExamplesTraitValidator(parallel).validate(model)
+
+}
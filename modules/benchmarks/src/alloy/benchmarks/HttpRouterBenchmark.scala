@@ -0,0 +1,129 @@
+/* Copyright 2022 Disney Streaming
+ *
+ * Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package alloy.benchmarks
+
+import alloy.router.HttpRouter
+import alloy.router.RouteMatch
+import org.openjdk.jmh.annotations._
+import software.amazon.smithy.model.pattern.UriPattern
+
+import java.util.concurrent.TimeUnit
+import java.util.regex.Pattern
+import scala.jdk.CollectionConverters._
+
+/** Routing of requests with the trie-based [[HttpRouter]], against a linear
+  * scan over one regular expression per route, ordered by specificity.
+  */
+@State(Scope.Benchmark)
+@BenchmarkMode(Array(Mode.AverageTime))
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+class HttpRouterBenchmark {
+
+  @Param(Array("1000", "5000"))
+  var routes: Int = 0
+
+  var router: HttpRouter[String] = _
+  var routeMatch: RouteMatch[String] = _
+  var regexRoutes: Array[(String, Pattern, String)] = _
+  var requests: Array[(String, String)] = _
+  var next: Int = 0
+
+  @Setup
+  def setup(): Unit = {
+    // four routes per resource, resources being spread over a few prefixes
+    val patterns = (0 until routes / 4).flatMap { i =>
+      val resource = s"/api${i % 16}/resource$i"
+      List(
+        "GET" -> resource,
+        "GET" -> s"$resource/{id}",
+        "PUT" -> s"$resource/{id}/settings",
+        "GET" -> s"$resource/files/{path+}"
+      )
+    }
+    router = patterns
+      .foldLeft(HttpRouter.builder[String]()) { case (b, (method, uri)) =>
+        b.addRoute(method, UriPattern.parse(uri), uri)
+      }
+      .build()
+    routeMatch = router.newMatch()
+
+    def specificity(pattern: UriPattern) =
+      pattern.getSegments.asScala.map { s =>
+        if (s.isGreedyLabel) 2 else if (s.isLabel) 1 else 0
+      }.toList
+    regexRoutes = patterns
+      .sortBy { case (_, uri) => specificity(UriPattern.parse(uri)) }(
+        scala.math.Ordering.Implicits.seqOrdering
+      )
+      .map { case (method, uri) =>
+        val regex = UriPattern
+          .parse(uri)
+          .getSegments
+          .asScala
+          .map { s =>
+            if (s.isGreedyLabel) "(.+)"
+            else if (s.isLabel) "([^/]+)"
+            else Pattern.quote(s.getContent)
+          }
+          .mkString("/", "/", "")
+        (method, Pattern.compile(regex), uri)
+      }
+      .toArray
+
+    val random = new scala.util.Random(42)
+    requests = Array.fill(1024) {
+      val i = random.nextInt(routes / 4)
+      val resource = s"/api${i % 16}/resource$i"
+      random.nextInt(4) match {
+        case 0 => "GET" -> resource
+        case 1 => "GET" -> s"$resource/${random.nextInt()}"
+        case 2 => "PUT" -> s"$resource/${random.nextInt()}/settings"
+        case _ => "GET" -> s"$resource/files/a/b/${random.nextInt()}"
+      }
+    }
+  }
+
+  private def nextRequest(): (String, String) = {
+    next = (next + 1) & (requests.length - 1)
+    requests(next)
+  }
+
+  @Benchmark
+  def trie(): String = {
+    val (method, uri) = nextRequest()
+    if (router.`match`(method, uri, routeMatch)) routeMatch.getValue
+    else null
+  }
+
+  @Benchmark
+  def linearRegex(): String = {
+    val (method, uri) = nextRequest()
+    var i = 0
+    var result: String = null
+    while (result == null && i < regexRoutes.length) {
+      val (routeMethod, regex, value) = regexRoutes(i)
+      if (routeMethod == method && regex.matcher(uri).matches()) {
+        result = value
+      }
+      i += 1
+    }
+    result
+  }
+
+}
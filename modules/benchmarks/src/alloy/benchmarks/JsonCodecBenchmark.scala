@@ -0,0 +1,251 @@
+/* Copyright 2022 Disney Streaming
+ *
+ * Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package alloy.benchmarks
+
+import alloy.json.JsonCodec
+import alloy.json.JsonCodecs
+import org.openjdk.jmh.annotations._
+import software.amazon.smithy.model.Model
+import software.amazon.smithy.model.node.Node
+import software.amazon.smithy.model.shapes.ShapeId
+
+import java.nio.charset.StandardCharsets
+import java.util.concurrent.TimeUnit
+
+/** Decoding and encoding of a JSON payload with a schema-compiled
+  * [[JsonCodec]], against parsing and printing the same payload as a smithy
+  * [[Node]] tree.
+  */
+@State(Scope.Benchmark)
+@BenchmarkMode(Array(Mode.AverageTime))
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+class JsonCodecBenchmark {
+
+  @Param(Array("10", "1000"))
+  var items: Int = 0
+
+  var codec: JsonCodec = _
+  var json: String = _
+  var bytes: Array[Byte] = _
+  var value: Any = _
+  var node: Node = _
+  var eventsCodec: JsonCodec = _
+  var events: Array[Byte] = _
+  var paymentsCodec: JsonCodec = _
+  var paymentsTagFirst: Array[Byte] = _
+  var paymentsTagLast: Array[Byte] = _
+  var envelopeCodec: JsonCodec = _
+  var envelope: Array[Byte] = _
+
+  @Setup
+  def setup(): Unit = {
+    val model = Model
+      .assembler()
+      .discoverModels()
+      .addUnparsedModel(
+        "bench.smithy",
+        """|$version: "2"
+           |namespace bench
+           |
+           |use alloy#discriminated
+           |use alloy#jsonUnknown
+           |use alloy#untagged
+           |
+           |structure Order {
+           |  @required
+           |  id: String
+           |  items: Items
+           |  tags: Tags
+           |  payment: Payment
+           |}
+           |
+           |list Items {
+           |  member: Item
+           |}
+           |
+           |structure Item {
+           |  @required
+           |  name: String
+           |  quantity: Integer
+           |  price: Double
+           |  @timestampFormat("date-time")
+           |  addedAt: Timestamp
+           |}
+           |
+           |map Tags {
+           |  key: String
+           |  value: String
+           |}
+           |
+           |@discriminated("type")
+           |union Payment {
+           |  card: Card
+           |  transfer: Transfer
+           |}
+           |
+           |structure Card {
+           |  number: String
+           |}
+           |
+           |structure Transfer {
+           |  iban: String
+           |}
+           |
+           |list Events {
+           |  member: Event
+           |}
+           |
+           |@untagged
+           |union Event {
+           |  created: Created
+           |  paid: Paid
+           |  shipped: Shipped
+           |  delivered: Delivered
+           |  cancelled: Cancelled
+           |}
+           |
+           |structure Created {
+           |  @required
+           |  createdAt: Long
+           |}
+           |
+           |structure Paid {
+           |  @required
+           |  paidAt: Long
+           |  amount: Double
+           |}
+           |
+           |structure Shipped {
+           |  @required
+           |  shippedAt: Long
+           |  carrier: String
+           |}
+           |
+           |structure Delivered {
+           |  @required
+           |  deliveredAt: Long
+           |}
+           |
+           |structure Cancelled {
+           |  @required
+           |  cancelledAt: Long
+           |  reason: String
+           |}
+           |
+           |list Payments {
+           |  member: Payment
+           |}
+           |
+           |structure Envelope {
+           |  @required
+           |  id: String
+           |  @jsonUnknown
+           |  rest: Rest
+           |}
+           |
+           |map Rest {
+           |  key: String
+           |  value: Document
+           |}
+           |""".stripMargin
+      )
+      .assemble()
+      .unwrap()
+    codec = JsonCodecs.of(model).getCodec(ShapeId.from("bench#Order"))
+    eventsCodec = JsonCodecs.of(model).getCodec(ShapeId.from("bench#Events"))
+    paymentsCodec =
+      JsonCodecs.of(model).getCodec(ShapeId.from("bench#Payments"))
+    envelopeCodec =
+      JsonCodecs.of(model).getCodec(ShapeId.from("bench#Envelope"))
+
+    val itemsJson = (0 until items)
+      .map { i =>
+        s"""{"name":"item number $i","quantity":${i % 7},"price":${i * 1.25},"addedAt":"2025-08-15T20:26:${"%02d".format(
+            i % 60
+          )}Z"}"""
+      }
+      .mkString("[", ",", "]")
+    val tagsJson = (0 until 8)
+      .map(i => s""""tag$i":"value $i"""")
+      .mkString("{", ",", "}")
+    json =
+      s"""{"id":"order-1","items":$itemsJson,"tags":$tagsJson,"payment":{"type":"card","number":"4111111111111111"}}"""
+    bytes = json.getBytes(StandardCharsets.UTF_8)
+    value = codec.decode(bytes)
+    node = Node.parse(json)
+
+    // members of the untagged union, the last ones being the most frequent
+    events = (0 until items)
+      .map { i =>
+        (i % 8) match {
+          case 0 => s"""{"createdAt":$i}"""
+          case 1 => s"""{"paidAt":$i,"amount":12.5}"""
+          case 2 => s"""{"shippedAt":$i,"carrier":"carrier $i"}"""
+          case 3 => s"""{"cancelledAt":$i,"reason":"reason $i"}"""
+          case _ => s"""{"deliveredAt":$i}"""
+        }
+      }
+      .mkString("[", ",", "]")
+      .getBytes(StandardCharsets.UTF_8)
+
+    // the same payments, with the discriminator before or after the fields
+    def payments(tagFirst: Boolean) = (0 until items)
+      .map { i =>
+        val fields = s""""number":"4111 1111 1111 $i","reference":{"id":$i}"""
+        if (tagFirst) s"""{"type":"card",$fields}"""
+        else s"""{$fields,"type":"card"}"""
+      }
+      .mkString("[", ",", "]")
+      .getBytes(StandardCharsets.UTF_8)
+    paymentsTagFirst = payments(tagFirst = true)
+    paymentsTagLast = payments(tagFirst = false)
+
+    // an envelope whose fields are all unknown, but its id
+    envelope = s"""{"id":"envelope-1",${json.drop(1).dropRight(1)}}"""
+      .getBytes(StandardCharsets.UTF_8)
+  }
+
+  @Benchmark
+  def codecDecode(): Any = codec.decode(bytes)
+
+  @Benchmark
+  def nodeParse(): Node = Node.parse(json)
+
+  @Benchmark
+  def codecEncode(): Array[Byte] = codec.encode(value)
+
+  @Benchmark
+  def nodePrint(): String = Node.printJson(node)
+
+  @Benchmark
+  def codecDecodeUntagged(): Any = eventsCodec.decode(events)
+
+  @Benchmark
+  def codecDecodeDiscriminatorFirst(): Any =
+    paymentsCodec.decode(paymentsTagFirst)
+
+  @Benchmark
+  def codecDecodeDiscriminatorLast(): Any =
+    paymentsCodec.decode(paymentsTagLast)
+
+  @Benchmark
+  def codecPassThroughUnknownFields(): Array[Byte] =
+    envelopeCodec.encode(envelopeCodec.decode(envelope))
+
+}
@@ -0,0 +1,77 @@
+/* Copyright 2022 Disney Streaming
+ *
+ * Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package alloy.benchmarks
+
+import alloy.openapi.OpenApiConversionResult
+import alloy.openapi.convertWithConfig
+import org.openjdk.jmh.annotations._
+import software.amazon.smithy.model.Model
+import software.amazon.smithy.openapi.OpenApiConfig
+
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+/** OpenAPI conversion of every `@simpleRestJson` service of a generated model,
+  * one service after the other (`threads = 0`) or concurrently on a fixed
+  * thread pool.
+  */
+@State(Scope.Benchmark)
+@BenchmarkMode(Array(Mode.AverageTime))
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+class OpenApiConversionBenchmark {
+
+  @Param(Array("20"))
+  var services: Int = 0
+
+  @Param(Array("200"))
+  var structures: Int = 0
+
+  @Param(Array("0", "1", "4"))
+  var threads: Int = 0
+
+  var model: Model = _
+  var executor: ExecutorService = _
+  val classLoader: ClassLoader = getClass().getClassLoader()
+  val buildConfig: Unit => OpenApiConfig = _ => new OpenApiConfig()
+
+  @Setup
+  def setup(): Unit = {
+    model = SyntheticModels.generate(
+      SyntheticModels.Config(
+        services = services,
+        structures = structures,
+        depth = 5,
+        protoShare = 0.0,
+        restShare = 1.0
+      )
+    )
+    executor = if (threads > 0) Executors.newFixedThreadPool(threads) else null
+  }
+
+  @TearDown
+  def tearDown(): Unit = Option(executor).foreach(_.shutdown())
+
+  @Benchmark
+  def convert(): List[OpenApiConversionResult] =
+    if (executor == null)
+      convertWithConfig(model, None, buildConfig, classLoader)
+    else convertWithConfig(model, None, buildConfig, classLoader, executor)
+
+}
@@ -0,0 +1,86 @@
+/* Copyright 2022 Disney Streaming
+ *
+ * Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package alloy.benchmarks
+
+import alloy.json.OrderedMap
+import org.openjdk.jmh.annotations._
+import org.openjdk.jmh.infra.Blackhole
+
+import java.util.concurrent.TimeUnit
+
+/** Copying, looking up and iterating over an [[OrderedMap]], against a
+  * `LinkedHashMap`. Copies are presized, so that their allocation, as reported
+  * by `-prof gc` (`gc.alloc.rate.norm`), is the memory the map retains.
+  */
+@State(Scope.Benchmark)
+@BenchmarkMode(Array(Mode.AverageTime))
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+class OrderedMapBenchmark {
+
+  @Param(Array("4", "16", "256"))
+  var size: Int = 0
+
+  var keys: Array[String] = _
+  var source: java.util.Map[String, Integer] = _
+  var ordered: OrderedMap[String, Integer] = _
+  var linked: java.util.LinkedHashMap[String, Integer] = _
+
+  @Setup
+  def setup(): Unit = {
+    keys = Array.tabulate(size)(i => s"field-${(i * 31) % size}")
+    source = new java.util.LinkedHashMap[String, Integer]()
+    keys.zipWithIndex.foreach { case (k, i) => source.put(k, i) }
+    ordered = OrderedMap.copyOf(source)
+    linked = new java.util.LinkedHashMap(source)
+  }
+
+  @Benchmark
+  def orderedCopy(): OrderedMap[String, Integer] = OrderedMap.copyOf(source)
+
+  @Benchmark
+  def linkedCopy(): java.util.LinkedHashMap[String, Integer] =
+    new java.util.LinkedHashMap(source)
+
+  @Benchmark
+  def orderedLookup(bh: Blackhole): Unit = {
+    var i = 0
+    while (i < keys.length) {
+      bh.consume(ordered.get(keys(i)))
+      i += 1
+    }
+  }
+
+  @Benchmark
+  def linkedLookup(bh: Blackhole): Unit = {
+    var i = 0
+    while (i < keys.length) {
+      bh.consume(linked.get(keys(i)))
+      i += 1
+    }
+  }
+
+  @Benchmark
+  def orderedIterate(bh: Blackhole): Unit =
+    ordered.entrySet.forEach(e => bh.consume(e.getValue))
+
+  @Benchmark
+  def linkedIterate(bh: Blackhole): Unit =
+    linked.entrySet.forEach(e => bh.consume(e.getValue))
+
+}
@@ -0,0 +1,53 @@
+/* Copyright 2022 Disney Streaming
+ *
+ * Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package alloy.benchmarks
+
+import alloy.proto.validation.ProtoInlinedOneOfValidator
+import org.openjdk.jmh.annotations._
+import software.amazon.smithy.model.Model
+import software.amazon.smithy.model.validation.ValidationEvent
+
+import java.util.concurrent.TimeUnit
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Array(Mode.AverageTime))
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+class ProtoInlinedOneOfValidatorBenchmark {
+
+  @Param(Array("1000", "5000"))
+  var inlinedOneOfs: Int = 0
+
+  var baseModel: Model = null
+  var model: Model = null
+
+  @Setup(Level.Trial)
+  def setupTrial(): Unit =
+    baseModel = SyntheticModels.inlinedOneOfs(inlinedOneOfs)
+
+  // Knowledge indexes are cached on the model : rebuild it before each
+  // invocation so that the cost of building them is part of the measurement.
+  @Setup(Level.Invocation)
+  def setupInvocation(): Unit =
+    model = baseModel.toBuilder().build()
+
+  @Benchmark
+  def validate(): java.util.List[ValidationEvent] =
+    new ProtoInlinedOneOfValidator().validate(model)
+
+}
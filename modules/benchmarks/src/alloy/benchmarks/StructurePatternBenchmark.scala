@@ -0,0 +1,71 @@
+/* Copyright 2022 Disney Streaming
+ *
+ * Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package alloy.benchmarks
+
+import alloy.StructurePattern
+import org.openjdk.jmh.annotations._
+
+import java.util.concurrent.TimeUnit
+import java.util.regex.Pattern
+
+/** Parsing of composite ids with a compiled structure pattern, against the
+  * equivalent regular expression.
+  */
+@State(Scope.Benchmark)
+@BenchmarkMode(Array(Mode.AverageTime))
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+class StructurePatternBenchmark {
+
+  val pattern = "urn:{namespace}:{kind}/{id}-{version}"
+  val input = "urn:media:episode/5d0c6f2e-3b7a-4bb1-9f1e-2f6f0d1b7c11-42"
+
+  val compiled = StructurePattern.compile(pattern)
+  val regex = Pattern.compile(
+    compiled.getLiterals
+      .toArray(new Array[String](0))
+      .map(Pattern.quote)
+      .mkString("(.*?)")
+  )
+  val values = new Array[String](compiled.getParamNames.size)
+
+  @Benchmark
+  def compiledParse(): java.util.Optional[java.util.Map[String, String]] =
+    compiled.parse(input)
+
+  @Benchmark
+  def compiledParseInto(): Array[String] = {
+    compiled.parseInto(input, values)
+    values
+  }
+
+  @Benchmark
+  def regexParse(): java.util.Map[String, String] = {
+    val matcher = regex.matcher(input)
+    val result = new java.util.LinkedHashMap[String, String]()
+    if (matcher.matches()) {
+      var i = 0
+      while (i < matcher.groupCount()) {
+        result.put(compiled.getParamNames.get(i), matcher.group(i + 1))
+        i += 1
+      }
+    }
+    result
+  }
+
+}
@@ -0,0 +1,383 @@
+/* Copyright 2022 Disney Streaming
+ *
+ * Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package alloy.benchmarks
+
+import alloy.DataExamplesTrait
+import alloy.DefaultValueTrait
+import alloy.DiscriminatedUnionTrait
+import alloy.JsonUnknownTrait
+import alloy.SimpleRestJsonTrait
+import alloy.StructurePatternTrait
+import alloy.UntaggedUnionTrait
+import alloy.proto.GrpcErrorTrait
+import alloy.proto.GrpcTrait
+import alloy.proto.ProtoEnabledTrait
+import alloy.proto.ProtoIndexTrait
+import alloy.proto.ProtoInlinedOneOfTrait
+import software.amazon.smithy.model.Model
+import software.amazon.smithy.model.node.Node
+import software.amazon.smithy.model.pattern.UriPattern
+import software.amazon.smithy.model.shapes._
+import software.amazon.smithy.model.traits.ErrorTrait
+import software.amazon.smithy.model.traits.HttpHeaderTrait
+import software.amazon.smithy.model.traits.HttpTrait
+import software.amazon.smithy.model.traits.RequiredTrait
+import software.amazon.smithy.model.traits.TimestampFormatTrait
+import software.amazon.smithy.model.traits.Trait
+
+/** Builders for large, programmatically generated models used by the
+  * benchmarks. Shapes are generated with stable ids so that runs are
+  * comparable with each other.
+  */
+object SyntheticModels {
+
+  val namespace = "alloy.benchmarks"
+
+  private val string = ShapeId.from("smithy.api#String")
+  private val integer = ShapeId.from("smithy.api#Integer")
+  private val timestamp = ShapeId.from("smithy.api#Timestamp")
+  private val document = ShapeId.from("smithy.api#Document")
+
+  /** Shape of a generated model.
+    *
+    * @param services
+    *   number of services
+    * @param structures
+    *   number of (non-leaf) structures, each one coming with its own unions,
+    *   intEnum, list, map and structure pattern
+    * @param depth
+    *   length of the chains of nested structures
+    * @param protoShare
+    *   share of the services annotated with `@grpc`/`@protoEnabled`
+    * @param restShare
+    *   share of the services annotated with `@simpleRestJson`
+    */
+  final case class Config(
+      services: Int,
+      structures: Int,
+      depth: Int,
+      protoShare: Double,
+      restShare: Double
+  )
+
+  /** A model exercising every alloy validator. Each service has
+    * `operationsPerService` operations taking and returning structures from
+    * the generated pool, so that services share parts of their closures.
+    */
+  def generate(config: Config): Model = {
+    val builder = Model.assembler().disableValidation()
+    val structureIds =
+      (0 until config.structures).map(i => shapeId(s"Struct$i")).toVector
+
+    val error = StructureShape
+      .builder()
+      .id(shapeId("ServiceError"))
+      .addTrait(new ErrorTrait("server"))
+      .addTrait(new GrpcErrorTrait(13))
+      .addMember(member(shapeId("ServiceError"), "message", string))
+      .build()
+    builder.addShape(error)
+
+    val leaves = List("LeafA", "LeafB").map { name =>
+      val id = shapeId(name)
+      StructureShape
+        .builder()
+        .id(id)
+        .addMember(member(id, "value", string, new ProtoIndexTrait(1)))
+        .build()
+    }
+    leaves.foreach(builder.addShape(_))
+
+    structureIds.zipWithIndex.foreach { case (id, i) =>
+      val child =
+        if (i % config.depth != config.depth - 1 && i + 1 < structureIds.size)
+          Some(structureIds(i + 1))
+        else None
+      structureShapes(id, i, child).foreach(builder.addShape(_))
+    }
+
+    val protoServices = math.round(config.services * config.protoShare).toInt
+    val restServices = math.round(config.services * config.restShare).toInt
+    (0 until config.services).foreach { j =>
+      val isProto = j < protoServices
+      val isRest = j >= config.services - restServices
+      val serviceId = shapeId(s"Service$j")
+      val service = ServiceShape.builder().id(serviceId).version("1.0")
+      val serviceTraits =
+        List(
+          Some(new GrpcTrait()).filter(_ => isProto),
+          Some(new SimpleRestJsonTrait()).filter(_ => isRest)
+        ).flatten
+      serviceTraits.foreach(service.addTrait(_))
+      (0 until operationsPerService).foreach { k =>
+        val index = j * operationsPerService + k
+        val opId = shapeId(s"Service${j}Operation$k")
+        val op = OperationShape
+          .builder()
+          .id(opId)
+          .input(structureIds(index % structureIds.size))
+          .output(structureIds((index + 1) % structureIds.size))
+          .addError(error.getId())
+        val operationTraits = List(
+          Some(new ProtoEnabledTrait()).filter(_ => isProto),
+          Some(
+            HttpTrait
+              .builder()
+              .method("POST")
+              .uri(UriPattern.parse(s"/service$j/operation$k"))
+              .code(200)
+              .build()
+          ).filter(_ => isRest)
+        ).flatten
+        operationTraits.foreach(op.addTrait(_))
+        builder.addShape(op.build())
+        service.addOperation(opId)
+      }
+      builder.addShape(service.build())
+    }
+
+    builder.assemble().unwrap()
+  }
+
+  val operationsPerService = 5
+
+  private def structureShapes(
+      id: ShapeId,
+      i: Int,
+      child: Option[ShapeId]
+  ): List[Shape] = {
+    val name = id.getName()
+    val inlined = i % 2 == 0
+
+    val choiceId = shapeId(s"${name}Choice")
+    val choice = UnionShape.builder().id(choiceId)
+    if (inlined) {
+      choice
+        .addTrait(new ProtoInlinedOneOfTrait())
+        .addMember(member(choiceId, "text", string, new ProtoIndexTrait(8)))
+        .addMember(member(choiceId, "number", integer, new ProtoIndexTrait(9)))
+    } else {
+      choice
+        .addTrait(new DiscriminatedUnionTrait("kind"))
+        .addMember(
+          member(choiceId, "a", shapeId("LeafA"), new ProtoIndexTrait(1))
+        )
+        .addMember(
+          member(choiceId, "b", shapeId("LeafB"), new ProtoIndexTrait(2))
+        )
+        .addMember(
+          member(choiceId, "other", document, new JsonUnknownTrait())
+        )
+    }
+
+    // the leaves have no required member: `b` cannot be told apart from `a`
+    val valueId = shapeId(s"${name}Value")
+    val value = UnionShape
+      .builder()
+      .id(valueId)
+      .addTrait(new UntaggedUnionTrait())
+      .addMember(member(valueId, "text", string, new ProtoIndexTrait(1)))
+      .addMember(member(valueId, "number", integer, new ProtoIndexTrait(2)))
+      .addMember(member(valueId, "a", shapeId("LeafA"), new ProtoIndexTrait(3)))
+      .addMember(member(valueId, "b", shapeId("LeafB"), new ProtoIndexTrait(4)))
+      .build()
+
+    val tagsId = shapeId(s"${name}Tags")
+    val tags = ListShape
+      .builder()
+      .id(tagsId)
+      .member(member(tagsId, "member", string))
+      .build()
+
+    val attributesId = shapeId(s"${name}Attributes")
+    val attributes = MapShape
+      .builder()
+      .id(attributesId)
+      .key(member(attributesId, "key", string))
+      .value(member(attributesId, "value", string))
+      .build()
+
+    val statusId = shapeId(s"${name}Status")
+    val status = IntEnumShape
+      .builder()
+      .id(statusId)
+      .addMember("UNKNOWN", 0)
+      .addMember("ACTIVE", 1)
+      .addMember("INACTIVE", 2)
+      .build()
+
+    val keyId = shapeId(s"${name}Key")
+    val key = StructureShape
+      .builder()
+      .id(keyId)
+      .addMember(member(keyId, "id", string, new RequiredTrait()))
+      .addMember(member(keyId, "count", integer, new RequiredTrait()))
+      .build()
+    val keyPattern = StringShape
+      .builder()
+      .id(shapeId(s"${name}KeyPattern"))
+      .addTrait(
+        StructurePatternTrait
+          .builder()
+          .setPattern("{id}-{count}")
+          .setTarget(keyId)
+          .build()
+      )
+      .build()
+
+    val structure = StructureShape
+      .builder()
+      .id(id)
+      .addTrait(
+        DataExamplesTrait
+          .builder()
+          .addExample(
+            new DataExamplesTrait.DataExample(
+              DataExamplesTrait.DataExampleType.SMITHY,
+              Node
+                .objectNodeBuilder()
+                .withMember("id", s"id-$i")
+                .withMember("count", i)
+                .withMember("tags", Node.fromStrings("a", "b"))
+                .build()
+            )
+          )
+          .build()
+      )
+      .addMember(
+        member(
+          id,
+          "id",
+          string,
+          new ProtoIndexTrait(1),
+          new HttpHeaderTrait("X-Id")
+        )
+      )
+      .addMember(
+        member(
+          id,
+          "count",
+          integer,
+          new ProtoIndexTrait(2),
+          new DefaultValueTrait(Node.from(0))
+        )
+      )
+      .addMember(
+        // a third of the timestamps are missing a format
+        if (i % 3 == 0)
+          member(id, "createdAt", timestamp, new ProtoIndexTrait(3))
+        else
+          member(
+            id,
+            "createdAt",
+            timestamp,
+            new ProtoIndexTrait(3),
+            new TimestampFormatTrait(TimestampFormatTrait.DATE_TIME)
+          )
+      )
+      .addMember(member(id, "tags", tagsId, new ProtoIndexTrait(4)))
+      .addMember(
+        member(id, "attributes", attributesId, new ProtoIndexTrait(5))
+      )
+      .addMember(member(id, "status", statusId, new ProtoIndexTrait(6)))
+    // members of inlined unions are indexed as part of the structure
+    if (inlined) structure.addMember(member(id, "choice", choiceId))
+    else
+      structure.addMember(
+        member(id, "choice", choiceId, new ProtoIndexTrait(7))
+      )
+    structure.addMember(
+      member(id, "value", valueId, new ProtoIndexTrait(11))
+    )
+    child.foreach(c =>
+      structure.addMember(member(id, "child", c, new ProtoIndexTrait(10)))
+    )
+
+    List(
+      structure.build(),
+      choice.build(),
+      value,
+      tags,
+      attributes,
+      status,
+      key,
+      keyPattern
+    )
+  }
+
+  private def shapeId(name: String): ShapeId =
+    ShapeId.fromParts(namespace, name)
+
+  private def member(
+      container: ShapeId,
+      name: String,
+      target: ShapeId,
+      traits: Trait*
+  ): MemberShape = {
+    val builder = MemberShape
+      .builder()
+      .id(container.withMember(name))
+      .target(target)
+    traits.foreach(builder.addTrait(_))
+    builder.build()
+  }
+
+  /** A model with `count` structures, each of them holding a single
+    * `@protoInlinedOneOf` union, with `@protoIndex` applied throughout.
+    */
+  def inlinedOneOfs(count: Int): Model = {
+    val builder = Model.builder()
+    (0 until count).foreach { i =>
+      val unionId = ShapeId.fromParts(namespace, s"Choice$i")
+      val union = UnionShape
+        .builder()
+        .id(unionId)
+        .addTrait(new ProtoInlinedOneOfTrait())
+        .addMember(indexedMember(unionId, "name", string, 2))
+        .addMember(indexedMember(unionId, "age", integer, 3))
+        .build()
+      val structureId = ShapeId.fromParts(namespace, s"Container$i")
+      val structure = StructureShape
+        .builder()
+        .id(structureId)
+        .addMember(indexedMember(structureId, "id", string, 1))
+        .addMember(
+          MemberShape
+            .builder()
+            .id(structureId.withMember("choice"))
+            .target(unionId)
+            .build()
+        )
+        .build()
+      builder.addShapes(union, structure)
+    }
+    builder.build()
+  }
+
+  private def indexedMember(
+      container: ShapeId,
+      name: String,
+      target: ShapeId,
+      index: Int
+  ): MemberShape =
+    MemberShape
+      .builder()
+      .id(container.withMember(name))
+      .target(target)
+      .addTrait(new ProtoIndexTrait(index))
+      .build()
+
+}
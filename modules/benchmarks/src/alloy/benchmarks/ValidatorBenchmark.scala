@@ -0,0 +1,114 @@
+/* Copyright 2022 Disney Streaming
+ *
+ * Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package alloy.benchmarks
+
+import org.openjdk.jmh.annotations._
+import software.amazon.smithy.model.Model
+import software.amazon.smithy.model.validation.ValidationEvent
+import software.amazon.smithy.model.validation.Validator
+
+import java.util.concurrent.TimeUnit
+
+/** Throughput of each validator of alloy's core module against generated
+  * models. Run with the GC profiler to also get allocation rates :
+  *
+  * {{{
+  * ./mill benchmarks.runJmh ValidatorBenchmark -prof gc
+  * }}}
+  */
+@State(Scope.Benchmark)
+@BenchmarkMode(Array(Mode.Throughput))
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+class ValidatorBenchmark {
+
+  @Param(
+    Array(
+      "alloy.proto.validation.GrpcTraitValidator",
+      "alloy.proto.validation.GrpcErrorTraitValidator",
+      "alloy.proto.validation.ProtoIndexTraitValidator",
+      "alloy.proto.validation.ProtoInlinedOneOfValidator",
+      "alloy.proto.validation.ProtoReservedFieldsTraitValidator",
+      "alloy.proto.validation.ProtoIntEnumValidator",
+      "alloy.proto.validation.ProtoUnionMemberValidator",
+      "alloy.proto.validation.ProtoMapKeyValidator",
+      "alloy.validation.DataExamplesTraitValidator",
+      "alloy.validation.DefaultValueTraitValidator",
+      "alloy.validation.DiscriminatedUnionValidator",
+      "alloy.validation.SimpleRestJsonHttpHeaderValidator",
+      "alloy.validation.SimpleRestJsonTimestampValidator",
+      "alloy.validation.SimpleRestJsonValidator",
+      "alloy.validation.StructurePatternTraitValidator",
+      "alloy.validation.JsonUnknownTraitValidator",
+      "alloy.validation.UntaggedUnionValidator"
+    )
+  )
+  var validator: String = ""
+
+  @Param(Array("50"))
+  var services: Int = 0
+
+  @Param(Array("2000"))
+  var structures: Int = 0
+
+  @Param(Array("5"))
+  var depth: Int = 0
+
+  @Param(Array("0.5"))
+  var protoShare: Double = 0
+
+  @Param(Array("0.5"))
+  var restShare: Double = 0
+
+  /** When true, the model is rebuilt before each invocation, which drops the
+    * knowledge indexes (and the shape-by-trait index) cached on it.
+    */
+  @Param(Array("true", "false"))
+  var coldModel: Boolean = true
+
+  var instance: Validator = null
+  var baseModel: Model = null
+  var model: Model = null
+
+  @Setup(Level.Trial)
+  def setupTrial(): Unit = {
+    instance = Class
+      .forName(validator)
+      .getDeclaredConstructor()
+      .newInstance()
+      .asInstanceOf[Validator]
+    baseModel = SyntheticModels.generate(
+      SyntheticModels.Config(
+        services = services,
+        structures = structures,
+        depth = depth,
+        protoShare = protoShare,
+        restShare = restShare
+      )
+    )
+  }
+
+  @Setup(Level.Invocation)
+  def setupInvocation(): Unit =
+    model = if (coldModel) baseModel.toBuilder().build() else baseModel
+
+  @Benchmark
+  def validate(): java.util.List[ValidationEvent] =
+    instance.validate(model)
+
+}
@@ -0,0 +1,223 @@
+/* Copyright 2022 Disney Streaming
+ *
+ * Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package alloy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Compiled form of an {@link StructurePatternTrait} pattern, such as
+ * {@code "{foo}_{bar}"}: the literal segments of the pattern and the names of
+ * the params in between them.
+ *
+ * Parsing scans the input once, each param capturing everything up to the
+ * first occurrence of the literal that follows it (the last param capturing up
+ * to the literal suffix). This is equivalent to matching the pattern as an
+ * anchored regular expression where params are replaced by {@code (.*?)}, but
+ * without backtracking.
+ *
+ * Instances are immutable and can be shared across threads.
+ */
+public final class StructurePattern {
+	private final String pattern;
+	// literals.length == params.length + 1 : literals[i] precedes params[i], the
+	// last literal is the suffix of the pattern
+	private final String[] literals;
+	private final String[] params;
+	private final List<String> literalList;
+	private final List<String> paramList;
+	private final int literalsLength;
+
+	private StructurePattern(String pattern, List<String> literals, List<String> params) {
+		this.pattern = pattern;
+		this.literals = literals.toArray(new String[0]);
+		this.params = params.toArray(new String[0]);
+		this.literalList = Collections.unmodifiableList(Arrays.asList(this.literals));
+		this.paramList = Collections.unmodifiableList(Arrays.asList(this.params));
+		int length = 0;
+		for (String literal : this.literals) {
+			length += literal.length();
+		}
+		this.literalsLength = length;
+	}
+
+	public static StructurePattern compile(String pattern) {
+		final List<String> literals = new ArrayList<>();
+		final List<String> params = new ArrayList<>();
+		int literalStart = 0;
+		int open = pattern.indexOf('{');
+		while (open >= 0) {
+			final int close = pattern.indexOf('}', open + 1);
+			if (close < 0) {
+				break;
+			}
+			literals.add(pattern.substring(literalStart, open));
+			params.add(pattern.substring(open + 1, close));
+			literalStart = close + 1;
+			open = pattern.indexOf('{', literalStart);
+		}
+		literals.add(pattern.substring(literalStart));
+		return new StructurePattern(pattern, literals, params);
+	}
+
+	public String getPattern() {
+		return pattern;
+	}
+
+	/**
+	 * The names of the params, in the order they appear in the pattern.
+	 */
+	public List<String> getParamNames() {
+		return paramList;
+	}
+
+	/**
+	 * The literal segments of the pattern. There is always one more literal than
+	 * params, the first and last ones (possibly empty) being the prefix and the
+	 * suffix of the pattern.
+	 */
+	public List<String> getLiterals() {
+		return literalList;
+	}
+
+	/**
+	 * Whether the input matches the pattern.
+	 */
+	public boolean matches(CharSequence input) {
+		return parseInto(input, null);
+	}
+
+	/**
+	 * Extracts the values of the params from the input, keyed by param name in
+	 * pattern order, or returns an empty optional if the input does not match.
+	 */
+	public Optional<Map<String, String>> parse(CharSequence input) {
+		final String[] values = new String[params.length];
+		if (!parseInto(input, values)) {
+			return Optional.empty();
+		}
+		final Map<String, String> result = new LinkedHashMap<>(params.length * 2);
+		for (int i = 0; i < params.length; i++) {
+			result.put(params[i], values[i]);
+		}
+		return Optional.of(result);
+	}
+
+	/**
+	 * Extracts the values of the params from the input into {@code values}, which
+	 * must have one slot per param (in the order of {@link #getParamNames()}).
+	 * Avoids allocating anything but the extracted values.
+	 *
+	 * @return false if the input does not match, in which case the content of
+	 *         {@code values} is unspecified.
+	 */
+	public boolean parseInto(CharSequence input, String[] values) {
+		if (values != null && values.length < params.length) {
+			throw new IllegalArgumentException(
+					"Expected at least " + params.length + " slots, got " + values.length);
+		}
+		final int length = input.length();
+		if (length < literalsLength || !regionMatches(input, 0, literals[0])) {
+			return false;
+		}
+		final String suffix = literals[params.length];
+		final int end = length - suffix.length();
+		if (!regionMatches(input, end, suffix)) {
+			return false;
+		}
+		int position = literals[0].length();
+		for (int i = 0; i < params.length; i++) {
+			final int valueEnd;
+			if (i == params.length - 1) {
+				valueEnd = end;
+			} else {
+				final String next = literals[i + 1];
+				valueEnd = indexOf(input, next, position, end);
+				if (valueEnd < 0) {
+					return false;
+				}
+			}
+			if (valueEnd < position) {
+				return false;
+			}
+			if (values != null) {
+				values[i] = input.subSequence(position, valueEnd).toString();
+			}
+			position = valueEnd + literals[i + 1].length();
+		}
+		// without params, the pattern is a single literal
+		return params.length > 0 || position == length;
+	}
+
+	/**
+	 * Renders the pattern with the given values, keyed by param name.
+	 *
+	 * @throws IllegalArgumentException if a param has no value
+	 */
+	public String format(Map<String, ?> values) {
+		final String[] rendered = new String[params.length];
+		int length = literalsLength;
+		for (int i = 0; i < params.length; i++) {
+			final Object value = values.get(params[i]);
+			if (value == null) {
+				throw new IllegalArgumentException("Missing value for param `" + params[i] + "` of " + pattern);
+			}
+			rendered[i] = value.toString();
+			length += rendered[i].length();
+		}
+		final StringBuilder builder = new StringBuilder(length);
+		for (int i = 0; i < params.length; i++) {
+			builder.append(literals[i]).append(rendered[i]);
+		}
+		return builder.append(literals[params.length]).toString();
+	}
+
+	@Override
+	public String toString() {
+		return pattern;
+	}
+
+	private static boolean regionMatches(CharSequence input, int offset, String literal) {
+		if (offset < 0 || offset + literal.length() > input.length()) {
+			return false;
+		}
+		for (int i = 0; i < literal.length(); i++) {
+			if (input.charAt(offset + i) != literal.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// first index of literal in input[from, to), or -1
+	private static int indexOf(CharSequence input, String literal, int from, int to) {
+		if (input instanceof String) {
+			final int index = ((String) input).indexOf(literal, from);
+			return index >= 0 && index + literal.length() <= to ? index : -1;
+		}
+		for (int i = from; i + literal.length() <= to; i++) {
+			if (regionMatches(input, i, literal)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+}
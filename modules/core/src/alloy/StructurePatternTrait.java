@@ -27,6 +27,7 @@ public final class StructurePatternTrait extends AbstractTrait implements ToSmit
     public static final ShapeId ID = ShapeId.from("alloy#structurePattern");
     private final ShapeId target;
     private final String pattern;
+    private volatile StructurePattern compiledPattern;
 
     private StructurePatternTrait(Builder builder) {
         super(ID, builder.getSourceLocation());
@@ -42,6 +43,19 @@ public final class StructurePatternTrait extends AbstractTrait implements ToSmit
         return this.pattern;
     }
 
+    /**
+     * @return Returns the compiled form of the pattern, computed on first access
+     * and cached on the trait.
+     */
+    public StructurePattern getCompiledPattern() {
+        StructurePattern result = compiledPattern;
+        if (result == null) {
+            result = StructurePattern.compile(pattern);
+            compiledPattern = result;
+        }
+        return result;
+    }
+
     @Override
     protected Node createNode() {
         return ObjectNode.builder().withMember("target", target.toString()).withMember("pattern", pattern).build();
@@ -0,0 +1,54 @@
+/* Copyright 2022 Disney Streaming
+ *
+ * Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package alloy.proto.validation;
+
+import alloy.proto.GrpcTrait;
+import alloy.proto.ProtoEnabledTrait;
+import alloy.validation.ShapeClosure;
+import software.amazon.smithy.model.Model;
+import software.amazon.smithy.model.knowledge.KnowledgeIndex;
+import software.amazon.smithy.model.shapes.Shape;
+
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * The set of shapes connected to a shape annotated with either @protoEnabled or
+ * @grpc, which is what the proto-specific validation rules apply to.
+ *
+ * The closure is computed once per {@link Model} and shared by all the
+ * validators of the proto rules.
+ */
+final class ProtoClosureIndex implements KnowledgeIndex {
+	private final Set<Shape> shapes;
+
+	ProtoClosureIndex(Model model) {
+		this.shapes = ShapeClosure.of(model, Stream.concat(model.getShapesWithTrait(ProtoEnabledTrait.class).stream(),
+				model.getShapesWithTrait(GrpcTrait.class).stream()));
+	}
+
+	static ProtoClosureIndex of(Model model) {
+		return model.getKnowledge(ProtoClosureIndex.class, ProtoClosureIndex::new);
+	}
+
+	/**
+	 * All the shapes (including member shapes) connected to a @protoEnabled or
+	 * a @grpc shape, each of them appearing once.
+	 */
+	Set<Shape> getShapes() {
+		return shapes;
+	}
+}
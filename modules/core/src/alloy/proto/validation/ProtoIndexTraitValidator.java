@@ -15,7 +15,9 @@
 
 package alloy.proto.validation;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Map;
@@ -24,7 +26,9 @@ import java.util.AbstractMap;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import alloy.validation.MemberTargetIndex;
 import alloy.validation.OptionHelper;
+import alloy.validation.ParallelValidation;
 import alloy.OpenEnumTrait;
 import alloy.proto.ProtoIndexTrait;
 import alloy.proto.ProtoInlinedOneOfTrait;
@@ -40,41 +44,52 @@ final public class ProtoIndexTraitValidator extends AbstractValidator {
 	public final static String ENUM_MUST_HAVE_ZERO = "EnumMustHaveZeroIndex";
 	public final static String OPEN_ENUM_MUST_NOT_HAVE_INDEXES = "OpenEnumMustNotHaveIndexes";
 
+	private final boolean parallel;
+
+	public ProtoIndexTraitValidator() {
+		this(false);
+	}
+
+	/**
+	 * @param parallel whether the relevant containers should be validated across
+	 *                 the threads of the current ForkJoinPool
+	 */
+	public ProtoIndexTraitValidator(boolean parallel) {
+		this.parallel = parallel;
+	}
+
 	@Override
 	public List<ValidationEvent> validate(Model model) {
-		final Set<ShapeId> uniqueShapes = model.getMemberShapesWithTrait(ProtoIndexTrait.class).stream()
-				.flatMap(ms -> findRelevantContainer(model, ms.getContainer())).collect(Collectors.toSet());
-		return uniqueShapes.stream().flatMap(shapeId -> OptionHelper.toStream(model.getShape(shapeId)))
-				.flatMap(c -> validateShape(model, c).stream()).collect(Collectors.toList());
+		final MemberTargetIndex memberTargetIndex = MemberTargetIndex.of(model);
+		final Set<Shape> uniqueShapes = new LinkedHashSet<>();
+		for (MemberShape member : model.getMemberShapesWithTrait(ProtoIndexTrait.class)) {
+			model.getShape(member.getContainer())
+					.ifPresent(container -> addRelevantContainers(model, memberTargetIndex, container, uniqueShapes));
+		}
+		return ParallelValidation.forEach(new ArrayList<>(uniqueShapes), parallel, c -> validateShape(model, c));
 	}
 
 	/**
-	 * Before validating the Shape with the @id received, we check if it's a union.
-	 * If it's a union and it is annotated with @protoInlinedOneOf, we retrieve the
-	 * structures (their shape ids) that references this, and add those to be
-	 * validated instead.
+	 * Before validating the Shape containing a @protoIndex member, we check if it's
+	 * a union. If it's a union and it is annotated with @protoInlinedOneOf, we look
+	 * up the structures that reference it in the {@link MemberTargetIndex}, and add
+	 * those to be validated instead.
 	 */
-	private Stream<ShapeId> findRelevantContainer(Model model, ShapeId id) {
-		return OptionHelper.toStream(model.getShape(id)).flatMap(s -> {
-			return asProtoInlinedOneOf(s).map(u -> shapeUsingUnionMembers(model, u).map(Shape::getId))
-					.orElse(Stream.of(id));
-		});
+	private void addRelevantContainers(Model model, MemberTargetIndex memberTargetIndex, Shape container,
+			Set<Shape> acc) {
+		if (asProtoInlinedOneOf(container).isPresent()) {
+			for (MemberShape reference : memberTargetIndex.getReferencingMembers(container.getId())) {
+				model.getShape(reference.getContainer()).flatMap(Shape::asStructureShape).ifPresent(acc::add);
+			}
+		} else {
+			acc.add(container);
+		}
 	}
 
 	private Optional<UnionShape> asProtoInlinedOneOf(Shape shape) {
 		return shape.asUnionShape().filter(u -> u.hasTrait(ProtoInlinedOneOfTrait.class));
 	}
 
-	private Stream<StructureShape> shapeUsingUnionMembers(Model model, UnionShape union) {
-		return model.getMemberShapes().stream().flatMap(m -> {
-			if (m.getTarget().equals(union.getId())) {
-				return OptionHelper.toStream(model.getShape(m.getContainer()).flatMap(Shape::asStructureShape));
-			} else {
-				return Stream.empty();
-			}
-		});
-	}
-
 	private List<ValidationEvent> validateShape(Model model, Shape shape) {
 		final Map<String, Shape> members = allMembers(model, shape);
 		final Map<String, Optional<ProtoIndexTrait>> fieldsAndIndexes = members.entrySet().stream()
@@ -163,16 +178,14 @@ final public class ProtoIndexTraitValidator extends AbstractValidator {
 				.flatMap(u -> u.getAllMembers().entrySet().stream().map(this::asShape));
 
 		final Stream<Map.Entry<String, Shape>> structureMembers = OptionHelper.toStream(shape.asStructureShape())
-				.flatMap(u -> {
-					Stream<Map.Entry<String, Shape>> rootShapes = u.getAllMembers().entrySet().stream()
-							.filter(e -> !memberAsProtoInlinedOneOf(model, e.getValue()).isPresent())
-							.map(this::asShape);
-					Stream<Map.Entry<String, Shape>> subUnionMembers = u.getAllMembers().values().stream()
-							.flatMap(m -> OptionHelper.toStream(memberAsProtoInlinedOneOf(model, m)))
-							.flatMap(union -> allMembers(model, union).entrySet().stream().map(
-									e -> asShape(mapEntry(union.getId().getName() + "#" + e.getKey(), e.getValue()))));
-					return Stream.concat(rootShapes, subUnionMembers);
-				});
+				.flatMap(u -> u.getAllMembers().entrySet().stream().flatMap(e -> {
+					// resolve the target once per member : inlined unions are flattened into
+					// the structure, everything else is kept as is
+					return memberAsProtoInlinedOneOf(model, e.getValue())
+							.map(union -> allMembers(model, union).entrySet().stream().map(
+									ue -> asShape(mapEntry(union.getId().getName() + "#" + ue.getKey(), ue.getValue()))))
+							.orElseGet(() -> Stream.of(asShape(e)));
+				}));
 		return Stream.of(unionMembers, enumMembers, intEnumMembers, structureMembers).flatMap(s -> s)
 				.collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
 	}
@@ -16,6 +16,7 @@
 package alloy.proto.validation;
 
 import alloy.proto.ProtoInlinedOneOfTrait;
+import alloy.validation.MemberTargetIndex;
 import software.amazon.smithy.model.Model;
 import software.amazon.smithy.model.shapes.MemberShape;
 import software.amazon.smithy.model.shapes.Shape;
@@ -34,10 +35,10 @@ public final class ProtoInlinedOneOfValidator extends AbstractValidator {
 
 	@Override
 	public List<ValidationEvent> validate(Model model) {
+		final MemberTargetIndex memberTargetIndex = MemberTargetIndex.of(model);
 		return model.getUnionShapes().stream().filter(shape -> shape.hasTrait(ProtoInlinedOneOfTrait.class))
 				.flatMap(unionShape -> {
-					final long usageCount = model.getMemberShapes().stream()
-							.filter(s -> s.getTarget().equals(unionShape.getId())).count();
+					final int usageCount = memberTargetIndex.getReferenceCount(unionShape.getId());
 					if (usageCount > 1) {
 						return Stream.of(ValidationEvent.builder().id(USAGE_COUNT_EXCEEDED).message(
 								"Unions annotated with @protoInlinedOneOf can only be used inside of one structure shape.")
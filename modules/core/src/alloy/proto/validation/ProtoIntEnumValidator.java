@@ -23,18 +23,13 @@ import software.amazon.smithy.model.shapes.Shape;
 import software.amazon.smithy.model.validation.AbstractValidator;
 import software.amazon.smithy.model.validation.Severity;
 import software.amazon.smithy.model.validation.ValidationEvent;
-import software.amazon.smithy.model.neighbor.NeighborProvider;
-import software.amazon.smithy.model.neighbor.Walker;
 import alloy.OpenEnumTrait;
-import alloy.proto.ProtoEnabledTrait;
 import alloy.proto.ProtoIndexTrait;
-import alloy.proto.GrpcTrait;
 import alloy.validation.OptionHelper;
 
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
-import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -43,12 +38,8 @@ public final class ProtoIntEnumValidator extends AbstractValidator {
 
 	@Override
 	public List<ValidationEvent> validate(Model model) {
-		Walker walker = new Walker(NeighborProvider.of(model));
-		Set<Shape> protoEnabledShapes = model.getShapesWithTrait(ProtoEnabledTrait.class);
-		Set<Shape> grpcShapes = model.getShapesWithTrait(GrpcTrait.class);
-		return Stream.concat(protoEnabledShapes.stream(), grpcShapes.stream())
-				// this rule applies to protoEnabled-connected shapes
-				.flatMap(shape -> walker.walkShapes(shape).stream())
+		// this rule applies to protoEnabled-connected shapes
+		return ProtoClosureIndex.of(model).getShapes().stream()
 				.flatMap(shape -> OptionHelper.toStream(shape.asIntEnumShape()))
 				// this rule applies to int enums the members of which are not labelled with
 				// @protoIndex
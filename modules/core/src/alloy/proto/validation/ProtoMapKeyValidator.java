@@ -21,8 +21,6 @@ import software.amazon.smithy.model.shapes.*;
 import software.amazon.smithy.model.validation.AbstractValidator;
 import software.amazon.smithy.model.validation.Severity;
 import software.amazon.smithy.model.validation.ValidationEvent;
-import software.amazon.smithy.model.neighbor.NeighborProvider;
-import software.amazon.smithy.model.neighbor.Walker;
 import alloy.OpenEnumTrait;
 import alloy.proto.*;
 import alloy.validation.OptionHelper;
@@ -30,7 +28,6 @@ import alloy.validation.OptionHelper;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
-import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -39,12 +36,8 @@ public final class ProtoMapKeyValidator extends AbstractValidator {
 
 	@Override
 	public List<ValidationEvent> validate(Model model) {
-		Walker walker = new Walker(NeighborProvider.of(model));
-		Set<Shape> protoEnabledShapes = model.getShapesWithTrait(ProtoEnabledTrait.class);
-		Set<Shape> grpcShapes = model.getShapesWithTrait(GrpcTrait.class);
-		return Stream.concat(protoEnabledShapes.stream(), grpcShapes.stream())
-				// this rule applies to protoEnabled-connected shapes
-				.flatMap(shape -> walker.walkShapes(shape).stream())
+		// this rule applies to protoEnabled-connected shapes
+		return ProtoClosureIndex.of(model).getShapes().stream()
 				.flatMap(shape -> OptionHelper.toStream(shape.asMapShape())).flatMap(mapShape -> {
 					MemberShape key = mapShape.getKey();
 					Shape keyTarget = model.expectShape(key.getTarget());
@@ -21,15 +21,12 @@ import software.amazon.smithy.model.shapes.*;
 import software.amazon.smithy.model.validation.AbstractValidator;
 import software.amazon.smithy.model.validation.Severity;
 import software.amazon.smithy.model.validation.ValidationEvent;
-import software.amazon.smithy.model.neighbor.NeighborProvider;
-import software.amazon.smithy.model.neighbor.Walker;
 import alloy.OpenEnumTrait;
 import alloy.proto.*;
 
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
-import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -38,12 +35,8 @@ public final class ProtoUnionMemberValidator extends AbstractValidator {
 
 	@Override
 	public List<ValidationEvent> validate(Model model) {
-		Walker walker = new Walker(NeighborProvider.of(model));
-		Set<Shape> protoEnabledShapes = model.getShapesWithTrait(ProtoEnabledTrait.class);
-		Set<Shape> grpcShapes = model.getShapesWithTrait(GrpcTrait.class);
-		return Stream.concat(protoEnabledShapes.stream(), grpcShapes.stream())
-				// this rule applies to protoEnabled-connected shapes
-				.flatMap(shape -> walker.walkShapes(shape).stream()).filter(shape -> shape.isUnionShape())
+		// this rule applies to protoEnabled-connected shapes
+		return ProtoClosureIndex.of(model).getShapes().stream().filter(shape -> shape.isUnionShape())
 				.flatMap(unionShape -> unionShape.members().stream()).flatMap(member -> {
 					Shape targetShape = model.expectShape(member.getTarget());
 					boolean memberHasWrapped = member.hasTrait(ProtoWrappedTrait.class);
@@ -0,0 +1,91 @@
+/* Copyright 2022 Disney Streaming
+ *
+ * Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package alloy.validation;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Collectors;
+
+import alloy.proto.validation.GrpcErrorTraitValidator;
+import alloy.proto.validation.GrpcTraitValidator;
+import alloy.proto.validation.ProtoIndexTraitValidator;
+import alloy.proto.validation.ProtoInlinedOneOfValidator;
+import alloy.proto.validation.ProtoIntEnumValidator;
+import alloy.proto.validation.ProtoMapKeyValidator;
+import alloy.proto.validation.ProtoReservedFieldsTraitValidator;
+import alloy.proto.validation.ProtoUnionMemberValidator;
+import software.amazon.smithy.model.Model;
+import software.amazon.smithy.model.validation.ValidationEvent;
+import software.amazon.smithy.model.validation.Validator;
+
+/**
+ * Runs the validators provided by alloy (the ones registered in
+ * META-INF/services) outside of the model assembler.
+ *
+ * {@link #validateInParallel(Model, ForkJoinPool)} runs the validators
+ * concurrently on the given pool, the heaviest of them also splitting their
+ * own work across the pool. Events are returned grouped by validator, in
+ * registration order, and within a validator in the order they are produced
+ * when running sequentially, so the output does not depend on scheduling.
+ */
+public final class AlloyValidators {
+	private AlloyValidators() {
+	}
+
+	/**
+	 * New instances of all the alloy validators, in registration order.
+	 */
+	public static List<Validator> all() {
+		return all(false);
+	}
+
+	static List<Validator> all(boolean parallel) {
+		return Arrays.asList(new GrpcTraitValidator(), new GrpcErrorTraitValidator(),
+				new ProtoIndexTraitValidator(parallel), new ProtoInlinedOneOfValidator(),
+				new ProtoReservedFieldsTraitValidator(), new ProtoIntEnumValidator(), new ProtoUnionMemberValidator(),
+				new ProtoMapKeyValidator(), new DataExamplesTraitValidator(parallel),
+				new DefaultValueTraitValidator(parallel), new DiscriminatedUnionValidator(),
+				new SimpleRestJsonHttpHeaderValidator(), new SimpleRestJsonValidator(),
+				new StructurePatternTraitValidator(), new JsonUnknownTraitValidator(), new UntaggedUnionValidator());
+	}
+
+	/**
+	 * Runs all the alloy validators sequentially, on the calling thread.
+	 */
+	public static List<ValidationEvent> validate(Model model) {
+		return all(false).stream().flatMap(validator -> validator.validate(model).stream())
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * Runs all the alloy validators concurrently on the common pool.
+	 */
+	public static List<ValidationEvent> validateInParallel(Model model) {
+		return validateInParallel(model, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Runs all the alloy validators concurrently on the given pool.
+	 */
+	public static List<ValidationEvent> validateInParallel(Model model, ForkJoinPool pool) {
+		final List<Validator> validators = all(true);
+		// parallel streams started from a task run on the pool of that task
+		return pool.invoke(ForkJoinTask.adapt(() -> validators.parallelStream()
+				.flatMap(validator -> validator.validate(model).stream()).collect(Collectors.toList())));
+	}
+}
@@ -27,24 +27,56 @@ import java.util.ArrayList;
 import java.util.List;
 
 public final class DataExamplesTraitValidator extends AbstractValidator {
+	private final boolean parallel;
+
+	public DataExamplesTraitValidator() {
+		this(false);
+	}
+
+	/**
+	 * @param parallel whether the examples should be validated across the threads
+	 *                 of the current ForkJoinPool
+	 */
+	public DataExamplesTraitValidator(boolean parallel) {
+		this.parallel = parallel;
+	}
+
 	@Override
 	public List<ValidationEvent> validate(Model model) {
-		List<ValidationEvent> events = new ArrayList<>();
+		final List<ShapeExample> examples = new ArrayList<>();
 		for (Shape shape : model.getShapesWithTrait(DataExamplesTrait.class)) {
 			DataExamplesTrait trt = shape.getTrait(DataExamplesTrait.class).get();
 			for (DataExamplesTrait.DataExample example : trt.getExamples()) {
 				if (example.getExampleType().equals(DataExamplesTrait.DataExampleType.SMITHY)) {
-					NodeValidationVisitor visitor = createVisitor(example.getContent(), model, shape);
-					events.addAll(shape.accept(visitor));
+					examples.add(new ShapeExample(shape, example.getContent()));
 				}
 			}
 		}
+		// examples are sharded individually (rather than per shape) so that shapes
+		// carrying many examples do not unbalance the workers, each of which reuses
+		// a single visitor
+		return ParallelValidation.forEach(examples, parallel, () -> createVisitor(model),
+				(visitor, example) -> validateExample(visitor, example));
+	}
+
+	private List<ValidationEvent> validateExample(NodeValidationVisitor visitor, ShapeExample example) {
+		visitor.setValue(example.content);
+		visitor.setEventShapeId(example.shape.getId());
+		visitor.setStartingContext("DataExample of `" + example.shape.toShapeId().toString() + "`");
+		return example.shape.accept(visitor);
+	}
 
-		return events;
+	private NodeValidationVisitor createVisitor(Model model) {
+		return NodeValidationVisitor.builder().model(model).value(Node.nullNode()).eventId(getName()).build();
 	}
 
-	private NodeValidationVisitor createVisitor(Node value, Model model, Shape shape) {
-		return NodeValidationVisitor.builder().model(model).eventShapeId(shape.getId()).value(value)
-				.startingContext("DataExample of `" + shape.toShapeId().toString() + "`").eventId(getName()).build();
+	private static final class ShapeExample {
+		private final Shape shape;
+		private final Node content;
+
+		ShapeExample(Shape shape, Node content) {
+			this.shape = shape;
+			this.content = content;
+		}
 	}
 }
@@ -29,65 +29,80 @@ import software.amazon.smithy.model.validation.ValidationEvent;
 // Adapted from the defaultTrait validator found at:
 // https://github.com/awslabs/smithy/blob/423d1a843363bfbd6d0f2abfae2667288622bae1/smithy-model/src/main/java/software/amazon/smithy/model/validation/validators/DefaultTraitValidator.java
 public final class DefaultValueTraitValidator extends AbstractValidator {
+	private final boolean parallel;
+
+	public DefaultValueTraitValidator() {
+		this(false);
+	}
+
+	/**
+	 * @param parallel whether the annotated members should be validated across the
+	 *                 threads of the current ForkJoinPool
+	 */
+	public DefaultValueTraitValidator(boolean parallel) {
+		this.parallel = parallel;
+	}
+
 	@Override
 	public List<ValidationEvent> validate(Model model) {
+		final List<MemberShape> members = new ArrayList<>(model.getMemberShapesWithTrait(DefaultValueTrait.class));
+		// a single visitor is reused (through setValue/setEventShapeId) for all the
+		// members validated by the same worker
+		return ParallelValidation.forEach(members, parallel,
+				() -> NodeValidationVisitor.builder().model(model).eventId(getName()).value(Node.nullNode())
+						.startingContext("Error validating @defaultValue trait").build(),
+				(visitor, shape) -> validateMember(model, visitor, shape));
+	}
+
+	private List<ValidationEvent> validateMember(Model model, NodeValidationVisitor visitor, MemberShape shape) {
 		List<ValidationEvent> events = new ArrayList<>();
-		NodeValidationVisitor visitor = null;
+		DefaultValueTrait trait = shape.expectTrait(DefaultValueTrait.class);
+		Node value = trait.toNode();
 
 		// Validate that default values are appropriate for shapes.
-		for (MemberShape shape : model.getMemberShapesWithTrait(DefaultValueTrait.class)) {
-			DefaultValueTrait trait = shape.expectTrait(DefaultValueTrait.class);
-			Node value = trait.toNode();
+		visitor.setValue(value);
+		visitor.setEventShapeId(shape.getId());
 
-			if (visitor == null) {
-				visitor = NodeValidationVisitor.builder().model(model).eventId(getName()).value(value)
-						.startingContext("Error validating @defaultValue trait").eventShapeId(shape.getId()).build();
-			} else {
-				visitor.setValue(value);
-				visitor.setEventShapeId(shape.getId());
-			}
-
-			// allow null as default when nullable trait is present or if target type has
-			// nullable trait
-			boolean targetsNullableType = model.expectShape(shape.getTarget()).hasTrait(NullableTrait.class);
-			boolean hasNullableTrait = shape.hasTrait(NullableTrait.class);
-			if (!(hasNullableTrait || targetsNullableType) || !value.isNullNode()) {
-				events.addAll(shape.accept(visitor));
-			}
+		// allow null as default when nullable trait is present or if target type has
+		// nullable trait
+		boolean targetsNullableType = model.expectShape(shape.getTarget()).hasTrait(NullableTrait.class);
+		boolean hasNullableTrait = shape.hasTrait(NullableTrait.class);
+		if (!(hasNullableTrait || targetsNullableType) || !value.isNullNode()) {
+			events.addAll(shape.accept(visitor));
+		}
 
-			switch (model.expectShape(shape.getTarget()).getType()) {
-			case MAP:
-				value.asObjectNode().ifPresent(obj -> {
-					if (!obj.isEmpty()) {
-						events.add(error(shape, trait, "The @defaultValue value of a map must be an empty map"));
-					}
-				});
-				break;
-			case LIST:
-			case SET:
-				value.asArrayNode().ifPresent(array -> {
-					if (!array.isEmpty()) {
-						events.add(error(shape, trait, "The @defaultValue value of a list must be an empty list"));
-					}
-				});
-				break;
-			case DOCUMENT:
-				value.asArrayNode().ifPresent(array -> {
-					if (!array.isEmpty()) {
-						events.add(error(shape, trait,
-								"The @defaultValue value of a document cannot be a non-empty " + "array"));
-					}
-				});
-				value.asObjectNode().ifPresent(obj -> {
-					if (!obj.isEmpty()) {
-						events.add(error(shape, trait,
-								"The @defaultValue value of a document cannot be a non-empty " + "object"));
-					}
-				});
-				break;
-			default:
-				break;
-			}
+		switch (model.expectShape(shape.getTarget()).getType()) {
+		case MAP:
+			value.asObjectNode().ifPresent(obj -> {
+				if (!obj.isEmpty()) {
+					events.add(error(shape, trait, "The @defaultValue value of a map must be an empty map"));
+				}
+			});
+			break;
+		case LIST:
+		case SET:
+			value.asArrayNode().ifPresent(array -> {
+				if (!array.isEmpty()) {
+					events.add(error(shape, trait, "The @defaultValue value of a list must be an empty list"));
+				}
+			});
+			break;
+		case DOCUMENT:
+			value.asArrayNode().ifPresent(array -> {
+				if (!array.isEmpty()) {
+					events.add(error(shape, trait,
+							"The @defaultValue value of a document cannot be a non-empty " + "array"));
+				}
+			});
+			value.asObjectNode().ifPresent(obj -> {
+				if (!obj.isEmpty()) {
+					events.add(error(shape, trait,
+							"The @defaultValue value of a document cannot be a non-empty " + "object"));
+				}
+			});
+			break;
+		default:
+			break;
 		}
 
 		return events;
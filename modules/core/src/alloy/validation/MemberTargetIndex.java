@@ -0,0 +1,65 @@
+/* Copyright 2022 Disney Streaming
+ *
+ * Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package alloy.validation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import software.amazon.smithy.model.Model;
+import software.amazon.smithy.model.knowledge.KnowledgeIndex;
+import software.amazon.smithy.model.shapes.MemberShape;
+import software.amazon.smithy.model.shapes.ShapeId;
+
+/**
+ * Reverse index from a shape id to the member shapes that target it.
+ *
+ * The index is built in a single pass over the members of the model and is
+ * cached on the {@link Model} itself, so validators that need to know "who
+ * references this shape" can share it instead of scanning every member.
+ */
+public final class MemberTargetIndex implements KnowledgeIndex {
+	private final Map<ShapeId, List<MemberShape>> referencingMembers = new HashMap<>();
+
+	public MemberTargetIndex(Model model) {
+		for (MemberShape member : model.getMemberShapes()) {
+			referencingMembers.computeIfAbsent(member.getTarget(), id -> new ArrayList<>()).add(member);
+		}
+	}
+
+	public static MemberTargetIndex of(Model model) {
+		return model.getKnowledge(MemberTargetIndex.class, MemberTargetIndex::new);
+	}
+
+	/**
+	 * Returns the members targeting the given shape, or an empty list if the
+	 * shape is not referenced by any member.
+	 */
+	public List<MemberShape> getReferencingMembers(ShapeId target) {
+		final List<MemberShape> members = referencingMembers.get(target);
+		return members == null ? Collections.emptyList() : Collections.unmodifiableList(members);
+	}
+
+	/**
+	 * Returns the number of members targeting the given shape.
+	 */
+	public int getReferenceCount(ShapeId target) {
+		final List<MemberShape> members = referencingMembers.get(target);
+		return members == null ? 0 : members.size();
+	}
+}
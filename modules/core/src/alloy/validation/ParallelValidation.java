@@ -0,0 +1,85 @@
+/* Copyright 2022 Disney Streaming
+ *
+ * Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package alloy.validation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import software.amazon.smithy.model.validation.ValidationEvent;
+
+/**
+ * Helpers for validators that can split their work across the threads of the
+ * current {@link ForkJoinPool}. Events are always returned in the order of the
+ * items they were produced for, so that running in parallel does not change
+ * the validation output.
+ */
+public final class ParallelValidation {
+	private ParallelValidation() {
+	}
+
+	/**
+	 * Validates each item, in parallel when requested.
+	 */
+	public static <T> List<ValidationEvent> forEach(List<T> items, boolean parallel,
+			Function<T, ? extends Collection<ValidationEvent>> validate) {
+		return forEach(items, parallel, () -> null, (ignored, item) -> validate.apply(item));
+	}
+
+	/**
+	 * Validates each item, in parallel when requested. The items are split in
+	 * contiguous shards, each of them validated sequentially with its own state
+	 * created by {@code newWorkerState}, which allows to reuse non-thread-safe
+	 * objects (such as a NodeValidationVisitor) within a shard.
+	 */
+	public static <T, S> List<ValidationEvent> forEach(List<T> items, boolean parallel, Supplier<S> newWorkerState,
+			BiFunction<S, T, ? extends Collection<ValidationEvent>> validate) {
+		if (!parallel || items.size() < 2) {
+			return validateShard(items, newWorkerState, validate);
+		}
+		final int shards = Math.min(items.size(), parallelism() * 4);
+		return IntStream.range(0, shards).parallel().mapToObj(i -> {
+			final int from = (int) ((long) items.size() * i / shards);
+			final int to = (int) ((long) items.size() * (i + 1) / shards);
+			return validateShard(items.subList(from, to), newWorkerState, validate);
+		}).flatMap(List::stream).collect(Collectors.toList());
+	}
+
+	private static <T, S> List<ValidationEvent> validateShard(List<T> items, Supplier<S> newWorkerState,
+			BiFunction<S, T, ? extends Collection<ValidationEvent>> validate) {
+		final List<ValidationEvent> events = new ArrayList<>();
+		if (items.isEmpty()) {
+			return events;
+		}
+		final S state = newWorkerState.get();
+		for (T item : items) {
+			events.addAll(validate.apply(state, item));
+		}
+		return events;
+	}
+
+	private static int parallelism() {
+		final ForkJoinPool pool = ForkJoinTask.inForkJoinPool() ? ForkJoinTask.getPool() : ForkJoinPool.commonPool();
+		return Math.max(1, pool.getParallelism());
+	}
+}
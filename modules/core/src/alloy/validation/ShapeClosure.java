@@ -0,0 +1,63 @@
+/* Copyright 2022 Disney Streaming
+ *
+ * Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package alloy.validation;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import software.amazon.smithy.model.Model;
+import software.amazon.smithy.model.knowledge.NeighborProviderIndex;
+import software.amazon.smithy.model.neighbor.NeighborProvider;
+import software.amazon.smithy.model.neighbor.Relationship;
+import software.amazon.smithy.model.shapes.Shape;
+
+public final class ShapeClosure {
+	private ShapeClosure() {
+	}
+
+	/**
+	 * Returns every shape connected to one of the given roots (roots included),
+	 * each of them appearing once, in traversal order.
+	 *
+	 * Unlike calling {@link software.amazon.smithy.model.neighbor.Walker} once per
+	 * root, the visited set is shared across roots so subgraphs reachable from
+	 * several roots are only traversed once.
+	 */
+	public static Set<Shape> of(Model model, Stream<? extends Shape> roots) {
+		final NeighborProvider neighbors = NeighborProviderIndex.of(model).getProvider();
+		final Set<Shape> visited = new LinkedHashSet<>();
+		final Deque<Shape> stack = new ArrayDeque<>();
+		roots.forEach(root -> {
+			if (visited.add(root)) {
+				stack.push(root);
+			}
+		});
+		while (!stack.isEmpty()) {
+			for (Relationship relationship : neighbors.getNeighbors(stack.pop())) {
+				relationship.getNeighborShape().ifPresent(neighbor -> {
+					if (visited.add(neighbor)) {
+						stack.push(neighbor);
+					}
+				});
+			}
+		}
+		return Collections.unmodifiableSet(visited);
+	}
+}
@@ -0,0 +1,50 @@
+/* Copyright 2022 Disney Streaming
+ *
+ * Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package alloy.validation;
+
+import java.util.Set;
+
+import alloy.SimpleRestJsonTrait;
+import software.amazon.smithy.model.Model;
+import software.amazon.smithy.model.knowledge.KnowledgeIndex;
+import software.amazon.smithy.model.shapes.Shape;
+
+/**
+ * The set of shapes connected to a service annotated with @simpleRestJson,
+ * computed once per {@link Model} and shared by the validators of the
+ * protocol, so that a shape reachable from several services is only checked
+ * once.
+ */
+final class SimpleRestJsonClosureIndex implements KnowledgeIndex {
+	private final Set<Shape> shapes;
+
+	SimpleRestJsonClosureIndex(Model model) {
+		this.shapes = ShapeClosure.of(model, model.getShapesWithTrait(SimpleRestJsonTrait.class).stream()
+				.flatMap(shape -> OptionHelper.toStream(shape.asServiceShape())));
+	}
+
+	static SimpleRestJsonClosureIndex of(Model model) {
+		return model.getKnowledge(SimpleRestJsonClosureIndex.class, SimpleRestJsonClosureIndex::new);
+	}
+
+	/**
+	 * All the shapes (including member shapes) connected to a @simpleRestJson
+	 * service, each of them appearing once.
+	 */
+	Set<Shape> getShapes() {
+		return shapes;
+	}
+}
@@ -15,17 +15,13 @@
 
 package alloy.validation;
 
-import alloy.SimpleRestJsonTrait;
 import software.amazon.smithy.model.Model;
-import software.amazon.smithy.model.neighbor.Walker;
-import software.amazon.smithy.model.neighbor.NeighborProvider;
 import software.amazon.smithy.model.validation.AbstractValidator;
 import software.amazon.smithy.model.shapes.*;
 import software.amazon.smithy.model.traits.TimestampFormatTrait;
 import software.amazon.smithy.model.validation.ValidationEvent;
 
 import java.util.Optional;
-import java.util.Set;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -54,10 +50,8 @@ public final class SimpleRestJsonTimestampValidator extends AbstractValidator {
 	@Override
 	public List<ValidationEvent> validate(Model model) {
 
-		Walker walker = new Walker(NeighborProvider.of(model));
-		Set<Shape> entryPoints = model.getShapesWithTrait(SimpleRestJsonTrait.class);
-		Stream<MemberAndTarget> closure = entryPoints.stream()
-				.flatMap(restJsonService -> walker.walkShapes(restJsonService).stream().filter(Shape::isMemberShape))
+		Stream<MemberAndTarget> closure = SimpleRestJsonClosureIndex.of(model).getShapes().stream()
+				.filter(Shape::isMemberShape)
 				.map(shape -> new MemberAndTarget(shape.asMemberShape().get(), model.expectShape(shape.asMemberShape().get().getTarget())));
 
 		return closure
@@ -26,8 +26,6 @@ import software.amazon.smithy.model.validation.ValidationEvent;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 public final class StructurePatternTraitValidator extends AbstractValidator {
 
@@ -36,7 +34,7 @@ public final class StructurePatternTraitValidator extends AbstractValidator {
 		List<ValidationEvent> events = new ArrayList<>();
 		model.getStringShapesWithTrait(StructurePatternTrait.class).forEach(patternShape -> {
 			StructurePatternTrait trt = patternShape.expectTrait(StructurePatternTrait.class);
-			List<String> patternParams = getParamNamesInPattern(trt.getPattern());
+			List<String> patternParams = trt.getCompiledPattern().getParamNames();
 			StructureShape struct = model.expectShape(trt.getTarget()).asStructureShape().get();
 			ArrayList<String> structureParamNames = new ArrayList<>(struct.getMemberNames());
 			structureParamNames.removeAll(patternParams);
@@ -65,16 +63,4 @@ public final class StructurePatternTraitValidator extends AbstractValidator {
 
 		return events;
 	}
-
-	private List<String> getParamNamesInPattern(String pattern) {
-		Pattern pat = Pattern.compile("\\{(.*?)}");
-		Matcher matcher = pat.matcher(pattern);
-		ArrayList<String> results = new ArrayList<>();
-		while (matcher.find()) {
-			for (int j = 0; j <= matcher.groupCount(); j++) {
-				results.add(matcher.group(j));
-			}
-		}
-		return results;
-	}
 }
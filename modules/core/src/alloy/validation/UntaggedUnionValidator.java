@@ -0,0 +1,198 @@
+/* Copyright 2022 Disney Streaming
+ *
+ * Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package alloy.validation;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import alloy.DefaultValueTrait;
+import alloy.JsonUnknownTrait;
+import alloy.OffsetDateTimeFormatTrait;
+import alloy.UntaggedUnionTrait;
+import software.amazon.smithy.model.Model;
+import software.amazon.smithy.model.shapes.MemberShape;
+import software.amazon.smithy.model.shapes.Shape;
+import software.amazon.smithy.model.shapes.ShapeId;
+import software.amazon.smithy.model.traits.DefaultTrait;
+import software.amazon.smithy.model.traits.JsonNameTrait;
+import software.amazon.smithy.model.traits.RequiredTrait;
+import software.amazon.smithy.model.traits.TimestampFormatTrait;
+import software.amazon.smithy.model.validation.AbstractValidator;
+import software.amazon.smithy.model.validation.ValidationEvent;
+
+/**
+ * Warns about members of {@code @untagged} unions that cannot be told apart
+ * from a member that comes before them.
+ *
+ * Untagged unions are decoded as their first member, in order, that decodes
+ * the value, document members coming last. Decoders can narrow the members
+ * down by the signature of the value: the kind of JSON value (object, array,
+ * string, number or boolean) and, for objects, the fields that a structure
+ * requires. A member is ambiguous when the values it encodes to may match the
+ * signature of a member tried before it, in which case they may be decoded as
+ * that member.
+ */
+public final class UntaggedUnionValidator extends AbstractValidator {
+	private static final int OBJECT = 1;
+	private static final int ARRAY = 1 << 1;
+	private static final int STRING = 1 << 2;
+	private static final int NUMBER = 1 << 3;
+	private static final int BOOLEAN = 1 << 4;
+	private static final int ANY = OBJECT | ARRAY | STRING | NUMBER | BOOLEAN;
+
+	/**
+	 * Signature of the values of a member.
+	 */
+	private static final class Signature {
+		final MemberShape member;
+		final int kinds;
+		// for structures, the fields that must be present and the ones that may
+		final Set<String> requiredFields;
+		final Set<String> fields;
+		// whether the values may be objects with any field
+		final boolean openObject;
+
+		Signature(MemberShape member, int kinds, Set<String> requiredFields, Set<String> fields, boolean openObject) {
+			this.member = member;
+			this.kinds = kinds;
+			this.requiredFields = requiredFields;
+			this.fields = fields;
+			this.openObject = openObject;
+		}
+
+		/**
+		 * Whether some value of {@code other} may match this signature.
+		 */
+		boolean mayMatch(Signature other) {
+			final int shared = kinds & other.kinds;
+			if ((shared & ~OBJECT) != 0) {
+				return true;
+			}
+			return (shared & OBJECT) != 0 && (other.openObject || other.fields.containsAll(requiredFields));
+		}
+	}
+
+	@Override
+	public List<ValidationEvent> validate(Model model) {
+		final List<ValidationEvent> events = new ArrayList<>();
+		for (Shape union : model.getShapesWithTrait(UntaggedUnionTrait.class)) {
+			final List<Signature> signatures = new ArrayList<>();
+			for (MemberShape member : union.members()) {
+				final Optional<Shape> target = model.getShape(member.getTarget());
+				// documents accept anything, and are tried last
+				if (target.isPresent() && !target.get().isDocumentShape()) {
+					signatures.add(signature(model, member, target.get()));
+				}
+			}
+			for (int i = 0; i < signatures.size(); i++) {
+				for (int j = 0; j < i; j++) {
+					if (signatures.get(j).mayMatch(signatures.get(i))) {
+						final MemberShape member = signatures.get(i).member;
+						events.add(warning(member,
+								String.format(
+										"Values of member '%s' may be decoded as member '%s', which comes first: "
+												+ "their JSON types or required fields do not tell them apart",
+										member.getMemberName(), signatures.get(j).member.getMemberName())));
+						break;
+					}
+				}
+			}
+		}
+		return events;
+	}
+
+	private static Signature signature(Model model, MemberShape member, Shape target) {
+		final Set<String> requiredFields = new HashSet<>();
+		final Set<String> fields = new HashSet<>();
+		boolean openObject = false;
+		if (target.isStructureShape()) {
+			for (MemberShape field : target.members()) {
+				final String name = field.getTrait(JsonNameTrait.class).map(JsonNameTrait::getValue)
+						.orElse(field.getMemberName());
+				fields.add(name);
+				if (field.hasTrait(RequiredTrait.class) && !field.hasTrait(DefaultTrait.class)
+						&& !field.hasTrait(DefaultValueTrait.class)) {
+					requiredFields.add(name);
+				}
+				openObject |= field.hasTrait(JsonUnknownTrait.class);
+			}
+		} else {
+			// maps and tagged unions
+			openObject = true;
+		}
+		return new Signature(member, kinds(model, member, target, new HashSet<>()), requiredFields, fields,
+				openObject);
+	}
+
+	/**
+	 * Kinds of JSON values that the member may be encoded to.
+	 */
+	private static int kinds(Model model, MemberShape member, Shape target, Set<ShapeId> visited) {
+		switch (target.getType()) {
+			case STRUCTURE:
+			case MAP:
+				return OBJECT;
+			case UNION:
+				if (!target.hasTrait(UntaggedUnionTrait.class)) {
+					return OBJECT;
+				}
+				if (!visited.add(target.getId())) {
+					return 0;
+				}
+				int result = 0;
+				for (MemberShape unionMember : target.members()) {
+					result |= model.getShape(unionMember.getTarget())
+							.map(t -> kinds(model, unionMember, t, visited)).orElse(ANY);
+				}
+				return result;
+			case LIST:
+			case SET:
+				return ARRAY;
+			case STRING:
+			case ENUM:
+			case BLOB:
+				return STRING;
+			case BOOLEAN:
+				return BOOLEAN;
+			case FLOAT:
+			case DOUBLE:
+				// non-finite values are encoded as strings
+				return NUMBER | STRING;
+			case BYTE:
+			case SHORT:
+			case INTEGER:
+			case INT_ENUM:
+			case LONG:
+			case BIG_INTEGER:
+			case BIG_DECIMAL:
+				return NUMBER;
+			case TIMESTAMP:
+				if (member.hasTrait(OffsetDateTimeFormatTrait.class)
+						|| target.hasTrait(OffsetDateTimeFormatTrait.class)) {
+					return STRING;
+				}
+				final String format = member.getTrait(TimestampFormatTrait.class)
+						.map(Optional::of).orElseGet(() -> target.getTrait(TimestampFormatTrait.class))
+						.map(TimestampFormatTrait::getValue).orElse(TimestampFormatTrait.EPOCH_SECONDS);
+				return format.equals(TimestampFormatTrait.EPOCH_SECONDS) ? NUMBER : STRING;
+			default:
+				return ANY;
+		}
+	}
+}
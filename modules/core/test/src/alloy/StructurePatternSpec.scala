@@ -0,0 +1,125 @@
+/* Copyright 2022 Disney Streaming
+ *
+ * Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package alloy
+
+import software.amazon.smithy.model.shapes.ShapeId
+
+import scala.jdk.CollectionConverters._
+import scala.jdk.OptionConverters._
+
+final class StructurePatternSpec extends munit.FunSuite {
+
+  private def parse(pattern: String, input: String) =
+    StructurePattern
+      .compile(pattern)
+      .parse(input)
+      .toScala
+      .map(_.asScala.toList)
+
+  // reference implementation, as params were historically matched
+  private def parseWithRegex(pattern: String, input: String) = {
+    val compiled = StructurePattern.compile(pattern)
+    val regex = compiled.getLiterals.asScala
+      .map(java.util.regex.Pattern.quote)
+      .mkString("(.*?)")
+      .r
+    regex.unapplySeq(input).map(compiled.getParamNames.asScala.toList.zip(_))
+  }
+
+  test("compile") {
+    val compiled = StructurePattern.compile("id:{foo}_{bar}!")
+    assertEquals(compiled.getParamNames.asScala.toList, List("foo", "bar"))
+    assertEquals(compiled.getLiterals.asScala.toList, List("id:", "_", "!"))
+  }
+
+  test("parse") {
+    assertEquals(
+      parse("{foo}_{bar}", "abc_123"),
+      Some(List("foo" -> "abc", "bar" -> "123"))
+    )
+    assertEquals(
+      parse("{foo}_{bar}", "a_b_c"),
+      Some(List("foo" -> "a", "bar" -> "b_c"))
+    )
+    assertEquals(
+      parse("<{foo}>", "<>"),
+      Some(List("foo" -> ""))
+    )
+    assertEquals(parse("{foo}_{bar}", "abc"), None)
+    assertEquals(parse("<{foo}>", "<abc"), None)
+    assertEquals(parse("ab{foo}ba", "aba"), None)
+    assertEquals(parse("literal", "literal"), Some(Nil))
+    assertEquals(parse("literal", "literally"), None)
+  }
+
+  test("parse behaves like a regular expression") {
+    val patterns = List(
+      "{a}-{b}",
+      "{a}--{b}-",
+      "x{a}x{b}x",
+      "{a}ab{b}b",
+      "[{a}]",
+      "{a}.{b}.{c}"
+    )
+    val inputs = List(
+      "",
+      "-",
+      "--",
+      "1-2",
+      "1--2-",
+      "1---2--",
+      "xx",
+      "xxx",
+      "x1x2x",
+      "xaxbxcx",
+      "abb",
+      "1ab2b",
+      "1abab2bb",
+      "[]",
+      "[[1]]",
+      "1.2.3",
+      "1..2.3.4"
+    )
+    for {
+      pattern <- patterns
+      input <- inputs
+    } assertEquals(
+      parse(pattern, input),
+      parseWithRegex(pattern, input),
+      s"$pattern / $input"
+    )
+  }
+
+  test("format") {
+    val compiled = StructurePattern.compile("id:{foo}_{bar}!")
+    val values = Map[String, Any]("foo" -> "abc", "bar" -> 1).asJava
+    assertEquals(compiled.format(values), "id:abc_1!")
+    intercept[IllegalArgumentException](
+      compiled.format(Map[String, Any]("foo" -> "abc").asJava)
+    )
+  }
+
+  test("compiled pattern is cached on the trait") {
+    val trt = StructurePatternTrait
+      .builder()
+      .setPattern("{foo}_{bar}")
+      .setTarget(ShapeId.from("test#FooBar"))
+      .build()
+    assertEquals(trt.getCompiledPattern.getPattern, "{foo}_{bar}")
+    assert(trt.getCompiledPattern eq trt.getCompiledPattern)
+  }
+
+}
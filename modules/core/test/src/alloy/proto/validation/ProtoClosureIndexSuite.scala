@@ -0,0 +1,84 @@
+/* Copyright 2022 Disney Streaming
+ *
+ * Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package alloy.proto.validation
+
+import alloy.proto.GrpcTrait
+import alloy.proto.ProtoEnabledTrait
+import munit.FunSuite
+import software.amazon.smithy.model.Model
+import software.amazon.smithy.model.shapes._
+
+import scala.jdk.CollectionConverters._
+
+class ProtoClosureIndexSuite extends FunSuite {
+
+  val string = StringShape.builder().id("com.example#String").build()
+  val shared = StructureShape
+    .builder()
+    .id("com.example#Shared")
+    .addMember("name", string.getId())
+    .build()
+  val first = StructureShape
+    .builder()
+    .id("com.example#First")
+    .addTrait(new ProtoEnabledTrait())
+    .addMember("shared", shared.getId())
+    .build()
+  val second = StructureShape
+    .builder()
+    .id("com.example#Second")
+    .addTrait(new ProtoEnabledTrait())
+    .addMember("shared", shared.getId())
+    .build()
+  val service = ServiceShape
+    .builder()
+    .id("com.example#Service")
+    .addTrait(new GrpcTrait())
+    .build()
+  val unrelated = StructureShape
+    .builder()
+    .id("com.example#Unrelated")
+    .addMember("name", string.getId())
+    .build()
+
+  val model = Model.builder
+    .addShapes(string, shared, first, second, service, unrelated)
+    .build
+
+  test("closure contains every shape connected to a proto root, once") {
+    val ids =
+      ProtoClosureIndex.of(model).getShapes().asScala.toList.map(_.getId)
+    assertEquals(ids.distinct, ids)
+    assertEquals(
+      ids.toSet,
+      Set(
+        first.getId(),
+        first.getId().withMember("shared"),
+        second.getId(),
+        second.getId().withMember("shared"),
+        shared.getId(),
+        shared.getId().withMember("name"),
+        string.getId(),
+        service.getId()
+      )
+    )
+  }
+
+  test("closure is cached on the model") {
+    assert(ProtoClosureIndex.of(model) eq ProtoClosureIndex.of(model))
+  }
+
+}
@@ -0,0 +1,94 @@
+/* Copyright 2022 Disney Streaming
+ *
+ * Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package alloy.validation
+
+import alloy.DataExamplesTrait
+import alloy.DefaultValueTrait
+import alloy.proto.ProtoIndexTrait
+import software.amazon.smithy.model.Model
+import software.amazon.smithy.model.node.Node
+import software.amazon.smithy.model.shapes._
+import software.amazon.smithy.model.validation.Validator
+
+import java.util.ServiceLoader
+import java.util.concurrent.ForkJoinPool
+import scala.jdk.CollectionConverters._
+
+final class AlloyValidatorsSpec extends munit.FunSuite {
+
+  test("all validators registered as services are run") {
+    val registered = ServiceLoader
+      .load(classOf[Validator], getClass.getClassLoader)
+      .asScala
+      .map(_.getClass.getName)
+      .filter(_.startsWith("alloy."))
+      .toList
+    val all = AlloyValidators.all().asScala.map(_.getClass.getName).toList
+    assertEquals(all, registered)
+  }
+
+  test("parallel validation returns the same events as sequential validation") {
+    val shapes = (0 until 200).flatMap { i =>
+      val example = DataExamplesTrait
+        .builder()
+        .addExample(
+          new DataExamplesTrait.DataExample(
+            DataExamplesTrait.DataExampleType.SMITHY,
+            Node.from(i)
+          )
+        )
+        .build()
+      val string = StringShape
+        .builder()
+        .id(s"test#String$i")
+        .addTrait(example)
+        .build()
+      val struct = StructureShape
+        .builder()
+        .id(s"test#Struct$i")
+        .addMember(
+          MemberShape
+            .builder()
+            .id(s"test#Struct$i$$a")
+            .target(string.getId)
+            .addTrait(new ProtoIndexTrait(1))
+            .addTrait(new DefaultValueTrait(Node.from(true)))
+            .build()
+        )
+        .addMember(
+          MemberShape
+            .builder()
+            .id(s"test#Struct$i$$b")
+            .target(string.getId)
+            .addTrait(new ProtoIndexTrait(1))
+            .build()
+        )
+        .build()
+      List[Shape](string, struct)
+    }
+    val model = Model.builder().addShapes(shapes.asJava).build()
+
+    val sequential = AlloyValidators.validate(model).asScala.toList
+    val pool = new ForkJoinPool(4)
+    try {
+      val parallel =
+        AlloyValidators.validateInParallel(model, pool).asScala.toList
+      assertEquals(sequential.size, 600)
+      assertEquals(parallel, sequential)
+    } finally pool.shutdown()
+  }
+
+}
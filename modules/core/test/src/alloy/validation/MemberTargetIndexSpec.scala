@@ -0,0 +1,72 @@
+/* Copyright 2022 Disney Streaming
+ *
+ * Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package alloy.validation
+
+import software.amazon.smithy.model.Model
+import software.amazon.smithy.model.shapes.ShapeId
+import software.amazon.smithy.model.shapes.StringShape
+import software.amazon.smithy.model.shapes.StructureShape
+
+import scala.jdk.CollectionConverters._
+
+final class MemberTargetIndexSpec extends munit.FunSuite {
+
+  private val string = StringShape.builder.id("com.example#MyString").build
+  private val foo = StructureShape.builder
+    .id("com.example#Foo")
+    .addMember("a", string.getId)
+    .addMember("b", string.getId)
+    .build
+  private val bar = StructureShape.builder
+    .id("com.example#Bar")
+    .addMember("foo", foo.getId)
+    .build
+  private val model = Model.builder.addShapes(string, foo, bar).build
+
+  test("members are indexed by target") {
+    val index = MemberTargetIndex.of(model)
+    assertEquals(
+      index.getReferencingMembers(string.getId).asScala.map(_.getId).toSet,
+      Set(foo.getId.withMember("a"), foo.getId.withMember("b"))
+    )
+    assertEquals(
+      index.getReferencingMembers(foo.getId).asScala.map(_.getId).toList,
+      List(bar.getId.withMember("foo"))
+    )
+  }
+
+  test("unreferenced shapes have no referencing members") {
+    val index = MemberTargetIndex.of(model)
+    assert(
+      index
+        .getReferencingMembers(ShapeId.from("com.example#Unknown"))
+        .isEmpty
+    )
+    assert(index.getReferencingMembers(bar.getId).isEmpty)
+  }
+
+  test("reference counts") {
+    val index = MemberTargetIndex.of(model)
+    assertEquals(index.getReferenceCount(string.getId), 2)
+    assertEquals(index.getReferenceCount(foo.getId), 1)
+    assertEquals(index.getReferenceCount(bar.getId), 0)
+  }
+
+  test("index is cached on the model") {
+    assert(MemberTargetIndex.of(model) eq MemberTargetIndex.of(model))
+  }
+
+}
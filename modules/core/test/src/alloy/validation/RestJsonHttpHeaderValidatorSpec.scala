@@ -66,6 +66,36 @@ final class SimpleRestJsonHttpHeaderValidatorSpec extends munit.FunSuite {
     assertEquals(result, expected)
   }
 
+  test("report headers shared by several rest-json services once") {
+    val validator = new SimpleRestJsonHttpHeaderValidator()
+    val member = MemberShape
+      .builder()
+      .id("test#struct$testing")
+      .target("smithy.api#String")
+      .addTrait(new HttpHeaderTrait("Content-Type"))
+      .build()
+    val struct =
+      StructureShape.builder().id("test#struct").addMember(member).build()
+
+    val op = OperationShape.builder().id("test#TestOp").input(struct).build()
+    def service(name: String) = ServiceShape
+      .builder()
+      .id(s"test#$name")
+      .version("1")
+      .addOperation(op)
+      .addTrait(new SimpleRestJsonTrait())
+      .build()
+
+    val model =
+      Model
+        .builder()
+        .addShapes(struct, op, service("ServiceA"), service("ServiceB"))
+        .build()
+
+    val result = validator.validate(model).asScala.toList
+    assertEquals(result.map(_.getShapeId.get), List(member.getId))
+  }
+
   test("accept random arbitrary header") {
     val validator = new SimpleRestJsonHttpHeaderValidator()
     val member = MemberShape
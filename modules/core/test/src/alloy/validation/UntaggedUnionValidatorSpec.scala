@@ -0,0 +1,160 @@
+/* Copyright 2022 Disney Streaming
+ *
+ * Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package alloy.validation
+
+import software.amazon.smithy.model.Model
+import software.amazon.smithy.model.shapes.ShapeId
+import software.amazon.smithy.model.validation.Severity
+import software.amazon.smithy.model.validation.ValidationEvent
+
+import scala.jdk.CollectionConverters._
+
+final class UntaggedUnionValidatorSpec extends munit.FunSuite {
+
+  private val validator = new UntaggedUnionValidator()
+
+  private def validate(union: String): List[ValidationEvent] = {
+    val source =
+      s"""|$$version: "2"
+          |
+          |namespace test
+          |
+          |use alloy#jsonUnknown
+          |use alloy#untagged
+          |
+          |$union
+          |
+          |structure Circle {
+          |  @required
+          |  radius: Integer
+          |}
+          |
+          |structure Rectangle {
+          |  @required
+          |  width: Integer
+          |  @required
+          |  height: Integer
+          |}
+          |
+          |structure Square {
+          |  @required
+          |  width: Integer
+          |}
+          |
+          |structure Empty {}
+          |
+          |structure Open {
+          |  @required
+          |  kind: String
+          |  @jsonUnknown
+          |  other: Properties
+          |}
+          |
+          |map Properties {
+          |  key: String
+          |  value: Document
+          |}
+          |""".stripMargin
+    val model = Model
+      .assembler()
+      .discoverModels()
+      .addUnparsedModel("test.smithy", source)
+      .assemble()
+      .unwrap()
+    validator.validate(model).asScala.toList
+  }
+
+  // events without their source location
+  private def warning(member: String, shadowing: String) = (
+    ShapeId.from(s"test#Union$$$member"),
+    Severity.WARNING,
+    s"Values of member '$member' may be decoded as member '$shadowing', which comes first: their JSON types or required fields do not tell them apart"
+  )
+
+  private def summary(events: List[ValidationEvent]) =
+    events.map(e => (e.getShapeId.get, e.getSeverity, e.getMessage))
+
+  test("members with distinct JSON types or required fields") {
+    val events = validate(
+      """|@untagged
+         |union Union {
+         |  circle: Circle
+         |  rectangle: Rectangle
+         |  square: Square
+         |  string: String
+         |  int: Integer
+         |  bool: Boolean
+         |  list: Properties2
+         |  doc: Document
+         |}
+         |
+         |list Properties2 {
+         |  member: String
+         |}
+         |""".stripMargin
+    )
+    assertEquals(summary(events), Nil)
+  }
+
+  test("members whose values match the fields required by a previous one") {
+    val events = validate(
+      """|@untagged
+         |union Union {
+         |  square: Square
+         |  rectangle: Rectangle
+         |  circle: Circle
+         |}
+         |""".stripMargin
+    )
+    assertEquals(summary(events), List(warning("rectangle", "square")))
+  }
+
+  test("members after one requiring no fields, or with unknown fields") {
+    val events = validate(
+      """|@untagged
+         |union Union {
+         |  circle: Circle
+         |  open: Open
+         |  empty: Empty
+         |  square: Square
+         |}
+         |""".stripMargin
+    )
+    assertEquals(
+      summary(events),
+      List(warning("open", "circle"), warning("square", "empty"))
+    )
+  }
+
+  test("members with the same JSON type") {
+    val events = validate(
+      """|@untagged
+         |union Union {
+         |  string: String
+         |  @timestampFormat("date-time")
+         |  timestamp: Timestamp
+         |  epoch: Timestamp
+         |  double: Double
+         |}
+         |""".stripMargin
+    )
+    assertEquals(
+      summary(events),
+      List(warning("timestamp", "string"), warning("double", "string"))
+    )
+  }
+
+}
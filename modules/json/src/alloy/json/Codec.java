@@ -0,0 +1,75 @@
+/* Copyright 2022 Disney Streaming
+ *
+ * Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package alloy.json;
+
+/**
+ * Encoder and decoder for the values of one shape, as compiled by
+ * {@link CodecCompiler}.
+ *
+ * Codecs never see JSON {@code null}s nor Java {@code null}s: those are handled
+ * by the enclosing structure, collection or {@link JsonCodec}, depending on the
+ * nullability rules of the member.
+ */
+abstract class Codec {
+	// kinds of JSON values, as bit flags
+	static final int OBJECT = 1;
+	static final int ARRAY = 1 << 1;
+	static final int STRING = 1 << 2;
+	static final int NUMBER = 1 << 3;
+	static final int BOOLEAN = 1 << 4;
+	static final int ANY = OBJECT | ARRAY | STRING | NUMBER | BOOLEAN;
+
+	/**
+	 * Decodes the next value of the reader.
+	 */
+	abstract Object decode(JsonReader in);
+
+	/**
+	 * Encodes a non-null value.
+	 */
+	abstract void encode(Object value, JsonWriter out);
+
+	/**
+	 * Returns the kinds of JSON values that the codec can decode: decoding any
+	 * other kind of value is known to fail.
+	 */
+	int kinds() {
+		return ANY;
+	}
+
+	/**
+	 * Returns the kind of the JSON value starting with {@code b}.
+	 */
+	static int kindOf(byte b) {
+		switch (b) {
+			case '{':
+				return OBJECT;
+			case '[':
+				return ARRAY;
+			case '"':
+				return STRING;
+			case 't':
+			case 'f':
+				return BOOLEAN;
+			default:
+				return NUMBER;
+		}
+	}
+
+	static JsonCodecException unexpectedValue(String expected, Object value) {
+		return new JsonCodecException("expected " + expected + ", got a " + value.getClass().getName());
+	}
+}
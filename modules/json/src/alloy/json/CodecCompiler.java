@@ -0,0 +1,361 @@
+/* Copyright 2022 Disney Streaming
+ *
+ * Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package alloy.json;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import alloy.DateFormatTrait;
+import alloy.DefaultValueTrait;
+import alloy.DiscriminatedUnionTrait;
+import alloy.DurationSecondsFormatTrait;
+import alloy.JsonUnknownTrait;
+import alloy.LocalDateTimeFormatTrait;
+import alloy.LocalTimeFormatTrait;
+import alloy.MonthDayFormatTrait;
+import alloy.NullableTrait;
+import alloy.OffsetDateTimeFormatTrait;
+import alloy.OffsetTimeFormatTrait;
+import alloy.OpenEnumTrait;
+import alloy.PreserveKeyOrderTrait;
+import alloy.UntaggedUnionTrait;
+import alloy.UuidFormatTrait;
+import alloy.YearFormatTrait;
+import alloy.YearMonthFormatTrait;
+import alloy.ZoneIdFormatTrait;
+import alloy.ZoneOffsetFormatTrait;
+import alloy.ZonedDateTimeFormatTrait;
+import software.amazon.smithy.model.Model;
+import software.amazon.smithy.model.node.Node;
+import software.amazon.smithy.model.shapes.ListShape;
+import software.amazon.smithy.model.shapes.MapShape;
+import software.amazon.smithy.model.shapes.MemberShape;
+import software.amazon.smithy.model.shapes.Shape;
+import software.amazon.smithy.model.shapes.ShapeId;
+import software.amazon.smithy.model.traits.DefaultTrait;
+import software.amazon.smithy.model.traits.JsonNameTrait;
+import software.amazon.smithy.model.traits.RequiredTrait;
+import software.amazon.smithy.model.traits.SparseTrait;
+import software.amazon.smithy.model.traits.TimestampFormatTrait;
+import software.amazon.smithy.model.traits.Trait;
+
+/**
+ * Compiles shapes into trees of {@link Codec}s.
+ *
+ * Codecs of aggregate shapes are registered before their members are compiled,
+ * so that recursive shapes point back to them. Codecs of simple shapes depend on
+ * the format traits of the member targeting them, and are only shared between
+ * members without such traits.
+ *
+ * Instances are not thread-safe.
+ */
+final class CodecCompiler {
+	private static final List<Class<? extends Trait>> MEMBER_FORMAT_TRAITS = Arrays.asList(
+			TimestampFormatTrait.class, OffsetDateTimeFormatTrait.class, DateFormatTrait.class,
+			LocalTimeFormatTrait.class, LocalDateTimeFormatTrait.class, OffsetTimeFormatTrait.class,
+			ZonedDateTimeFormatTrait.class, ZoneIdFormatTrait.class, ZoneOffsetFormatTrait.class,
+			YearMonthFormatTrait.class, MonthDayFormatTrait.class, YearFormatTrait.class, UuidFormatTrait.class,
+			DurationSecondsFormatTrait.class);
+
+	private final Model model;
+	private final Map<ShapeId, Codec> codecs = new HashMap<>();
+	private final List<StructureCodec> pendingDefaults = new ArrayList<>();
+	private final List<UntaggedUnionCodec> pendingUntagged = new ArrayList<>();
+	private final List<ShapeId> added = new ArrayList<>();
+
+	CodecCompiler(Model model) {
+		this.model = model;
+	}
+
+	/**
+	 * Returns the codec of a shape, or of a member shape (taking the traits of
+	 * the member into account).
+	 */
+	Codec compileRoot(ShapeId id) {
+		final Shape shape = model.expectShape(id);
+		try {
+			final Codec codec = shape.isMemberShape() ? compileMember((MemberShape) shape) : compileShape(shape);
+			// default values may be untagged unions, which are resolved first
+			for (UntaggedUnionCodec union : pendingUntagged) {
+				union.resolveKinds();
+			}
+			for (UntaggedUnionCodec union : pendingUntagged) {
+				union.resolveSignatures();
+			}
+			for (StructureCodec structure : pendingDefaults) {
+				structure.resolveDefaults();
+			}
+			return codec;
+		} catch (RuntimeException e) {
+			// drop the codecs left half-initialized by the failure
+			codecs.keySet().removeAll(added);
+			throw e;
+		} finally {
+			pendingDefaults.clear();
+			pendingUntagged.clear();
+			added.clear();
+		}
+	}
+
+	private void register(ShapeId id, Codec codec) {
+		codecs.put(id, codec);
+		added.add(id);
+	}
+
+	private Codec compileMember(MemberShape member) {
+		final Shape target = model.expectShape(member.getTarget());
+		if (target.isMapShape() && member.hasTrait(PreserveKeyOrderTrait.class)
+				&& !target.hasTrait(PreserveKeyOrderTrait.class)) {
+			final Codec cached = codecs.get(member.getId());
+			if (cached != null) {
+				return cached;
+			}
+			final MapCodec codec = new MapCodec(target.getId(), target.hasTrait(SparseTrait.class), true);
+			register(member.getId(), codec);
+			codec.initialize(compileMember(((MapShape) target).getValue()));
+			return codec;
+		}
+		for (Class<? extends Trait> trait : MEMBER_FORMAT_TRAITS) {
+			if (member.hasTrait(trait)) {
+				return simpleCodec(target, member);
+			}
+		}
+		return compileShape(target);
+	}
+
+	private Codec compileShape(Shape shape) {
+		final Codec cached = codecs.get(shape.getId());
+		if (cached != null) {
+			return cached;
+		}
+		switch (shape.getType()) {
+			case STRUCTURE:
+				return compileStructure(shape);
+			case UNION:
+				if (shape.hasTrait(UntaggedUnionTrait.class)) {
+					return compileUntaggedUnion(shape);
+				} else if (shape.hasTrait(DiscriminatedUnionTrait.class)) {
+					return compileDiscriminatedUnion(shape);
+				}
+				return compileTaggedUnion(shape);
+			case LIST:
+			case SET:
+				final ListCodec list = new ListCodec(shape.getId(), shape.hasTrait(SparseTrait.class));
+				register(shape.getId(), list);
+				list.initialize(compileMember(((ListShape) shape).getMember()));
+				return list;
+			case MAP:
+				final MapCodec map = new MapCodec(shape.getId(), shape.hasTrait(SparseTrait.class),
+						shape.hasTrait(PreserveKeyOrderTrait.class));
+				register(shape.getId(), map);
+				map.initialize(compileMember(((MapShape) shape).getValue()));
+				return map;
+			default:
+				final Codec codec = simpleCodec(shape, null);
+				register(shape.getId(), codec);
+				return codec;
+		}
+	}
+
+	private Codec compileStructure(Shape shape) {
+		final StructureCodec codec = new StructureCodec(shape.getId());
+		register(shape.getId(), codec);
+		final List<StructureCodec.Field> fields = new ArrayList<>();
+		String unknownMember = null;
+		for (MemberShape member : shape.members()) {
+			if (member.hasTrait(JsonUnknownTrait.class)) {
+				unknownMember = member.getMemberName();
+				continue;
+			}
+			fields.add(new StructureCodec.Field(member.getMemberName(), jsonName(member), compileMember(member),
+					member.hasTrait(RequiredTrait.class), member.hasTrait(NullableTrait.class), defaultNode(member)));
+		}
+		codec.initialize(fields, unknownMember);
+		pendingDefaults.add(codec);
+		return codec;
+	}
+
+	private Codec compileTaggedUnion(Shape shape) {
+		final TaggedUnionCodec codec = new TaggedUnionCodec(shape.getId());
+		register(shape.getId(), codec);
+		final List<TaggedUnionCodec.Member> members = new ArrayList<>();
+		String unknownMember = null;
+		for (MemberShape member : shape.members()) {
+			if (member.hasTrait(JsonUnknownTrait.class)) {
+				unknownMember = member.getMemberName();
+			} else {
+				members.add(new TaggedUnionCodec.Member(member.getMemberName(), jsonName(member),
+						compileMember(member)));
+			}
+		}
+		codec.initialize(members, unknownMember);
+		return codec;
+	}
+
+	private Codec compileDiscriminatedUnion(Shape shape) {
+		final String discriminator = shape.expectTrait(DiscriminatedUnionTrait.class).getValue();
+		final DiscriminatedUnionCodec codec = new DiscriminatedUnionCodec(shape.getId(), discriminator);
+		register(shape.getId(), codec);
+		final List<DiscriminatedUnionCodec.Member> members = new ArrayList<>();
+		String unknownMember = null;
+		for (MemberShape member : shape.members()) {
+			if (member.hasTrait(JsonUnknownTrait.class)) {
+				unknownMember = member.getMemberName();
+				continue;
+			}
+			final Codec memberCodec = compileMember(member);
+			if (!(memberCodec instanceof StructureCodec)) {
+				throw new IllegalArgumentException(
+						"Member " + member.getId() + " of a discriminated union must target a structure");
+			}
+			members.add(new DiscriminatedUnionCodec.Member(member.getMemberName(), jsonName(member),
+					(StructureCodec) memberCodec));
+		}
+		codec.initialize(members, unknownMember);
+		return codec;
+	}
+
+	private Codec compileUntaggedUnion(Shape shape) {
+		final UntaggedUnionCodec codec = new UntaggedUnionCodec(shape.getId());
+		register(shape.getId(), codec);
+		final List<UntaggedUnionCodec.Member> members = new ArrayList<>();
+		final List<UntaggedUnionCodec.Member> documents = new ArrayList<>();
+		for (MemberShape member : shape.members()) {
+			final UntaggedUnionCodec.Member compiled = new UntaggedUnionCodec.Member(member.getMemberName(),
+					compileMember(member));
+			if (model.expectShape(member.getTarget()).isDocumentShape()) {
+				documents.add(compiled);
+			} else {
+				members.add(compiled);
+			}
+		}
+		members.addAll(documents);
+		codec.initialize(members);
+		pendingUntagged.add(codec);
+		return codec;
+	}
+
+	/**
+	 * Returns the codec of a simple shape, taking into account the traits of the
+	 * member targeting it, if any.
+	 */
+	private Codec simpleCodec(Shape target, MemberShape member) {
+		switch (target.getType()) {
+			case BLOB:
+				return ScalarCodecs.BLOB;
+			case BOOLEAN:
+				return ScalarCodecs.BOOLEAN;
+			case STRING:
+				return stringCodec(target, member);
+			case ENUM:
+				return new ScalarCodecs.EnumCodec(new HashSet<>(target.asEnumShape().get().getEnumValues().values()),
+						target.hasTrait(OpenEnumTrait.class));
+			case BYTE:
+				return ScalarCodecs.BYTE;
+			case SHORT:
+				return ScalarCodecs.SHORT;
+			case INTEGER:
+				return hasTrait(target, member, YearFormatTrait.class) ? TimeCodecs.YEAR : ScalarCodecs.INTEGER;
+			case INT_ENUM:
+				return new ScalarCodecs.IntEnumCodec(
+						new HashSet<>(target.asIntEnumShape().get().getEnumValues().values()),
+						target.hasTrait(OpenEnumTrait.class));
+			case LONG:
+				return ScalarCodecs.LONG;
+			case FLOAT:
+				return ScalarCodecs.FLOAT;
+			case DOUBLE:
+				return ScalarCodecs.DOUBLE;
+			case BIG_INTEGER:
+				return ScalarCodecs.BIG_INTEGER;
+			case BIG_DECIMAL:
+				return hasTrait(target, member, DurationSecondsFormatTrait.class) ? TimeCodecs.DURATION_SECONDS
+						: ScalarCodecs.BIG_DECIMAL;
+			case TIMESTAMP:
+				return timestampCodec(target, member);
+			case DOCUMENT:
+				return ScalarCodecs.DOCUMENT;
+			default:
+				throw new IllegalArgumentException("Cannot compile a JSON codec for " + target.getType()
+						+ " shape " + target.getId());
+		}
+	}
+
+	private static Codec stringCodec(Shape target, MemberShape member) {
+		if (hasTrait(target, member, DateFormatTrait.class)) {
+			return TimeCodecs.LOCAL_DATE;
+		} else if (hasTrait(target, member, LocalTimeFormatTrait.class)) {
+			return TimeCodecs.LOCAL_TIME;
+		} else if (hasTrait(target, member, LocalDateTimeFormatTrait.class)) {
+			return TimeCodecs.LOCAL_DATE_TIME;
+		} else if (hasTrait(target, member, OffsetTimeFormatTrait.class)) {
+			return TimeCodecs.OFFSET_TIME;
+		} else if (hasTrait(target, member, ZonedDateTimeFormatTrait.class)) {
+			return TimeCodecs.ZONED_DATE_TIME;
+		} else if (hasTrait(target, member, ZoneIdFormatTrait.class)) {
+			return TimeCodecs.ZONE_ID;
+		} else if (hasTrait(target, member, ZoneOffsetFormatTrait.class)) {
+			return TimeCodecs.ZONE_OFFSET;
+		} else if (hasTrait(target, member, YearMonthFormatTrait.class)) {
+			return TimeCodecs.YEAR_MONTH;
+		} else if (hasTrait(target, member, MonthDayFormatTrait.class)) {
+			return TimeCodecs.MONTH_DAY;
+		} else if (hasTrait(target, member, UuidFormatTrait.class)) {
+			return TimeCodecs.UUID;
+		}
+		return ScalarCodecs.STRING;
+	}
+
+	private static Codec timestampCodec(Shape target, MemberShape member) {
+		if (hasTrait(target, member, OffsetDateTimeFormatTrait.class)) {
+			return TimeCodecs.OFFSET_DATE_TIME;
+		}
+		final TimestampFormatTrait format = member != null && member.hasTrait(TimestampFormatTrait.class)
+				? member.expectTrait(TimestampFormatTrait.class)
+				: target.getTrait(TimestampFormatTrait.class).orElse(null);
+		if (format == null) {
+			return TimeCodecs.EPOCH_SECONDS;
+		}
+		switch (format.getValue()) {
+			case TimestampFormatTrait.DATE_TIME:
+				return TimeCodecs.DATE_TIME;
+			case TimestampFormatTrait.HTTP_DATE:
+				return TimeCodecs.HTTP_DATE;
+			default:
+				return TimeCodecs.EPOCH_SECONDS;
+		}
+	}
+
+	private static boolean hasTrait(Shape target, MemberShape member, Class<? extends Trait> trait) {
+		return target.hasTrait(trait) || (member != null && member.hasTrait(trait));
+	}
+
+	private static String jsonName(MemberShape member) {
+		return member.getTrait(JsonNameTrait.class).map(JsonNameTrait::getValue).orElse(member.getMemberName());
+	}
+
+	private static Node defaultNode(MemberShape member) {
+		if (member.hasTrait(DefaultValueTrait.class)) {
+			return member.expectTrait(DefaultValueTrait.class).toNode();
+		}
+		return member.getTrait(DefaultTrait.class).map(DefaultTrait::toNode).filter(node -> !node.isNullNode())
+				.orElse(null);
+	}
+}
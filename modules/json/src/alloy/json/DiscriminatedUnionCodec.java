@@ -0,0 +1,167 @@
+/* Copyright 2022 Disney Streaming
+ *
+ * Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package alloy.json;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import software.amazon.smithy.model.shapes.ShapeId;
+
+/**
+ * Codec of a union annotated with {@code @discriminated}: the members are
+ * structures, encoded as objects with an additional field (the discriminator)
+ * holding the name of the member that is set.
+ *
+ * Decoding skips the fields preceding the discriminator, recording where their
+ * keys start. Once the member is known, only those fields are read again, by
+ * jumping back to each recorded key, and the remaining fields are decoded as
+ * they come. Encoding always writes the discriminator first, so that the
+ * objects written by this codec are decoded in a single pass.
+ *
+ * If the union has a {@code @jsonUnknown} member, objects with an unknown
+ * discriminator value are decoded into it as a whole.
+ */
+final class DiscriminatedUnionCodec extends Codec {
+
+	static final class Member {
+		final String name;
+		final byte[] tag;
+		final byte[] encodedTag;
+		final StructureCodec codec;
+
+		Member(String name, String tag, StructureCodec codec) {
+			this.name = name;
+			this.tag = tag.getBytes(StandardCharsets.UTF_8);
+			this.encodedTag = JsonWriter.encodeString(tag);
+			this.codec = codec;
+		}
+	}
+
+	private final ShapeId shapeId;
+	private final byte[] discriminator;
+	private final byte[] encodedDiscriminator;
+	private Member[] members;
+	private Map<String, Member> membersByName;
+	private FieldTable table;
+	private String unknownMember;
+
+	DiscriminatedUnionCodec(ShapeId shapeId, String discriminator) {
+		this.shapeId = shapeId;
+		this.discriminator = discriminator.getBytes(StandardCharsets.UTF_8);
+		this.encodedDiscriminator = JsonWriter.encodeFieldName(discriminator);
+	}
+
+	void initialize(List<Member> members, String unknownMember) {
+		this.members = members.toArray(new Member[0]);
+		this.membersByName = new HashMap<>();
+		final byte[][] tags = new byte[this.members.length][];
+		for (int i = 0; i < tags.length; i++) {
+			tags[i] = this.members[i].tag;
+			membersByName.put(this.members[i].name, this.members[i]);
+		}
+		this.table = new FieldTable(tags);
+		this.unknownMember = unknownMember;
+	}
+
+	@Override
+	int kinds() {
+		return OBJECT;
+	}
+
+	@Override
+	Object decode(JsonReader in) {
+		in.peek();
+		final int start = in.position();
+		final int depth = in.depth();
+		if (!in.beginObject()) {
+			throw in.error("missing discriminator of " + shapeId);
+		}
+		// positions of the keys of the fields preceding the discriminator
+		int[] skipped = null;
+		int skippedCount = 0;
+		while (true) {
+			final int keyPosition = in.position();
+			in.readKey();
+			if (in.keyEquals(discriminator)) {
+				break;
+			}
+			if (skipped == null) {
+				skipped = new int[8];
+			} else if (skippedCount == skipped.length) {
+				skipped = Arrays.copyOf(skipped, skippedCount * 2);
+			}
+			skipped[skippedCount++] = keyPosition;
+			in.skipValue();
+			if (!in.nextField()) {
+				throw in.error("missing discriminator of " + shapeId);
+			}
+		}
+		in.readStringAsKey();
+		final int index = table.find(in);
+		if (index < 0) {
+			if (unknownMember == null) {
+				throw in.error("unknown discriminator value " + in.keyString() + " of " + shapeId);
+			}
+			in.reset(start, depth);
+			return new UnionValue(unknownMember, in.readDocument());
+		}
+
+		final StructureCodec codec = members[index].codec;
+		final StructureCodec.DecodedFields fields = new StructureCodec.DecodedFields();
+		if (skippedCount > 0) {
+			final int resume = in.position();
+			for (int i = 0; i < skippedCount; i++) {
+				in.reset(skipped[i]);
+				in.readKey();
+				codec.decodeField(in, fields);
+			}
+			in.reset(resume);
+		}
+		while (in.nextField()) {
+			in.readKey();
+			if (in.keyEquals(discriminator)) {
+				in.skipValue();
+			} else {
+				codec.decodeField(in, fields);
+			}
+		}
+		return new UnionValue(members[index].name, codec.completeFields(in, fields));
+	}
+
+	@Override
+	void encode(Object value, JsonWriter out) {
+		if (!(value instanceof UnionValue)) {
+			throw unexpectedValue("a union value for " + shapeId, value);
+		}
+		final UnionValue union = (UnionValue) value;
+		if (union.getMember().equals(unknownMember)) {
+			ScalarCodecs.DOCUMENT.encode(union.getValue(), out);
+			return;
+		}
+		final Member member = membersByName.get(union.getMember());
+		if (member == null) {
+			throw new JsonCodecException("unknown member " + union.getMember() + " of " + shapeId);
+		}
+		out.writeByte('{');
+		out.writeRaw(encodedDiscriminator);
+		out.writeRaw(member.encodedTag);
+		member.codec.encodeFields(union.getValue(), out, false);
+		out.writeByte('}');
+	}
+}
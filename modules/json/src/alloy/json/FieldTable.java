@@ -0,0 +1,90 @@
+/* Copyright 2022 Disney Streaming
+ *
+ * Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package alloy.json;
+
+/**
+ * Open-addressing hash table from the UTF-8 bytes of a field name to its index,
+ * so that names read by {@link JsonReader} are looked up without decoding them
+ * into strings.
+ */
+final class FieldTable {
+	private final byte[][] keys;
+	private final int[] indices;
+	private final int mask;
+
+	/**
+	 * @param names names to index, the index of each one being its position in
+	 *     the array.
+	 */
+	FieldTable(byte[][] names) {
+		int capacity = 4;
+		while (capacity < names.length * 2) {
+			capacity <<= 1;
+		}
+		this.keys = new byte[capacity][];
+		this.indices = new int[capacity];
+		this.mask = capacity - 1;
+		for (int i = 0; i < names.length; i++) {
+			int slot = hash(names[i], 0, names[i].length) & mask;
+			while (keys[slot] != null) {
+				slot = (slot + 1) & mask;
+			}
+			keys[slot] = names[i];
+			indices[slot] = i;
+		}
+	}
+
+	/**
+	 * Returns the index of the name, or -1 if it is not in the table.
+	 */
+	int find(byte[] buf, int offset, int length) {
+		int slot = hash(buf, offset, length) & mask;
+		byte[] key;
+		while ((key = keys[slot]) != null) {
+			if (matches(key, buf, offset, length)) {
+				return indices[slot];
+			}
+			slot = (slot + 1) & mask;
+		}
+		return -1;
+	}
+
+	int find(JsonReader in) {
+		return find(in.keyBuffer(), in.keyOffset(), in.keyLength());
+	}
+
+	private static boolean matches(byte[] key, byte[] buf, int offset, int length) {
+		if (key.length != length) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (key[i] != buf[offset + i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int hash(byte[] buf, int offset, int length) {
+		// FNV-1a
+		int hash = 0x811c9dc5;
+		for (int i = offset; i < offset + length; i++) {
+			hash ^= buf[i];
+			hash *= 0x01000193;
+		}
+		return hash ^ (hash >>> 16);
+	}
+}
@@ -0,0 +1,153 @@
+/* Copyright 2022 Disney Streaming
+ *
+ * Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package alloy.json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import software.amazon.smithy.model.shapes.ShapeId;
+
+/**
+ * Reference JSON codec for the values of a shape, following the alloy JSON
+ * semantics (see {@code docs/serialisation/json.md}).
+ *
+ * Codecs are compiled once per shape by {@link JsonCodecs}, into a tree of
+ * encoders and decoders specialized for the shapes of its closure, and read or
+ * write JSON tokens directly, without going through an intermediate
+ * {@link software.amazon.smithy.model.node.Node} tree.
+ *
+ * Values are represented with plain Java types:
+ * <ul>
+ * <li>structures: {@code Map<String, Object>} from member names to values,
+ * absent members being absent from the map. {@code @nullable} members set to
+ * {@code null} are present with a {@code null} value, and the
+ * {@code @jsonUnknown} member is a {@code Map<String, Node>}: decoded as
+ * {@link UnknownFields}, which writes the fields back as they were read;</li>
+ * <li>unions: {@link UnionValue}, the {@code @jsonUnknown} member holding the
+ * whole JSON value as a {@code Node};</li>
+ * <li>lists and sets: {@code List<Object>}, maps: {@code Map<String, Object>},
+ * decoded as an immutable {@link OrderedMap} keeping the order of the fields
+ * for {@code @preserveKeyOrder} maps;</li>
+ * <li>documents: {@code Node};</li>
+ * <li>numbers: the boxed type of the shape, {@code BigInteger} and
+ * {@code BigDecimal}; strings and enums: {@code String}; intEnums:
+ * {@code Integer}; blobs: {@code byte[]};</li>
+ * <li>timestamps: {@code Instant}, or {@code OffsetDateTime} with
+ * {@code @offsetDateTimeFormat}. Strings, integers and big decimals with one of
+ * the alloy date/time format traits decode to the matching {@code java.time}
+ * type, and strings with {@code @uuidFormat} to {@code UUID}.</li>
+ * </ul>
+ *
+ * Decoding fails on input with objects and arrays nested deeper than
+ * {@link #DEFAULT_MAX_DEPTH} levels, which can be changed with
+ * {@link #withMaxDepth(int)}.
+ *
+ * Instances are immutable and can be shared across threads.
+ */
+public final class JsonCodec {
+	/**
+	 * Maximum nesting depth of the objects and arrays of decoded input, unless
+	 * set otherwise.
+	 */
+	public static final int DEFAULT_MAX_DEPTH = 1000;
+
+	private final ShapeId shapeId;
+	private final Codec codec;
+	private final int maxDepth;
+
+	JsonCodec(ShapeId shapeId, Codec codec) {
+		this(shapeId, codec, DEFAULT_MAX_DEPTH);
+	}
+
+	private JsonCodec(ShapeId shapeId, Codec codec, int maxDepth) {
+		this.shapeId = shapeId;
+		this.codec = codec;
+		this.maxDepth = maxDepth;
+	}
+
+	/**
+	 * Returns a codec of the same shape, failing to decode input with objects
+	 * and arrays nested deeper than {@code maxDepth} levels.
+	 */
+	public JsonCodec withMaxDepth(int maxDepth) {
+		if (maxDepth < 1) {
+			throw new IllegalArgumentException("maxDepth must be positive: " + maxDepth);
+		}
+		return new JsonCodec(shapeId, codec, maxDepth);
+	}
+
+	public int getMaxDepth() {
+		return maxDepth;
+	}
+
+	public ShapeId getShapeId() {
+		return shapeId;
+	}
+
+	/**
+	 * Decodes a UTF-8 encoded JSON value. {@code null} decodes to {@code null}.
+	 *
+	 * @throws JsonCodecException if the input is not valid JSON, is nested too
+	 *     deeply, or does not match the shape.
+	 */
+	public Object decode(byte[] json, int offset, int length) {
+		final JsonReader in = new JsonReader(json, offset, length, maxDepth);
+		final Object value = in.readNullIf() ? null : codec.decode(in);
+		in.expectEnd();
+		return value;
+	}
+
+	public Object decode(byte[] json) {
+		return decode(json, 0, json.length);
+	}
+
+	public Object decode(String json) {
+		return decode(json.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Encodes a value as minified, UTF-8 encoded JSON.
+	 *
+	 * @throws JsonCodecException if the value does not match the shape.
+	 */
+	public byte[] encode(Object value) {
+		return write(value).toByteArray();
+	}
+
+	public void encode(Object value, OutputStream out) throws IOException {
+		write(value).writeTo(out);
+	}
+
+	public String encodeToString(Object value) {
+		return new String(encode(value), StandardCharsets.UTF_8);
+	}
+
+	private JsonWriter write(Object value) {
+		final JsonWriter out = new JsonWriter(256);
+		if (value == null) {
+			out.writeNull();
+		} else {
+			codec.encode(value, out);
+		}
+		return out;
+	}
+
+	@Override
+	public String toString() {
+		return "JsonCodec(" + shapeId + ")";
+	}
+}
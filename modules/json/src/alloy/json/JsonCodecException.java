@@ -0,0 +1,43 @@
+/* Copyright 2022 Disney Streaming
+ *
+ * Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package alloy.json;
+
+/**
+ * Thrown when a value cannot be decoded from, or encoded to, JSON.
+ *
+ * Decoding failures carry the offset of the input byte at which the failure
+ * was detected, or -1 for encoding failures.
+ */
+public final class JsonCodecException extends RuntimeException {
+	private final int offset;
+
+	JsonCodecException(String message, int offset) {
+		super(offset < 0 ? message : message + " (at offset " + offset + ")");
+		this.offset = offset;
+	}
+
+	JsonCodecException(String message) {
+		this(message, -1);
+	}
+
+	/**
+	 * Returns the offset of the input byte at which decoding failed, or -1 if
+	 * the failure happened while encoding.
+	 */
+	public int getOffset() {
+		return offset;
+	}
+}
@@ -0,0 +1,60 @@
+/* Copyright 2022 Disney Streaming
+ *
+ * Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package alloy.json;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import software.amazon.smithy.model.Model;
+import software.amazon.smithy.model.knowledge.KnowledgeIndex;
+import software.amazon.smithy.model.shapes.ShapeId;
+
+/**
+ * Compiled {@link JsonCodec}s of the shapes of a model.
+ *
+ * Codecs are compiled on first use and cached. Codecs of different shapes share
+ * the codecs of the shapes they have in common. The index is cached on the
+ * {@link Model} itself, and can be used from several threads.
+ */
+public final class JsonCodecs implements KnowledgeIndex {
+	private final CodecCompiler compiler;
+	private final ConcurrentHashMap<ShapeId, JsonCodec> codecs = new ConcurrentHashMap<>();
+
+	public JsonCodecs(Model model) {
+		this.compiler = new CodecCompiler(model);
+	}
+
+	public static JsonCodecs of(Model model) {
+		return model.getKnowledge(JsonCodecs.class, JsonCodecs::new);
+	}
+
+	/**
+	 * Returns the codec of a shape. Member shape ids can be used to get the
+	 * codec of a member, which takes the traits of the member into account.
+	 *
+	 * @throws software.amazon.smithy.model.shapes.ShapeNotFoundException if the
+	 *     shape is not in the model.
+	 * @throws IllegalArgumentException if the shape is not a data shape.
+	 */
+	public JsonCodec getCodec(ShapeId shape) {
+		final JsonCodec codec = codecs.get(shape);
+		if (codec != null) {
+			return codec;
+		}
+		synchronized (compiler) {
+			return codecs.computeIfAbsent(shape, id -> new JsonCodec(id, compiler.compileRoot(id)));
+		}
+	}
+}
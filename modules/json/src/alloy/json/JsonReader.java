@@ -0,0 +1,718 @@
+/* Copyright 2022 Disney Streaming
+ *
+ * Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package alloy.json;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import software.amazon.smithy.model.SourceLocation;
+import software.amazon.smithy.model.node.ArrayNode;
+import software.amazon.smithy.model.node.Node;
+import software.amazon.smithy.model.node.ObjectNode;
+import software.amazon.smithy.model.node.StringNode;
+
+/**
+ * Pull tokenizer over a UTF-8 encoded JSON input held in memory.
+ *
+ * Objects and arrays are read without keeping any state about the nesting but
+ * its depth, which is bounded so that deeply nested input fails with a
+ * {@link JsonCodecException} before exhausting the stack of recursive readers:
+ *
+ * <pre>
+ * if (in.beginObject()) {
+ * 	do {
+ * 		in.readKey();
+ * 		// read or skip the value
+ * 	} while (in.nextField());
+ * }
+ * </pre>
+ *
+ * The last field name read is exposed as a slice of bytes (of the input when it
+ * has no escape sequences), so it can be looked up without allocating a string.
+ * Because the whole input is in memory, callers can look ahead and go back
+ * with {@link #position()} and {@link #reset(int)}, or
+ * {@link #reset(int, int)} when going back out of nested values.
+ */
+final class JsonReader {
+	private final byte[] buf;
+	private final int end;
+	private int pos;
+	private final int maxDepth;
+	private int depth;
+
+	private int keyPosition;
+	private byte[] keyBuf;
+	private int keyStart;
+	private int keyLength;
+	private byte[] keyScratch = new byte[32];
+
+	private byte[] tokenBuf;
+	private int tokenStart;
+	private int tokenLength;
+	private byte[] valueScratch = new byte[32];
+
+	private boolean integral;
+
+	JsonReader(byte[] buf, int offset, int length, int maxDepth) {
+		this.buf = buf;
+		this.pos = offset;
+		this.end = offset + length;
+		this.maxDepth = maxDepth;
+	}
+
+	JsonReader(byte[] buf, int offset, int length) {
+		this(buf, offset, length, JsonCodec.DEFAULT_MAX_DEPTH);
+	}
+
+	JsonReader(byte[] buf) {
+		this(buf, 0, buf.length);
+	}
+
+	int position() {
+		return pos;
+	}
+
+	void reset(int position) {
+		this.pos = position;
+	}
+
+	/**
+	 * Returns the maximum nesting depth of the objects and arrays of the input.
+	 */
+	int maxDepth() {
+		return maxDepth;
+	}
+
+	/**
+	 * Returns the number of objects and arrays the reader is in.
+	 */
+	int depth() {
+		return depth;
+	}
+
+	/**
+	 * Goes back to a position taken at the given depth, out of the objects and
+	 * arrays entered since.
+	 */
+	void reset(int position, int depth) {
+		this.pos = position;
+		this.depth = depth;
+	}
+
+	private void enter() {
+		if (++depth > maxDepth) {
+			throw error("nesting depth exceeds " + maxDepth);
+		}
+	}
+
+	JsonCodecException error(String message) {
+		return new JsonCodecException(message, pos);
+	}
+
+	/**
+	 * Returns the first byte of the next token, without consuming it.
+	 */
+	byte peek() {
+		while (pos < end) {
+			final byte b = buf[pos];
+			if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+				return b;
+			}
+			pos++;
+		}
+		throw error("unexpected end of input");
+	}
+
+	/**
+	 * Fails unless only whitespace is left in the input.
+	 */
+	void expectEnd() {
+		while (pos < end) {
+			final byte b = buf[pos];
+			if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+				throw error("unexpected content after the JSON value");
+			}
+			pos++;
+		}
+	}
+
+	/**
+	 * Consumes a {@code null} literal if it is the next token.
+	 */
+	boolean readNullIf() {
+		if (peek() != 'n') {
+			return false;
+		}
+		expectLiteral("null");
+		return true;
+	}
+
+	boolean readBoolean() {
+		final byte b = peek();
+		if (b == 't') {
+			expectLiteral("true");
+			return true;
+		} else if (b == 'f') {
+			expectLiteral("false");
+			return false;
+		}
+		throw error("expected a boolean");
+	}
+
+	private void expectLiteral(String literal) {
+		final int length = literal.length();
+		if (end - pos < length) {
+			throw error("expected " + literal);
+		}
+		for (int i = 0; i < length; i++) {
+			if (buf[pos + i] != literal.charAt(i)) {
+				throw error("expected " + literal);
+			}
+		}
+		pos += length;
+	}
+
+	/**
+	 * Consumes the opening brace of an object, and its closing brace if the
+	 * object is empty.
+	 *
+	 * @return true if the object has fields.
+	 */
+	boolean beginObject() {
+		if (peek() != '{') {
+			throw error("expected an object");
+		}
+		pos++;
+		if (peek() == '}') {
+			pos++;
+			return false;
+		}
+		enter();
+		return true;
+	}
+
+	/**
+	 * Consumes the separator following a field value.
+	 *
+	 * @return true if another field follows, false if the object was closed.
+	 */
+	boolean nextField() {
+		final byte b = peek();
+		pos++;
+		if (b == ',') {
+			return true;
+		} else if (b == '}') {
+			depth--;
+			return false;
+		}
+		pos--;
+		throw error("expected ',' or '}'");
+	}
+
+	/**
+	 * Consumes the opening bracket of an array, and its closing bracket if the
+	 * array is empty.
+	 *
+	 * @return true if the array has elements.
+	 */
+	boolean beginArray() {
+		if (peek() != '[') {
+			throw error("expected an array");
+		}
+		pos++;
+		if (peek() == ']') {
+			pos++;
+			return false;
+		}
+		enter();
+		return true;
+	}
+
+	boolean nextElement() {
+		final byte b = peek();
+		pos++;
+		if (b == ',') {
+			return true;
+		} else if (b == ']') {
+			depth--;
+			return false;
+		}
+		pos--;
+		throw error("expected ',' or ']'");
+	}
+
+	/**
+	 * Reads a field name and the colon following it.
+	 */
+	void readKey() {
+		peek();
+		keyPosition = pos;
+		readStringAsKey();
+		if (peek() != ':') {
+			throw error("expected ':'");
+		}
+		pos++;
+	}
+
+	/**
+	 * Reads a string value into the field name slot, so it can be looked up
+	 * like a field name.
+	 */
+	void readStringAsKey() {
+		readStringToken(true);
+		keyBuf = tokenBuf;
+		keyStart = tokenStart;
+		keyLength = tokenLength;
+	}
+
+	/**
+	 * Returns the position of the opening quote of the last field name read by
+	 * {@link #readKey()}.
+	 */
+	int keyPosition() {
+		return keyPosition;
+	}
+
+	/**
+	 * Appends the input bytes from {@code from} to the current position, as
+	 * they are.
+	 */
+	void copySince(int from, JsonWriter out) {
+		out.writeRaw(buf, from, pos - from);
+	}
+
+	byte[] keyBuffer() {
+		return keyBuf;
+	}
+
+	int keyOffset() {
+		return keyStart;
+	}
+
+	int keyLength() {
+		return keyLength;
+	}
+
+	boolean keyEquals(byte[] name) {
+		if (name.length != keyLength) {
+			return false;
+		}
+		for (int i = 0; i < keyLength; i++) {
+			if (name[i] != keyBuf[keyStart + i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	String keyString() {
+		return new String(keyBuf, keyStart, keyLength, StandardCharsets.UTF_8);
+	}
+
+	String readString() {
+		readStringToken(false);
+		return new String(tokenBuf, tokenStart, tokenLength, StandardCharsets.UTF_8);
+	}
+
+	private void readStringToken(boolean key) {
+		if (peek() != '"') {
+			throw error("expected a string");
+		}
+		final int start = ++pos;
+		while (pos < end) {
+			final byte b = buf[pos];
+			if (b == '"') {
+				tokenBuf = buf;
+				tokenStart = start;
+				tokenLength = pos - start;
+				pos++;
+				return;
+			} else if (b == '\\') {
+				readEscapedString(start, key);
+				return;
+			} else if ((b & 0xff) < 0x20) {
+				throw error("unescaped control character in string");
+			}
+			pos++;
+		}
+		throw error("unterminated string");
+	}
+
+	private void readEscapedString(int start, boolean key) {
+		byte[] out = key ? keyScratch : valueScratch;
+		int length = pos - start;
+		out = ensureCapacity(out, length + 16, key);
+		System.arraycopy(buf, start, out, 0, length);
+		while (pos < end) {
+			final byte b = buf[pos++];
+			if (b == '"') {
+				tokenBuf = out;
+				tokenStart = 0;
+				tokenLength = length;
+				return;
+			}
+			out = ensureCapacity(out, length + 4, key);
+			if (b != '\\') {
+				if ((b & 0xff) < 0x20) {
+					pos--;
+					throw error("unescaped control character in string");
+				}
+				out[length++] = b;
+				continue;
+			}
+			if (pos >= end) {
+				break;
+			}
+			final byte escaped = buf[pos++];
+			switch (escaped) {
+				case '"':
+				case '\\':
+				case '/':
+					out[length++] = escaped;
+					break;
+				case 'b':
+					out[length++] = '\b';
+					break;
+				case 'f':
+					out[length++] = '\f';
+					break;
+				case 'n':
+					out[length++] = '\n';
+					break;
+				case 'r':
+					out[length++] = '\r';
+					break;
+				case 't':
+					out[length++] = '\t';
+					break;
+				case 'u':
+					int codePoint = readHex4();
+					if (Character.isHighSurrogate((char) codePoint) && pos + 1 < end && buf[pos] == '\\'
+							&& buf[pos + 1] == 'u') {
+						final int mark = pos;
+						pos += 2;
+						final int low = readHex4();
+						if (Character.isLowSurrogate((char) low)) {
+							codePoint = Character.toCodePoint((char) codePoint, (char) low);
+						} else {
+							pos = mark;
+						}
+					}
+					length = appendUtf8(out, length, codePoint);
+					break;
+				default:
+					pos--;
+					throw error("invalid escape sequence");
+			}
+		}
+		throw error("unterminated string");
+	}
+
+	private byte[] ensureCapacity(byte[] out, int capacity, boolean key) {
+		if (out.length >= capacity) {
+			return out;
+		}
+		final byte[] grown = new byte[Math.max(capacity, out.length * 2)];
+		System.arraycopy(out, 0, grown, 0, out.length);
+		if (key) {
+			keyScratch = grown;
+		} else {
+			valueScratch = grown;
+		}
+		return grown;
+	}
+
+	private int readHex4() {
+		if (end - pos < 4) {
+			throw error("invalid unicode escape");
+		}
+		int value = 0;
+		for (int i = 0; i < 4; i++) {
+			final int digit = Character.digit(buf[pos++], 16);
+			if (digit < 0) {
+				pos--;
+				throw error("invalid unicode escape");
+			}
+			value = (value << 4) | digit;
+		}
+		return value;
+	}
+
+	private static int appendUtf8(byte[] out, int length, int codePoint) {
+		if (codePoint < 0x80) {
+			out[length++] = (byte) codePoint;
+		} else if (codePoint < 0x800) {
+			out[length++] = (byte) (0xc0 | (codePoint >> 6));
+			out[length++] = (byte) (0x80 | (codePoint & 0x3f));
+		} else if (codePoint < 0x10000) {
+			out[length++] = (byte) (0xe0 | (codePoint >> 12));
+			out[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+			out[length++] = (byte) (0x80 | (codePoint & 0x3f));
+		} else {
+			out[length++] = (byte) (0xf0 | (codePoint >> 18));
+			out[length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+			out[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+			out[length++] = (byte) (0x80 | (codePoint & 0x3f));
+		}
+		return length;
+	}
+
+	/**
+	 * Scans a number token, leaving its bounds in the token slot and whether it
+	 * has a fraction or an exponent in {@link #integral}.
+	 */
+	private void scanNumber() {
+		peek();
+		final int start = pos;
+		if (buf[pos] == '-') {
+			pos++;
+		}
+		if (pos < end && buf[pos] == '0') {
+			pos++;
+		} else if (!scanDigits()) {
+			pos = start;
+			throw error("expected a number");
+		}
+		integral = true;
+		if (pos < end && buf[pos] == '.') {
+			pos++;
+			integral = false;
+			if (!scanDigits()) {
+				throw error("invalid number");
+			}
+		}
+		if (pos < end && (buf[pos] == 'e' || buf[pos] == 'E')) {
+			pos++;
+			integral = false;
+			if (pos < end && (buf[pos] == '+' || buf[pos] == '-')) {
+				pos++;
+			}
+			if (!scanDigits()) {
+				throw error("invalid number");
+			}
+		}
+		tokenBuf = buf;
+		tokenStart = start;
+		tokenLength = pos - start;
+	}
+
+	private boolean scanDigits() {
+		final int start = pos;
+		while (pos < end && buf[pos] >= '0' && buf[pos] <= '9') {
+			pos++;
+		}
+		return pos > start;
+	}
+
+	private String numberToken() {
+		return new String(buf, tokenStart, tokenLength, StandardCharsets.ISO_8859_1);
+	}
+
+	long readLong() {
+		scanNumber();
+		if (!integral) {
+			pos = tokenStart;
+			throw error("expected an integer");
+		}
+		final boolean negative = buf[tokenStart] == '-';
+		final int digitsStart = negative ? tokenStart + 1 : tokenStart;
+		if (pos - digitsStart <= 18) {
+			long value = 0;
+			for (int i = digitsStart; i < pos; i++) {
+				value = value * 10 + (buf[i] - '0');
+			}
+			return negative ? -value : value;
+		}
+		try {
+			return Long.parseLong(numberToken());
+		} catch (NumberFormatException e) {
+			pos = tokenStart;
+			throw error("integer out of range");
+		}
+	}
+
+	int readInt(int min, int max) {
+		final int start = pos;
+		final long value = readLong();
+		if (value < min || value > max) {
+			pos = start;
+			throw error("integer out of range");
+		}
+		return (int) value;
+	}
+
+	/**
+	 * Reads a floating point number, also accepting the {@code "NaN"},
+	 * {@code "Infinity"} and {@code "-Infinity"} strings.
+	 */
+	double readDouble() {
+		if (peek() == '"') {
+			final int start = pos;
+			final String value = readString();
+			switch (value) {
+				case "NaN":
+					return Double.NaN;
+				case "Infinity":
+					return Double.POSITIVE_INFINITY;
+				case "-Infinity":
+					return Double.NEGATIVE_INFINITY;
+				default:
+					pos = start;
+					throw error("expected a number");
+			}
+		}
+		scanNumber();
+		return Double.parseDouble(numberToken());
+	}
+
+	BigDecimal readBigDecimal() {
+		scanNumber();
+		return new BigDecimal(numberToken());
+	}
+
+	BigInteger readBigInteger() {
+		scanNumber();
+		if (!integral) {
+			pos = tokenStart;
+			throw error("expected an integer");
+		}
+		return new BigInteger(numberToken());
+	}
+
+	/**
+	 * Skips the next value, whatever its type.
+	 */
+	void skipValue() {
+		switch (peek()) {
+			case '{':
+				if (beginObject()) {
+					do {
+						readKey();
+						skipValue();
+					} while (nextField());
+				}
+				break;
+			case '[':
+				if (beginArray()) {
+					do {
+						skipValue();
+					} while (nextElement());
+				}
+				break;
+			case '"':
+				skipString();
+				break;
+			case 't':
+				expectLiteral("true");
+				break;
+			case 'f':
+				expectLiteral("false");
+				break;
+			case 'n':
+				expectLiteral("null");
+				break;
+			default:
+				scanNumber();
+		}
+	}
+
+	/**
+	 * Skips a string, checking its escape sequences: skipped values may be
+	 * copied as they are, as unknown fields are.
+	 */
+	private void skipString() {
+		pos++;
+		while (pos < end) {
+			final byte b = buf[pos++];
+			if (b == '"') {
+				return;
+			} else if (b == '\\') {
+				if (pos >= end) {
+					break;
+				}
+				switch (buf[pos++]) {
+					case '"':
+					case '\\':
+					case '/':
+					case 'b':
+					case 'f':
+					case 'n':
+					case 'r':
+					case 't':
+						break;
+					case 'u':
+						readHex4();
+						break;
+					default:
+						pos--;
+						throw error("invalid escape sequence");
+				}
+			} else if ((b & 0xff) < 0x20) {
+				pos--;
+				throw error("unescaped control character in string");
+			}
+		}
+		throw error("unterminated string");
+	}
+
+	/**
+	 * Reads the next value as a document.
+	 */
+	Node readDocument() {
+		switch (peek()) {
+			case '{':
+				final Map<StringNode, Node> members = new LinkedHashMap<>();
+				if (beginObject()) {
+					do {
+						readKey();
+						final StringNode key = new StringNode(keyString(), SourceLocation.NONE);
+						members.put(key, readDocument());
+					} while (nextField());
+				}
+				return new ObjectNode(members, SourceLocation.NONE);
+			case '[':
+				final List<Node> elements = new ArrayList<>();
+				if (beginArray()) {
+					do {
+						elements.add(readDocument());
+					} while (nextElement());
+				}
+				return new ArrayNode(elements, SourceLocation.NONE);
+			case '"':
+				return Node.from(readString());
+			case 't':
+			case 'f':
+				return Node.from(readBoolean());
+			case 'n':
+				expectLiteral("null");
+				return Node.nullNode();
+			default:
+				scanNumber();
+				if (integral) {
+					if (tokenLength <= 18) {
+						return Node.from(Long.parseLong(numberToken()));
+					}
+					return Node.from(new BigInteger(numberToken()));
+				}
+				return Node.from(Double.parseDouble(numberToken()));
+		}
+	}
+}
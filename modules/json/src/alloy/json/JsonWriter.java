@@ -0,0 +1,288 @@
+/* Copyright 2022 Disney Streaming
+ *
+ * Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package alloy.json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+
+import software.amazon.smithy.model.node.Node;
+import software.amazon.smithy.model.node.StringNode;
+
+/**
+ * Minified JSON writer appending UTF-8 bytes to a growable buffer.
+ *
+ * Callers are responsible for writing separators. Field names known ahead of
+ * time are encoded once with {@link #encodeFieldName(String)} and copied with
+ * {@link #writeRaw(byte[])}.
+ */
+final class JsonWriter {
+	private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] NULL = { 'n', 'u', 'l', 'l' };
+	private static final byte[] TRUE = { 't', 'r', 'u', 'e' };
+	private static final byte[] FALSE = { 'f', 'a', 'l', 's', 'e' };
+
+	private byte[] buf;
+	private int count;
+
+	JsonWriter(int initialCapacity) {
+		this.buf = new byte[initialCapacity];
+	}
+
+	/**
+	 * Returns the bytes of {@code "name":}, JSON-escaped.
+	 */
+	static byte[] encodeFieldName(String name) {
+		final JsonWriter writer = new JsonWriter(name.length() + 8);
+		writer.writeString(name);
+		writer.writeByte(':');
+		return writer.toByteArray();
+	}
+
+	/**
+	 * Returns the bytes of the JSON string literal for {@code value}.
+	 */
+	static byte[] encodeString(String value) {
+		final JsonWriter writer = new JsonWriter(value.length() + 8);
+		writer.writeString(value);
+		return writer.toByteArray();
+	}
+
+	private void ensure(int extra) {
+		if (count + extra > buf.length) {
+			buf = Arrays.copyOf(buf, Math.max(buf.length * 2, count + extra));
+		}
+	}
+
+	void writeByte(char b) {
+		ensure(1);
+		buf[count++] = (byte) b;
+	}
+
+	void writeRaw(byte[] bytes) {
+		writeRaw(bytes, 0, bytes.length);
+	}
+
+	void writeRaw(byte[] bytes, int offset, int length) {
+		ensure(length);
+		System.arraycopy(bytes, offset, buf, count, length);
+		count += length;
+	}
+
+	void writeNull() {
+		writeRaw(NULL);
+	}
+
+	void writeBoolean(boolean value) {
+		writeRaw(value ? TRUE : FALSE);
+	}
+
+	void writeLong(long value) {
+		if (value == Long.MIN_VALUE) {
+			writeAscii(Long.toString(value));
+			return;
+		}
+		ensure(20);
+		if (value < 0) {
+			buf[count++] = '-';
+			value = -value;
+		}
+		int digits = 1;
+		for (long v = value; v >= 10; v /= 10) {
+			digits++;
+		}
+		int i = count + digits;
+		count = i;
+		do {
+			buf[--i] = (byte) ('0' + (value % 10));
+			value /= 10;
+		} while (value > 0);
+	}
+
+	/**
+	 * Writes a floating point number, or the {@code "NaN"}, {@code "Infinity"}
+	 * and {@code "-Infinity"} strings for non-finite values.
+	 */
+	void writeDouble(double value) {
+		if (Double.isNaN(value)) {
+			writeAscii("\"NaN\"");
+		} else if (Double.isInfinite(value)) {
+			writeAscii(value > 0 ? "\"Infinity\"" : "\"-Infinity\"");
+		} else {
+			writeAscii(Double.toString(value));
+		}
+	}
+
+	void writeFloat(float value) {
+		if (Float.isNaN(value) || Float.isInfinite(value)) {
+			writeDouble(value);
+		} else {
+			writeAscii(Float.toString(value));
+		}
+	}
+
+	/**
+	 * Writes characters known to be ASCII, without escaping them.
+	 */
+	void writeAscii(String value) {
+		final int length = value.length();
+		ensure(length);
+		for (int i = 0; i < length; i++) {
+			buf[count++] = (byte) value.charAt(i);
+		}
+	}
+
+	void writeString(String value) {
+		final int length = value.length();
+		// worst case: every char escaped as \\uXXXX
+		ensure(length * 6 + 2);
+		final byte[] out = buf;
+		int n = count;
+		out[n++] = '"';
+		for (int i = 0; i < length; i++) {
+			final char c = value.charAt(i);
+			if (c < 0x80) {
+				if (c >= 0x20 && c != '"' && c != '\\') {
+					out[n++] = (byte) c;
+					continue;
+				}
+				switch (c) {
+					case '"':
+					case '\\':
+						out[n++] = '\\';
+						out[n++] = (byte) c;
+						break;
+					case '\n':
+						out[n++] = '\\';
+						out[n++] = 'n';
+						break;
+					case '\r':
+						out[n++] = '\\';
+						out[n++] = 'r';
+						break;
+					case '\t':
+						out[n++] = '\\';
+						out[n++] = 't';
+						break;
+					case '\b':
+						out[n++] = '\\';
+						out[n++] = 'b';
+						break;
+					case '\f':
+						out[n++] = '\\';
+						out[n++] = 'f';
+						break;
+					default:
+						n = writeUnicodeEscape(out, n, c);
+				}
+			} else if (c < 0x800) {
+				out[n++] = (byte) (0xc0 | (c >> 6));
+				out[n++] = (byte) (0x80 | (c & 0x3f));
+			} else if (Character.isSurrogate(c)) {
+				if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+					final int codePoint = Character.toCodePoint(c, value.charAt(++i));
+					out[n++] = (byte) (0xf0 | (codePoint >> 18));
+					out[n++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+					out[n++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+					out[n++] = (byte) (0x80 | (codePoint & 0x3f));
+				} else {
+					// lone surrogates have no UTF-8 encoding
+					n = writeUnicodeEscape(out, n, c);
+				}
+			} else {
+				out[n++] = (byte) (0xe0 | (c >> 12));
+				out[n++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+				out[n++] = (byte) (0x80 | (c & 0x3f));
+			}
+		}
+		out[n++] = '"';
+		count = n;
+	}
+
+	private static int writeUnicodeEscape(byte[] out, int n, char c) {
+		out[n++] = '\\';
+		out[n++] = 'u';
+		out[n++] = HEX[(c >> 12) & 0xf];
+		out[n++] = HEX[(c >> 8) & 0xf];
+		out[n++] = HEX[(c >> 4) & 0xf];
+		out[n++] = HEX[c & 0xf];
+		return n;
+	}
+
+	/**
+	 * Writes a document.
+	 */
+	void writeNode(Node node) {
+		switch (node.getType()) {
+			case OBJECT:
+				writeByte('{');
+				boolean first = true;
+				for (Map.Entry<StringNode, Node> member : node.expectObjectNode().getMembers().entrySet()) {
+					if (!first) {
+						writeByte(',');
+					}
+					first = false;
+					writeString(member.getKey().getValue());
+					writeByte(':');
+					writeNode(member.getValue());
+				}
+				writeByte('}');
+				break;
+			case ARRAY:
+				writeByte('[');
+				boolean firstElement = true;
+				for (Node element : node.expectArrayNode().getElements()) {
+					if (!firstElement) {
+						writeByte(',');
+					}
+					firstElement = false;
+					writeNode(element);
+				}
+				writeByte(']');
+				break;
+			case STRING:
+				writeString(node.expectStringNode().getValue());
+				break;
+			case NUMBER:
+				final Number number = node.expectNumberNode().getValue();
+				if (number instanceof Double || number instanceof Float) {
+					writeDouble(number.doubleValue());
+				} else {
+					writeAscii(number.toString());
+				}
+				break;
+			case BOOLEAN:
+				writeBoolean(node.expectBooleanNode().getValue());
+				break;
+			default:
+				writeNull();
+		}
+	}
+
+	int size() {
+		return count;
+	}
+
+	byte[] toByteArray() {
+		return Arrays.copyOf(buf, count);
+	}
+
+	void writeTo(OutputStream out) throws IOException {
+		out.write(buf, 0, count);
+	}
+}
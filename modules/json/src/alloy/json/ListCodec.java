@@ -0,0 +1,87 @@
+/* Copyright 2022 Disney Streaming
+ *
+ * Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package alloy.json;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import software.amazon.smithy.model.shapes.ShapeId;
+
+/**
+ * Codec of a list, decoding to an {@link ArrayList}. {@code null} elements are
+ * kept in {@code @sparse} lists and skipped otherwise.
+ */
+final class ListCodec extends Codec {
+	private final ShapeId shapeId;
+	private final boolean sparse;
+	private Codec element;
+
+	ListCodec(ShapeId shapeId, boolean sparse) {
+		this.shapeId = shapeId;
+		this.sparse = sparse;
+	}
+
+	void initialize(Codec element) {
+		this.element = element;
+	}
+
+	@Override
+	int kinds() {
+		return ARRAY;
+	}
+
+	@Override
+	Object decode(JsonReader in) {
+		final List<Object> result = new ArrayList<>();
+		if (in.beginArray()) {
+			do {
+				if (in.readNullIf()) {
+					if (sparse) {
+						result.add(null);
+					}
+				} else {
+					result.add(element.decode(in));
+				}
+			} while (in.nextElement());
+		}
+		return result;
+	}
+
+	@Override
+	void encode(Object value, JsonWriter out) {
+		if (!(value instanceof Collection)) {
+			throw unexpectedValue("a collection for " + shapeId, value);
+		}
+		out.writeByte('[');
+		boolean first = true;
+		for (Object item : (Collection<?>) value) {
+			if (item == null && !sparse) {
+				continue;
+			}
+			if (!first) {
+				out.writeByte(',');
+			}
+			first = false;
+			if (item == null) {
+				out.writeNull();
+			} else {
+				element.encode(item, out);
+			}
+		}
+		out.writeByte(']');
+	}
+}
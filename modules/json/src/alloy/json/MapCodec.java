@@ -0,0 +1,119 @@
+/* Copyright 2022 Disney Streaming
+ *
+ * Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package alloy.json;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import software.amazon.smithy.model.shapes.ShapeId;
+
+/**
+ * Codec of a map, decoding to a {@link HashMap}, or to an {@link OrderedMap}
+ * keeping the order of the fields when the map is annotated with
+ * {@code @preserveKeyOrder}. {@code null} values are kept in {@code @sparse}
+ * maps and skipped otherwise.
+ */
+final class MapCodec extends Codec {
+	private final ShapeId shapeId;
+	private final boolean sparse;
+	private final boolean preserveKeyOrder;
+	private Codec value;
+
+	MapCodec(ShapeId shapeId, boolean sparse, boolean preserveKeyOrder) {
+		this.shapeId = shapeId;
+		this.sparse = sparse;
+		this.preserveKeyOrder = preserveKeyOrder;
+	}
+
+	void initialize(Codec value) {
+		this.value = value;
+	}
+
+	@Override
+	int kinds() {
+		return OBJECT;
+	}
+
+	@Override
+	Object decode(JsonReader in) {
+		if (preserveKeyOrder) {
+			return decodeOrdered(in);
+		}
+		final Map<String, Object> result = new HashMap<>();
+		if (in.beginObject()) {
+			do {
+				in.readKey();
+				final String key = in.keyString();
+				if (in.readNullIf()) {
+					if (sparse) {
+						result.put(key, null);
+					}
+				} else {
+					result.put(key, value.decode(in));
+				}
+			} while (in.nextField());
+		}
+		return result;
+	}
+
+	private Object decodeOrdered(JsonReader in) {
+		if (!in.beginObject()) {
+			return OrderedMap.empty();
+		}
+		final OrderedMap.Builder<String, Object> result = new OrderedMap.Builder<>();
+		do {
+			in.readKey();
+			final String key = in.keyString();
+			if (in.readNullIf()) {
+				if (sparse) {
+					result.put(key, null);
+				}
+			} else {
+				result.put(key, value.decode(in));
+			}
+		} while (in.nextField());
+		return result.build();
+	}
+
+	@Override
+	void encode(Object map, JsonWriter out) {
+		if (!(map instanceof Map)) {
+			throw unexpectedValue("a map for " + shapeId, map);
+		}
+		out.writeByte('{');
+		boolean first = true;
+		for (Map.Entry<?, ?> entry : ((Map<?, ?>) map).entrySet()) {
+			if (entry.getValue() == null && !sparse) {
+				continue;
+			}
+			if (!(entry.getKey() instanceof String)) {
+				throw unexpectedValue("a string key for " + shapeId, entry.getKey());
+			}
+			if (!first) {
+				out.writeByte(',');
+			}
+			first = false;
+			out.writeString((String) entry.getKey());
+			out.writeByte(':');
+			if (entry.getValue() == null) {
+				out.writeNull();
+			} else {
+				value.encode(entry.getValue(), out);
+			}
+		}
+		out.writeByte('}');
+	}
+}
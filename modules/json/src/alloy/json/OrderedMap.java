@@ -0,0 +1,286 @@
+/* Copyright 2022 Disney Streaming
+ *
+ * Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package alloy.json;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Immutable map iterating over its entries in insertion order, which maps
+ * annotated with {@code @preserveKeyOrder} decode to.
+ *
+ * Keys and values are held in two arrays sized to the map. Small maps look
+ * keys up by scanning them, larger ones through an open-addressing table of
+ * positions in these arrays, so that entries cost no node object nor links
+ * as in a {@link java.util.LinkedHashMap}. Keys must not be {@code null},
+ * values may be.
+ */
+public final class OrderedMap<K, V> extends AbstractMap<K, V> {
+	// maps up to this size are looked up by scanning their keys
+	static final int MAX_SCANNED = 8;
+
+	private static final OrderedMap<?, ?> EMPTY = new OrderedMap<>(new Object[0], new Object[0], null);
+
+	private final Object[] keys;
+	private final Object[] values;
+	// positions in the arrays plus one, zero being an empty slot
+	private final int[] index;
+	private Set<Map.Entry<K, V>> entrySet;
+
+	private OrderedMap(Object[] keys, Object[] values, int[] index) {
+		this.keys = keys;
+		this.values = values;
+		this.index = index;
+	}
+
+	/**
+	 * Returns the empty map.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <K, V> OrderedMap<K, V> empty() {
+		return (OrderedMap<K, V>) EMPTY;
+	}
+
+	/**
+	 * Returns a map holding the entries of the given map, in its iteration
+	 * order.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <K, V> OrderedMap<K, V> copyOf(Map<? extends K, ? extends V> map) {
+		if (map instanceof OrderedMap) {
+			return (OrderedMap<K, V>) map;
+		}
+		final Builder<K, V> builder = new Builder<>(map.size());
+		for (Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+			builder.put(entry.getKey(), entry.getValue());
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Builder of an {@link OrderedMap}. A key put again keeps its first
+	 * position, and takes the last value.
+	 */
+	static final class Builder<K, V> {
+		private Object[] keys;
+		private Object[] values;
+		private int size;
+
+		Builder() {
+			this(MAX_SCANNED);
+		}
+
+		Builder(int expectedSize) {
+			this.keys = new Object[Math.max(expectedSize, 1)];
+			this.values = new Object[keys.length];
+		}
+
+		Builder<K, V> put(K key, V value) {
+			if (key == null) {
+				throw new NullPointerException("null key");
+			}
+			if (size == keys.length) {
+				keys = Arrays.copyOf(keys, size * 2);
+				values = Arrays.copyOf(values, size * 2);
+			}
+			keys[size] = key;
+			values[size] = value;
+			size++;
+			return this;
+		}
+
+		/**
+		 * Returns the map, after which the builder must not be used anymore.
+		 */
+		OrderedMap<K, V> build() {
+			if (size == 0) {
+				return empty();
+			}
+			int count = size;
+			int[] index = null;
+			if (size <= MAX_SCANNED) {
+				for (int i = 1; i < count; i++) {
+					for (int j = 0; j < i; j++) {
+						if (keys[i].equals(keys[j])) {
+							values[j] = values[i];
+							count = remove(i, count);
+							i--;
+							break;
+						}
+					}
+				}
+			} else {
+				index = new int[tableSize(size)];
+				final int mask = index.length - 1;
+				int position = 0;
+				for (int i = 0; i < size; i++) {
+					int slot = slot(keys[i].hashCode(), mask);
+					int found;
+					while ((found = index[slot]) != 0 && !keys[found - 1].equals(keys[i])) {
+						slot = (slot + 1) & mask;
+					}
+					if (found != 0) {
+						values[found - 1] = values[i];
+					} else {
+						keys[position] = keys[i];
+						values[position] = values[i];
+						index[slot] = ++position;
+					}
+				}
+				count = position;
+			}
+			final Object[] resultKeys = count == keys.length ? keys : Arrays.copyOf(keys, count);
+			final Object[] resultValues = count == values.length ? values : Arrays.copyOf(values, count);
+			keys = null;
+			values = null;
+			return new OrderedMap<>(resultKeys, resultValues, index);
+		}
+
+		private int remove(int position, int count) {
+			System.arraycopy(keys, position + 1, keys, position, count - position - 1);
+			System.arraycopy(values, position + 1, values, position, count - position - 1);
+			return count - 1;
+		}
+	}
+
+	private static int tableSize(int size) {
+		int capacity = 16;
+		while (capacity < size * 2) {
+			capacity <<= 1;
+		}
+		return capacity;
+	}
+
+	// the slot of a hash code in a table of the given mask: multiplying spreads
+	// the consecutive hash codes of similar strings, which would otherwise fill
+	// consecutive slots
+	private static int slot(int hash, int mask) {
+		return (hash * 0x9E3779B9) >>> Integer.numberOfLeadingZeros(mask);
+	}
+
+	private int position(Object key) {
+		if (key == null) {
+			return -1;
+		}
+		final int h = key.hashCode();
+		if (index == null) {
+			for (int i = 0; i < keys.length; i++) {
+				if (matches(keys[i], key, h)) {
+					return i;
+				}
+			}
+			return -1;
+		}
+		final int mask = index.length - 1;
+		int slot = slot(h, mask);
+		int found;
+		while ((found = index[slot]) != 0) {
+			if (matches(keys[found - 1], key, h)) {
+				return found - 1;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return -1;
+	}
+
+	// keys are mostly strings, whose hash codes are cached: comparing them first
+	// avoids comparing the characters of keys that differ
+	private static boolean matches(Object candidate, Object key, int hash) {
+		return candidate == key || candidate.hashCode() == hash && candidate.equals(key);
+	}
+
+	@Override
+	public int size() {
+		return keys.length;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return keys.length == 0;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return position(key) >= 0;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public V get(Object key) {
+		final int position = position(key);
+		return position < 0 ? null : (V) values[position];
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public V getOrDefault(Object key, V defaultValue) {
+		final int position = position(key);
+		return position < 0 ? defaultValue : (V) values[position];
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public void forEach(BiConsumer<? super K, ? super V> action) {
+		for (int i = 0; i < keys.length; i++) {
+			action.accept((K) keys[i], (V) values[i]);
+		}
+	}
+
+	@Override
+	public Set<Map.Entry<K, V>> entrySet() {
+		Set<Map.Entry<K, V>> result = entrySet;
+		if (result == null) {
+			result = new EntrySet();
+			entrySet = result;
+		}
+		return result;
+	}
+
+	private final class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+		@Override
+		public int size() {
+			return keys.length;
+		}
+
+		@Override
+		public Iterator<Map.Entry<K, V>> iterator() {
+			return new Iterator<Map.Entry<K, V>>() {
+				private int next;
+
+				@Override
+				public boolean hasNext() {
+					return next < keys.length;
+				}
+
+				@Override
+				@SuppressWarnings("unchecked")
+				public Map.Entry<K, V> next() {
+					if (next >= keys.length) {
+						throw new NoSuchElementException();
+					}
+					final int i = next++;
+					return new AbstractMap.SimpleImmutableEntry<>((K) keys[i], (V) values[i]);
+				}
+			};
+		}
+	}
+}
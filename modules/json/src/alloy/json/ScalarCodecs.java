@@ -0,0 +1,360 @@
+/* Copyright 2022 Disney Streaming
+ *
+ * Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package alloy.json;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Base64;
+import java.util.Set;
+
+import software.amazon.smithy.model.node.Node;
+
+/**
+ * Codecs of the simple shapes that do not depend on a format trait.
+ */
+final class ScalarCodecs {
+	static final Codec BOOLEAN = new BooleanCodec();
+	static final Codec BYTE = new ByteCodec();
+	static final Codec SHORT = new ShortCodec();
+	static final Codec INTEGER = new IntegerCodec();
+	static final Codec LONG = new LongCodec();
+	static final Codec FLOAT = new FloatCodec();
+	static final Codec DOUBLE = new DoubleCodec();
+	static final Codec BIG_INTEGER = new BigIntegerCodec();
+	static final Codec BIG_DECIMAL = new BigDecimalCodec();
+	static final Codec STRING = new StringCodec();
+	static final Codec BLOB = new BlobCodec();
+	static final Codec DOCUMENT = new DocumentCodec();
+
+	private ScalarCodecs() {
+	}
+
+	private static Number expectNumber(String expected, Object value) {
+		if (value instanceof Number) {
+			return (Number) value;
+		}
+		throw Codec.unexpectedValue(expected, value);
+	}
+
+	private static final class BooleanCodec extends Codec {
+		@Override
+		int kinds() {
+			return BOOLEAN;
+		}
+
+		@Override
+		Object decode(JsonReader in) {
+			return in.readBoolean();
+		}
+
+		@Override
+		void encode(Object value, JsonWriter out) {
+			if (!(value instanceof Boolean)) {
+				throw unexpectedValue("a boolean", value);
+			}
+			out.writeBoolean((Boolean) value);
+		}
+	}
+
+	private static final class ByteCodec extends Codec {
+		@Override
+		int kinds() {
+			return NUMBER;
+		}
+
+		@Override
+		Object decode(JsonReader in) {
+			return (byte) in.readInt(Byte.MIN_VALUE, Byte.MAX_VALUE);
+		}
+
+		@Override
+		void encode(Object value, JsonWriter out) {
+			out.writeLong(expectNumber("a byte", value).byteValue());
+		}
+	}
+
+	private static final class ShortCodec extends Codec {
+		@Override
+		int kinds() {
+			return NUMBER;
+		}
+
+		@Override
+		Object decode(JsonReader in) {
+			return (short) in.readInt(Short.MIN_VALUE, Short.MAX_VALUE);
+		}
+
+		@Override
+		void encode(Object value, JsonWriter out) {
+			out.writeLong(expectNumber("a short", value).shortValue());
+		}
+	}
+
+	private static final class IntegerCodec extends Codec {
+		@Override
+		int kinds() {
+			return NUMBER;
+		}
+
+		@Override
+		Object decode(JsonReader in) {
+			return in.readInt(Integer.MIN_VALUE, Integer.MAX_VALUE);
+		}
+
+		@Override
+		void encode(Object value, JsonWriter out) {
+			out.writeLong(expectNumber("an integer", value).intValue());
+		}
+	}
+
+	private static final class LongCodec extends Codec {
+		@Override
+		int kinds() {
+			return NUMBER;
+		}
+
+		@Override
+		Object decode(JsonReader in) {
+			return in.readLong();
+		}
+
+		@Override
+		void encode(Object value, JsonWriter out) {
+			out.writeLong(expectNumber("a long", value).longValue());
+		}
+	}
+
+	private static final class FloatCodec extends Codec {
+		@Override
+		int kinds() {
+			return NUMBER | STRING;
+		}
+
+		@Override
+		Object decode(JsonReader in) {
+			return (float) in.readDouble();
+		}
+
+		@Override
+		void encode(Object value, JsonWriter out) {
+			out.writeFloat(expectNumber("a float", value).floatValue());
+		}
+	}
+
+	private static final class DoubleCodec extends Codec {
+		@Override
+		int kinds() {
+			return NUMBER | STRING;
+		}
+
+		@Override
+		Object decode(JsonReader in) {
+			return in.readDouble();
+		}
+
+		@Override
+		void encode(Object value, JsonWriter out) {
+			out.writeDouble(expectNumber("a double", value).doubleValue());
+		}
+	}
+
+	private static final class BigIntegerCodec extends Codec {
+		@Override
+		int kinds() {
+			return NUMBER;
+		}
+
+		@Override
+		Object decode(JsonReader in) {
+			return in.readBigInteger();
+		}
+
+		@Override
+		void encode(Object value, JsonWriter out) {
+			final Number number = expectNumber("a big integer", value);
+			if (number instanceof BigInteger) {
+				out.writeAscii(number.toString());
+			} else {
+				out.writeLong(number.longValue());
+			}
+		}
+	}
+
+	private static final class BigDecimalCodec extends Codec {
+		@Override
+		int kinds() {
+			return NUMBER;
+		}
+
+		@Override
+		Object decode(JsonReader in) {
+			return in.readBigDecimal();
+		}
+
+		@Override
+		void encode(Object value, JsonWriter out) {
+			final Number number = expectNumber("a big decimal", value);
+			if (number instanceof BigDecimal || number instanceof BigInteger) {
+				out.writeAscii(number.toString());
+			} else {
+				out.writeAscii(new BigDecimal(number.toString()).toString());
+			}
+		}
+	}
+
+	private static final class StringCodec extends Codec {
+		@Override
+		int kinds() {
+			return STRING;
+		}
+
+		@Override
+		Object decode(JsonReader in) {
+			return in.readString();
+		}
+
+		@Override
+		void encode(Object value, JsonWriter out) {
+			if (!(value instanceof String)) {
+				throw unexpectedValue("a string", value);
+			}
+			out.writeString((String) value);
+		}
+	}
+
+	/**
+	 * Blobs are base64-encoded strings.
+	 */
+	private static final class BlobCodec extends Codec {
+		@Override
+		int kinds() {
+			return STRING;
+		}
+
+		@Override
+		Object decode(JsonReader in) {
+			final int start = in.position();
+			try {
+				return Base64.getDecoder().decode(in.readString());
+			} catch (IllegalArgumentException e) {
+				in.reset(start);
+				throw in.error("invalid base64 string");
+			}
+		}
+
+		@Override
+		void encode(Object value, JsonWriter out) {
+			if (!(value instanceof byte[])) {
+				throw unexpectedValue("a byte array", value);
+			}
+			out.writeString(Base64.getEncoder().encodeToString((byte[]) value));
+		}
+	}
+
+	private static final class DocumentCodec extends Codec {
+		@Override
+		Object decode(JsonReader in) {
+			return in.readDocument();
+		}
+
+		@Override
+		void encode(Object value, JsonWriter out) {
+			if (!(value instanceof Node)) {
+				throw unexpectedValue("a document node", value);
+			}
+			out.writeNode((Node) value);
+		}
+	}
+
+	/**
+	 * Strings restricted to the values of an enum shape, unless it is annotated
+	 * with {@code @openEnum}.
+	 */
+	static final class EnumCodec extends Codec {
+		private final Set<String> values;
+		private final boolean open;
+
+		EnumCodec(Set<String> values, boolean open) {
+			this.values = values;
+			this.open = open;
+		}
+
+		@Override
+		int kinds() {
+			return STRING;
+		}
+
+		@Override
+		Object decode(JsonReader in) {
+			final int start = in.position();
+			final String value = in.readString();
+			if (!open && !values.contains(value)) {
+				in.reset(start);
+				throw in.error("unknown enum value " + value);
+			}
+			return value;
+		}
+
+		@Override
+		void encode(Object value, JsonWriter out) {
+			if (!(value instanceof String)) {
+				throw unexpectedValue("a string", value);
+			} else if (!open && !values.contains(value)) {
+				throw new JsonCodecException("unknown enum value " + value);
+			}
+			out.writeString((String) value);
+		}
+	}
+
+	/**
+	 * Integers restricted to the values of an intEnum shape, unless it is
+	 * annotated with {@code @openEnum}.
+	 */
+	static final class IntEnumCodec extends Codec {
+		private final Set<Integer> values;
+		private final boolean open;
+
+		IntEnumCodec(Set<Integer> values, boolean open) {
+			this.values = values;
+			this.open = open;
+		}
+
+		@Override
+		int kinds() {
+			return NUMBER;
+		}
+
+		@Override
+		Object decode(JsonReader in) {
+			final int start = in.position();
+			final int value = in.readInt(Integer.MIN_VALUE, Integer.MAX_VALUE);
+			if (!open && !values.contains(value)) {
+				in.reset(start);
+				throw in.error("unknown enum value " + value);
+			}
+			return value;
+		}
+
+		@Override
+		void encode(Object value, JsonWriter out) {
+			final int number = expectNumber("an integer", value).intValue();
+			if (!open && !values.contains(number)) {
+				throw new JsonCodecException("unknown enum value " + number);
+			}
+			out.writeLong(number);
+		}
+	}
+}
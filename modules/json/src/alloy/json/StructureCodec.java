@@ -0,0 +1,268 @@
+/* Copyright 2022 Disney Streaming
+ *
+ * Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package alloy.json;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import software.amazon.smithy.model.node.Node;
+import software.amazon.smithy.model.shapes.ShapeId;
+
+/**
+ * Codec of a structure, decoding to a map from member names to values.
+ *
+ * Fields are looked up by the raw bytes of their JSON name. A {@code null}
+ * value is kept (as a {@code null} entry) for {@code @nullable} members only,
+ * and treated as an absent value otherwise. Unknown fields are collected into
+ * the {@code @jsonUnknown} member if there is one, as {@link UnknownFields}
+ * holding a copy of their bytes, and skipped otherwise.
+ */
+final class StructureCodec extends Codec {
+
+	static final class Field {
+		final String name;
+		final byte[] jsonName;
+		final byte[] encodedName;
+		final Codec codec;
+		final boolean required;
+		final boolean nullable;
+		final Node defaultNode;
+		Object defaultValue;
+
+		Field(String name, String jsonName, Codec codec, boolean required, boolean nullable, Node defaultNode) {
+			this.name = name;
+			this.jsonName = jsonName.getBytes(StandardCharsets.UTF_8);
+			this.encodedName = JsonWriter.encodeFieldName(jsonName);
+			this.codec = codec;
+			this.required = required;
+			this.nullable = nullable;
+			this.defaultNode = defaultNode;
+		}
+	}
+
+	private final ShapeId shapeId;
+	private Field[] fields;
+	private Field[] checkedFields;
+	private FieldTable table;
+	private String unknownMember;
+
+	StructureCodec(ShapeId shapeId) {
+		this.shapeId = shapeId;
+	}
+
+	/**
+	 * Sets the fields of the structure. Codecs are created before their fields,
+	 * so that recursive shapes can refer to them.
+	 *
+	 * @param unknownMember name of the {@code @jsonUnknown} member, if any.
+	 */
+	void initialize(List<Field> fields, String unknownMember) {
+		this.fields = fields.toArray(new Field[0]);
+		final byte[][] names = new byte[this.fields.length][];
+		final List<Field> checked = new ArrayList<>();
+		for (int i = 0; i < names.length; i++) {
+			names[i] = this.fields[i].jsonName;
+			if (this.fields[i].required || this.fields[i].defaultNode != null) {
+				checked.add(this.fields[i]);
+			}
+		}
+		this.table = new FieldTable(names);
+		this.checkedFields = checked.toArray(new Field[0]);
+		this.unknownMember = unknownMember;
+	}
+
+	/**
+	 * Returns the JSON names of the fields that are required and have no
+	 * default value: decoding an object lacking one of them fails.
+	 */
+	List<byte[]> requiredNames() {
+		final List<byte[]> names = new ArrayList<>();
+		for (Field field : checkedFields) {
+			if (field.required && field.defaultNode == null) {
+				names.add(field.jsonName);
+			}
+		}
+		return names;
+	}
+
+	/**
+	 * Decodes the default values of the fields. This happens once every codec
+	 * of the closure has been initialized, as defaults may be collections of
+	 * aggregate shapes.
+	 */
+	void resolveDefaults() {
+		for (Field field : checkedFields) {
+			if (field.defaultNode != null) {
+				final JsonWriter writer = new JsonWriter(64);
+				writer.writeNode(field.defaultNode);
+				final Object value = field.codec.decode(new JsonReader(writer.toByteArray()));
+				field.defaultValue = immutable(value);
+			}
+		}
+	}
+
+	private static Object immutable(Object value) {
+		if (value instanceof List) {
+			return Collections.unmodifiableList((List<?>) value);
+		} else if (value instanceof Map && !(value instanceof OrderedMap)) {
+			return Collections.unmodifiableMap((Map<?, ?>) value);
+		}
+		return value;
+	}
+
+	@Override
+	int kinds() {
+		return OBJECT;
+	}
+
+	/**
+	 * Fields of an object being decoded.
+	 */
+	static final class DecodedFields {
+		final Map<String, Object> values = new HashMap<>();
+		// copy of the unknown fields, if they are retained
+		JsonWriter unknown;
+	}
+
+	@Override
+	Object decode(JsonReader in) {
+		final DecodedFields fields = new DecodedFields();
+		if (in.beginObject()) {
+			do {
+				in.readKey();
+				decodeField(in, fields);
+			} while (in.nextField());
+		}
+		return completeFields(in, fields);
+	}
+
+	/**
+	 * Decodes the value of the field whose key was just read, for codecs reading
+	 * the keys of the object themselves.
+	 */
+	void decodeField(JsonReader in, DecodedFields decoded) {
+		final int index = table.find(in);
+		if (index < 0) {
+			if (unknownMember == null) {
+				in.skipValue();
+			} else {
+				if (decoded.unknown == null) {
+					decoded.unknown = new JsonWriter(64);
+				} else {
+					decoded.unknown.writeByte(',');
+				}
+				final int start = in.keyPosition();
+				in.skipValue();
+				in.copySince(start, decoded.unknown);
+			}
+			return;
+		}
+		final Field field = fields[index];
+		if (in.readNullIf()) {
+			if (field.nullable) {
+				decoded.values.put(field.name, null);
+			}
+		} else {
+			decoded.values.put(field.name, field.codec.decode(in));
+		}
+	}
+
+	/**
+	 * Returns the decoded fields, completed with the default values of the
+	 * missing ones, after checking that required fields are present.
+	 */
+	Map<String, Object> completeFields(JsonReader in, DecodedFields decoded) {
+		final Map<String, Object> result = decoded.values;
+		if (decoded.unknown != null) {
+			result.put(unknownMember, new UnknownFields(decoded.unknown.toByteArray(), in.maxDepth()));
+		}
+		for (Field field : checkedFields) {
+			if (!result.containsKey(field.name)) {
+				if (field.defaultValue != null) {
+					result.put(field.name, field.defaultValue);
+				} else if (field.required) {
+					throw in.error("missing required member " + field.name + " of " + shapeId);
+				}
+			}
+		}
+		return result;
+	}
+
+	@Override
+	void encode(Object value, JsonWriter out) {
+		out.writeByte('{');
+		encodeFields(value, out, true);
+		out.writeByte('}');
+	}
+
+	/**
+	 * Writes the fields of a structure value, without the enclosing braces.
+	 *
+	 * @param first whether no field has been written to the object yet.
+	 */
+	void encodeFields(Object value, JsonWriter out, boolean first) {
+		if (!(value instanceof Map)) {
+			throw unexpectedValue("a map of members for " + shapeId, value);
+		}
+		final Map<?, ?> members = (Map<?, ?>) value;
+		for (Field field : fields) {
+			final Object member = members.get(field.name);
+			if (member == null) {
+				if (field.nullable && members.containsKey(field.name)) {
+					first = writeSeparator(out, first);
+					out.writeRaw(field.encodedName);
+					out.writeNull();
+				} else if (field.required && field.defaultNode == null) {
+					throw new JsonCodecException("missing required member " + field.name + " of " + shapeId);
+				}
+				continue;
+			}
+			first = writeSeparator(out, first);
+			out.writeRaw(field.encodedName);
+			field.codec.encode(member, out);
+		}
+		if (unknownMember != null) {
+			final Object unknown = members.get(unknownMember);
+			if (unknown instanceof UnknownFields) {
+				((UnknownFields) unknown).writeTo(out, first);
+			} else if (unknown instanceof Map) {
+				for (Map.Entry<?, ?> entry : ((Map<?, ?>) unknown).entrySet()) {
+					first = writeSeparator(out, first);
+					out.writeString(entry.getKey().toString());
+					out.writeByte(':');
+					if (entry.getValue() == null) {
+						out.writeNull();
+					} else {
+						ScalarCodecs.DOCUMENT.encode(entry.getValue(), out);
+					}
+				}
+			} else if (unknown != null) {
+				throw unexpectedValue("a map of unknown fields for " + shapeId, unknown);
+			}
+		}
+	}
+
+	private static boolean writeSeparator(JsonWriter out, boolean first) {
+		if (!first) {
+			out.writeByte(',');
+		}
+		return false;
+	}
+}
@@ -0,0 +1,122 @@
+/* Copyright 2022 Disney Streaming
+ *
+ * Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package alloy.json;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import software.amazon.smithy.model.shapes.ShapeId;
+
+/**
+ * Codec of a union encoded as an object with a single field, named after the
+ * member that is set. This is the default encoding of unions.
+ *
+ * If the union has a {@code @jsonUnknown} member, objects with an unknown field
+ * name are decoded into it as a whole.
+ */
+final class TaggedUnionCodec extends Codec {
+
+	static final class Member {
+		final String name;
+		final byte[] jsonName;
+		final byte[] encodedName;
+		final Codec codec;
+
+		Member(String name, String jsonName, Codec codec) {
+			this.name = name;
+			this.jsonName = jsonName.getBytes(StandardCharsets.UTF_8);
+			this.encodedName = JsonWriter.encodeFieldName(jsonName);
+			this.codec = codec;
+		}
+	}
+
+	private final ShapeId shapeId;
+	private Member[] members;
+	private Map<String, Member> membersByName;
+	private FieldTable table;
+	private String unknownMember;
+
+	TaggedUnionCodec(ShapeId shapeId) {
+		this.shapeId = shapeId;
+	}
+
+	void initialize(List<Member> members, String unknownMember) {
+		this.members = members.toArray(new Member[0]);
+		this.membersByName = new HashMap<>();
+		final byte[][] names = new byte[this.members.length][];
+		for (int i = 0; i < names.length; i++) {
+			names[i] = this.members[i].jsonName;
+			membersByName.put(this.members[i].name, this.members[i]);
+		}
+		this.table = new FieldTable(names);
+		this.unknownMember = unknownMember;
+	}
+
+	@Override
+	int kinds() {
+		return OBJECT;
+	}
+
+	@Override
+	Object decode(JsonReader in) {
+		in.peek();
+		final int start = in.position();
+		final int depth = in.depth();
+		if (!in.beginObject()) {
+			throw in.error("expected a member of " + shapeId);
+		}
+		in.readKey();
+		final int index = table.find(in);
+		if (index < 0) {
+			if (unknownMember == null) {
+				throw in.error("unknown member " + in.keyString() + " of " + shapeId);
+			}
+			in.reset(start, depth);
+			return new UnionValue(unknownMember, in.readDocument());
+		}
+		final Member member = members[index];
+		if (in.readNullIf()) {
+			throw in.error("null value for member " + member.name + " of " + shapeId);
+		}
+		final Object value = member.codec.decode(in);
+		if (in.nextField()) {
+			throw in.error("expected a single member of " + shapeId);
+		}
+		return new UnionValue(member.name, value);
+	}
+
+	@Override
+	void encode(Object value, JsonWriter out) {
+		if (!(value instanceof UnionValue)) {
+			throw unexpectedValue("a union value for " + shapeId, value);
+		}
+		final UnionValue union = (UnionValue) value;
+		if (union.getMember().equals(unknownMember)) {
+			ScalarCodecs.DOCUMENT.encode(union.getValue(), out);
+			return;
+		}
+		final Member member = membersByName.get(union.getMember());
+		if (member == null) {
+			throw new JsonCodecException("unknown member " + union.getMember() + " of " + shapeId);
+		}
+		out.writeByte('{');
+		out.writeRaw(member.encodedName);
+		member.codec.encode(union.getValue(), out);
+		out.writeByte('}');
+	}
+}
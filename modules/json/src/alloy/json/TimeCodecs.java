@@ -0,0 +1,305 @@
+/* Copyright 2022 Disney Streaming
+ *
+ * Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package alloy.json;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.MonthDay;
+import java.time.OffsetDateTime;
+import java.time.OffsetTime;
+import java.time.Year;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Codecs of timestamps and of the alloy date/time format traits, decoding to
+ * {@code java.time} values.
+ */
+final class TimeCodecs {
+	static final Codec LOCAL_DATE = new FormattedStringCodec<>(LocalDate.class, "a date", LocalDate::parse,
+			LocalDate::toString);
+	static final Codec LOCAL_TIME = new FormattedStringCodec<>(LocalTime.class, "a local time", LocalTime::parse,
+			DateTimeFormatter.ISO_LOCAL_TIME::format);
+	static final Codec LOCAL_DATE_TIME = new FormattedStringCodec<>(LocalDateTime.class, "a local date-time",
+			LocalDateTime::parse, DateTimeFormatter.ISO_LOCAL_DATE_TIME::format);
+	static final Codec OFFSET_TIME = new FormattedStringCodec<>(OffsetTime.class, "an offset time",
+			OffsetTime::parse, DateTimeFormatter.ISO_OFFSET_TIME::format);
+	static final Codec ZONED_DATE_TIME = new FormattedStringCodec<>(ZonedDateTime.class, "a zoned date-time",
+			ZonedDateTime::parse, DateTimeFormatter.ISO_ZONED_DATE_TIME::format);
+	static final Codec ZONE_ID = new FormattedStringCodec<>(ZoneId.class, "a zone id", ZoneId::of, ZoneId::getId);
+	static final Codec ZONE_OFFSET = new FormattedStringCodec<>(ZoneOffset.class, "a zone offset", ZoneOffset::of,
+			ZoneOffset::getId);
+	static final Codec YEAR_MONTH = new FormattedStringCodec<>(YearMonth.class, "a year-month", YearMonth::parse,
+			YearMonth::toString);
+	// MonthDay uses the --MM-dd ISO form, alloy the MM-dd one
+	static final Codec MONTH_DAY = new FormattedStringCodec<>(MonthDay.class, "a month-day",
+			value -> MonthDay.parse("--" + value), value -> value.toString().substring(2));
+	static final Codec UUID = new FormattedStringCodec<>(java.util.UUID.class, "a uuid", java.util.UUID::fromString,
+			java.util.UUID::toString);
+	static final Codec YEAR = new YearCodec();
+	static final Codec DURATION_SECONDS = new DurationSecondsCodec();
+	static final Codec EPOCH_SECONDS = new EpochSecondsCodec();
+	static final Codec DATE_TIME = new FormattedStringCodec<>(Instant.class, "a date-time",
+			TimeCodecs::parseDateTime, DateTimeFormatter.ISO_INSTANT::format);
+	static final Codec HTTP_DATE = new FormattedStringCodec<>(Instant.class, "an http-date",
+			value -> Instant.from(DateTimeFormatter.RFC_1123_DATE_TIME.parse(value)),
+			DateTimeFormatter.ofPattern("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US).withZone(ZoneOffset.UTC)::format);
+	static final Codec OFFSET_DATE_TIME = new FormattedStringCodec<>(OffsetDateTime.class, "a date-time",
+			OffsetDateTime::parse, DateTimeFormatter.ISO_OFFSET_DATE_TIME::format);
+
+	private TimeCodecs() {
+	}
+
+	private static final class FormattedStringCodec<A> extends Codec {
+		private final Class<A> type;
+		private final String expected;
+		private final Function<String, A> parse;
+		private final Function<A, String> print;
+
+		FormattedStringCodec(Class<A> type, String expected, Function<String, A> parse, Function<A, String> print) {
+			this.type = type;
+			this.expected = expected;
+			this.parse = parse;
+			this.print = print;
+		}
+
+		@Override
+		int kinds() {
+			return STRING;
+		}
+
+		@Override
+		Object decode(JsonReader in) {
+			final int start = in.position();
+			final String value = in.readString();
+			try {
+				return parse.apply(value);
+			} catch (DateTimeException | IllegalArgumentException e) {
+				in.reset(start);
+				throw in.error("expected " + expected + ", got " + value);
+			}
+		}
+
+		@Override
+		void encode(Object value, JsonWriter out) {
+			if (type == Instant.class && value instanceof TemporalAccessor) {
+				value = toInstant((TemporalAccessor) value);
+			}
+			if (!type.isInstance(value)) {
+				throw unexpectedValue(expected, value);
+			}
+			out.writeString(print.apply(type.cast(value)));
+		}
+	}
+
+	/**
+	 * Years annotated with {@code @yearFormat}, encoded as integers.
+	 */
+	private static final class YearCodec extends Codec {
+		@Override
+		int kinds() {
+			return NUMBER;
+		}
+
+		@Override
+		Object decode(JsonReader in) {
+			final int start = in.position();
+			final int value = in.readInt(Integer.MIN_VALUE, Integer.MAX_VALUE);
+			try {
+				return Year.of(value);
+			} catch (DateTimeException e) {
+				in.reset(start);
+				throw in.error("year out of range");
+			}
+		}
+
+		@Override
+		void encode(Object value, JsonWriter out) {
+			if (!(value instanceof Year)) {
+				throw unexpectedValue("a year", value);
+			}
+			out.writeLong(((Year) value).getValue());
+		}
+	}
+
+	/**
+	 * Parses a {@code date-time} timestamp, reading the common
+	 * {@code yyyy-MM-ddTHH:mm:ss[.fraction](Z|+HH:mm)} form directly and leaving
+	 * other forms to {@link OffsetDateTime#parse}, which is much slower.
+	 */
+	static Instant parseDateTime(String value) {
+		final int length = value.length();
+		if (length < 20 || length > 35 || value.charAt(4) != '-' || value.charAt(7) != '-' || value.charAt(10) != 'T'
+				|| value.charAt(13) != ':' || value.charAt(16) != ':') {
+			return OffsetDateTime.parse(value).toInstant();
+		}
+		final int year = digits(value, 0, 4);
+		final int month = digits(value, 5, 2);
+		final int day = digits(value, 8, 2);
+		final int hour = digits(value, 11, 2);
+		final int minute = digits(value, 14, 2);
+		final int second = digits(value, 17, 2);
+		int i = 19;
+		int nanos = 0;
+		if (value.charAt(i) == '.') {
+			int scale = 100_000_000;
+			while (++i < length && value.charAt(i) >= '0' && value.charAt(i) <= '9' && scale > 0) {
+				nanos += (value.charAt(i) - '0') * scale;
+				scale /= 10;
+			}
+			if (scale == 100_000_000) {
+				return OffsetDateTime.parse(value).toInstant();
+			}
+		}
+		final int offsetSeconds;
+		if (i == length - 1 && value.charAt(i) == 'Z') {
+			offsetSeconds = 0;
+		} else if (i == length - 6 && (value.charAt(i) == '+' || value.charAt(i) == '-')
+				&& value.charAt(i + 3) == ':') {
+			final int offsetHours = digits(value, i + 1, 2);
+			final int offsetMinutes = digits(value, i + 4, 2);
+			if (offsetHours < 0 || offsetHours > 18 || offsetMinutes < 0 || offsetMinutes > 59) {
+				return OffsetDateTime.parse(value).toInstant();
+			}
+			final int offset = offsetHours * 3600 + offsetMinutes * 60;
+			offsetSeconds = value.charAt(i) == '-' ? -offset : offset;
+		} else {
+			return OffsetDateTime.parse(value).toInstant();
+		}
+		if (year < 0 || month < 0 || day < 0 || hour < 0 || minute < 0 || second < 0 || offsetSeconds < -64800
+				|| offsetSeconds > 64800) {
+			// let the standard parser report the invalid field
+			return OffsetDateTime.parse(value).toInstant();
+		}
+		// LocalDate and LocalTime validate the ranges of the fields
+		final long epochDay = LocalDate.of(year, month, day).toEpochDay();
+		final long secondOfDay = LocalTime.of(hour, minute, second).toSecondOfDay();
+		return Instant.ofEpochSecond(epochDay * 86400 + secondOfDay - offsetSeconds, nanos);
+	}
+
+	/**
+	 * Returns the value of {@code count} decimal digits, or -1 if one of the
+	 * characters is not a digit.
+	 */
+	private static int digits(String value, int offset, int count) {
+		int result = 0;
+		for (int i = offset; i < offset + count; i++) {
+			final char c = value.charAt(i);
+			if (c < '0' || c > '9') {
+				return -1;
+			}
+			result = result * 10 + (c - '0');
+		}
+		return result;
+	}
+
+	private static Instant toInstant(BigDecimal seconds) {
+		final BigDecimal whole = seconds.setScale(0, RoundingMode.FLOOR);
+		final int nanos = seconds.subtract(whole).movePointRight(9).intValue();
+		return Instant.ofEpochSecond(whole.longValueExact(), nanos);
+	}
+
+	private static Instant toInstant(TemporalAccessor value) {
+		try {
+			return Instant.from(value);
+		} catch (DateTimeException e) {
+			throw new JsonCodecException("expected an instant, got " + value);
+		}
+	}
+
+	private static void writeSeconds(long seconds, int nanos, JsonWriter out) {
+		if (nanos == 0) {
+			out.writeLong(seconds);
+		} else {
+			out.writeAscii(BigDecimal.valueOf(seconds).add(BigDecimal.valueOf(nanos, 9)).stripTrailingZeros()
+					.toPlainString());
+		}
+	}
+
+	/**
+	 * Durations annotated with {@code @durationSecondsFormat}, encoded as a
+	 * number of seconds with up to nanosecond precision.
+	 */
+	private static final class DurationSecondsCodec extends Codec {
+		@Override
+		int kinds() {
+			return NUMBER;
+		}
+
+		@Override
+		Object decode(JsonReader in) {
+			final int start = in.position();
+			try {
+				final Instant instant = toInstant(in.readBigDecimal());
+				return Duration.ofSeconds(instant.getEpochSecond(), instant.getNano());
+			} catch (ArithmeticException | DateTimeException e) {
+				in.reset(start);
+				throw in.error("duration out of range");
+			}
+		}
+
+		@Override
+		void encode(Object value, JsonWriter out) {
+			if (!(value instanceof Duration)) {
+				throw unexpectedValue("a duration", value);
+			}
+			final Duration duration = (Duration) value;
+			writeSeconds(duration.getSeconds(), duration.getNano(), out);
+		}
+	}
+
+	/**
+	 * Timestamps in the {@code epoch-seconds} format, the default one in JSON.
+	 */
+	private static final class EpochSecondsCodec extends Codec {
+		@Override
+		int kinds() {
+			return NUMBER;
+		}
+
+		@Override
+		Object decode(JsonReader in) {
+			final int start = in.position();
+			try {
+				return toInstant(in.readBigDecimal());
+			} catch (ArithmeticException | DateTimeException e) {
+				in.reset(start);
+				throw in.error("timestamp out of range");
+			}
+		}
+
+		@Override
+		void encode(Object value, JsonWriter out) {
+			if (!(value instanceof TemporalAccessor)) {
+				throw unexpectedValue("an instant", value);
+			}
+			final Instant instant = toInstant((TemporalAccessor) value);
+			writeSeconds(instant.getEpochSecond(), instant.getNano(), out);
+		}
+	}
+}
@@ -0,0 +1,64 @@
+/* Copyright 2022 Disney Streaming
+ *
+ * Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package alloy.json;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Value of a union shape: the name of the member that is set, and its value.
+ */
+public final class UnionValue {
+	private final String member;
+	private final Object value;
+
+	public UnionValue(String member, Object value) {
+		this.member = Objects.requireNonNull(member, "member");
+		this.value = Objects.requireNonNull(value, "value");
+	}
+
+	/**
+	 * Returns the name of the member that is set.
+	 */
+	public String getMember() {
+		return member;
+	}
+
+	public Object getValue() {
+		return value;
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (this == other) {
+			return true;
+		} else if (!(other instanceof UnionValue)) {
+			return false;
+		}
+		final UnionValue that = (UnionValue) other;
+		return member.equals(that.member) && Objects.deepEquals(value, that.value);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * member.hashCode() + Arrays.deepHashCode(new Object[] { value });
+	}
+
+	@Override
+	public String toString() {
+		return "UnionValue(" + member + ", " + value + ")";
+	}
+}
@@ -0,0 +1,134 @@
+/* Copyright 2022 Disney Streaming
+ *
+ * Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package alloy.json;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import software.amazon.smithy.model.node.Node;
+
+/**
+ * Fields of a JSON object that a structure with a {@code @jsonUnknown} member
+ * does not define, as an immutable map from field names to values.
+ *
+ * Decoded fields are kept as a copy of the bytes they were read from, and are
+ * written back as they are when the structure is encoded again, so that values
+ * passed through are not parsed into {@link Node}s nor printed again. They are
+ * only parsed when the map is first accessed, with the maximum nesting depth of
+ * the codec that decoded them. Duplicate fields are written back as they are,
+ * and the last one wins in the map.
+ */
+public final class UnknownFields extends AbstractMap<String, Node> {
+	private static final UnknownFields EMPTY = new UnknownFields(new byte[0], Collections.emptyMap());
+
+	// the fields, separated by commas, without the enclosing braces
+	private final byte[] json;
+	private final int maxDepth;
+	private volatile Map<String, Node> fields;
+
+	UnknownFields(byte[] json, int maxDepth) {
+		this.json = json;
+		this.maxDepth = maxDepth;
+	}
+
+	private UnknownFields(byte[] json, Map<String, Node> fields) {
+		this(json, JsonCodec.DEFAULT_MAX_DEPTH);
+		this.fields = fields;
+	}
+
+	/**
+	 * Returns the unknown fields holding the given values.
+	 */
+	public static UnknownFields of(Map<String, Node> fields) {
+		if (fields instanceof UnknownFields) {
+			return (UnknownFields) fields;
+		} else if (fields.isEmpty()) {
+			return EMPTY;
+		}
+		final JsonWriter out = new JsonWriter(64);
+		final Map<String, Node> copy = new LinkedHashMap<>();
+		for (Map.Entry<String, Node> field : fields.entrySet()) {
+			if (out.size() > 0) {
+				out.writeByte(',');
+			}
+			final Node value = field.getValue() == null ? Node.nullNode() : field.getValue();
+			out.writeString(field.getKey());
+			out.writeByte(':');
+			out.writeNode(value);
+			copy.put(field.getKey(), value);
+		}
+		// the values are already at hand, and need not be parsed back
+		return new UnknownFields(out.toByteArray(), Collections.unmodifiableMap(copy));
+	}
+
+	/**
+	 * Writes the fields, preceded by a comma unless {@code first} is set.
+	 *
+	 * @return whether no field has been written to the object yet.
+	 */
+	boolean writeTo(JsonWriter out, boolean first) {
+		if (json.length == 0) {
+			return first;
+		}
+		if (!first) {
+			out.writeByte(',');
+		}
+		out.writeRaw(json);
+		return false;
+	}
+
+	private Map<String, Node> fields() {
+		Map<String, Node> result = fields;
+		if (result == null) {
+			final byte[] object = new byte[json.length + 2];
+			object[0] = '{';
+			System.arraycopy(json, 0, object, 1, json.length);
+			object[object.length - 1] = '}';
+			final JsonReader in = new JsonReader(object, 0, object.length, maxDepth);
+			result = Collections.unmodifiableMap(in.readDocument().expectObjectNode().getStringMap());
+			fields = result;
+		}
+		return result;
+	}
+
+	@Override
+	public Set<Map.Entry<String, Node>> entrySet() {
+		return fields().entrySet();
+	}
+
+	@Override
+	public int size() {
+		return fields().size();
+	}
+
+	@Override
+	public Node get(Object key) {
+		return fields().get(key);
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return fields().containsKey(key);
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return json.length == 0;
+	}
+}
@@ -0,0 +1,245 @@
+/* Copyright 2022 Disney Streaming
+ *
+ * Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package alloy.json;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import software.amazon.smithy.model.shapes.ShapeId;
+
+/**
+ * Codec of a union annotated with {@code @untagged}: the value of the member
+ * that is set is encoded as is.
+ *
+ * Decoding picks the first member, in order, that decodes the value. Document
+ * members accept any value, so they come last. Rather than trying every member
+ * in turn, the members are first narrowed down using their signature: the
+ * kinds of JSON values they accept and, for structures, the fields they
+ * require. The kind of value is given by its first byte, and the required
+ * fields that are present by a single scan of the keys of the object, which is
+ * only needed when several members accept objects. Members are then tried in
+ * order only when more than one signature matches.
+ */
+final class UntaggedUnionCodec extends Codec {
+
+	static final class Member {
+		final String name;
+		final Codec codec;
+
+		Member(String name, Codec codec) {
+			this.name = name;
+			this.codec = codec;
+		}
+	}
+
+	/**
+	 * Members narrowed down by the kind of value they accept and by the fields
+	 * they require.
+	 */
+	private static final class Signatures {
+		// candidates for each kind of value, indexed by the bit of the kind
+		final Member[][] candidates;
+		// required field names of the object candidates, or null if there are
+		// none or too many of them to be tracked in a mask
+		final FieldTable requiredNames;
+		// for each object candidate, the mask of its required field names
+		final long[] requiredMasks;
+
+		Signatures(Member[][] candidates, FieldTable requiredNames, long[] requiredMasks) {
+			this.candidates = candidates;
+			this.requiredNames = requiredNames;
+			this.requiredMasks = requiredMasks;
+		}
+
+		/**
+		 * Returns the mask of the required field names that the object contains,
+		 * consuming the object.
+		 */
+		long scanRequiredNames(JsonReader in) {
+			long present = 0;
+			if (in.beginObject()) {
+				do {
+					in.readKey();
+					final int index = requiredNames.find(in);
+					if (index >= 0) {
+						present |= 1L << index;
+					}
+					in.skipValue();
+				} while (in.nextField());
+			}
+			return present;
+		}
+	}
+
+	private final ShapeId shapeId;
+	private Member[] members;
+	private Map<String, Member> membersByName;
+	private int kinds;
+	private Signatures signatures;
+
+	UntaggedUnionCodec(ShapeId shapeId) {
+		this.shapeId = shapeId;
+	}
+
+	/**
+	 * @param members members in the order in which they are tried.
+	 */
+	void initialize(List<Member> members) {
+		this.members = members.toArray(new Member[0]);
+		this.membersByName = new HashMap<>();
+		for (Member member : members) {
+			membersByName.put(member.name, member);
+		}
+	}
+
+	@Override
+	int kinds() {
+		return kinds;
+	}
+
+	/**
+	 * Computes the kinds of values the union accepts, once the codecs of its
+	 * members are initialized. Untagged unions compiled together must all have
+	 * their kinds resolved before their signatures are computed.
+	 */
+	void resolveKinds() {
+		this.kinds = kindsOf(new HashSet<>());
+	}
+
+	// untagged unions may refer to each other without an aggregate in between
+	private int kindsOf(Set<UntaggedUnionCodec> visiting) {
+		if (!visiting.add(this)) {
+			return ANY;
+		}
+		int result = 0;
+		for (Member member : members) {
+			if (member.codec instanceof UntaggedUnionCodec) {
+				result |= ((UntaggedUnionCodec) member.codec).kindsOf(visiting);
+			} else {
+				result |= member.codec.kinds();
+			}
+		}
+		visiting.remove(this);
+		return result;
+	}
+
+	/**
+	 * Narrows the members down by signature, once the kinds of the untagged
+	 * unions they may refer to are resolved.
+	 */
+	void resolveSignatures() {
+		this.signatures = computeSignatures();
+	}
+
+	private Signatures computeSignatures() {
+		final Member[][] candidates = new Member[Integer.bitCount(ANY)][];
+		for (int bit = 0; bit < candidates.length; bit++) {
+			final List<Member> accepting = new ArrayList<>();
+			for (Member member : members) {
+				if ((member.codec.kinds() & (1 << bit)) != 0) {
+					accepting.add(member);
+				}
+			}
+			candidates[bit] = accepting.toArray(new Member[0]);
+		}
+
+		final Member[] objectCandidates = candidates[Integer.numberOfTrailingZeros(OBJECT)];
+		final Map<String, Integer> indices = new LinkedHashMap<>();
+		final long[] masks = new long[objectCandidates.length];
+		for (int i = 0; i < objectCandidates.length; i++) {
+			if (objectCandidates[i].codec instanceof StructureCodec) {
+				for (byte[] name : ((StructureCodec) objectCandidates[i].codec).requiredNames()) {
+					final String key = new String(name, StandardCharsets.UTF_8);
+					Integer index = indices.get(key);
+					if (index == null) {
+						index = indices.size();
+						indices.put(key, index);
+					}
+					masks[i] |= 1L << index;
+				}
+			}
+		}
+		if (indices.isEmpty() || indices.size() > Long.SIZE) {
+			return new Signatures(candidates, null, new long[objectCandidates.length]);
+		}
+		final byte[][] names = new byte[indices.size()][];
+		for (Map.Entry<String, Integer> entry : indices.entrySet()) {
+			names[entry.getValue()] = entry.getKey().getBytes(StandardCharsets.UTF_8);
+		}
+		return new Signatures(candidates, new FieldTable(names), masks);
+	}
+
+	@Override
+	Object decode(JsonReader in) {
+		final int kind = kindOf(in.peek());
+		final int start = in.position();
+		final int depth = in.depth();
+		final Member[] candidates = signatures.candidates[Integer.numberOfTrailingZeros(kind)];
+		long present = -1L;
+		if (kind == OBJECT && candidates.length > 1 && signatures.requiredNames != null) {
+			present = signatures.scanRequiredNames(in);
+			in.reset(start, depth);
+		}
+
+		int last = -1;
+		for (int i = 0; i < candidates.length; i++) {
+			if (matches(signatures, kind, i, present)) {
+				last = i;
+			}
+		}
+		if (last < 0) {
+			throw in.error("no member of " + shapeId + " matches the value");
+		}
+		for (int i = 0; i < last; i++) {
+			if (matches(signatures, kind, i, present)) {
+				try {
+					return new UnionValue(candidates[i].name, candidates[i].codec.decode(in));
+				} catch (JsonCodecException e) {
+					in.reset(start, depth);
+				}
+			}
+		}
+		// the last candidate reports its own failure
+		return new UnionValue(candidates[last].name, candidates[last].codec.decode(in));
+	}
+
+	private static boolean matches(Signatures signatures, int kind, int candidate, long present) {
+		if (kind != OBJECT) {
+			return true;
+		}
+		final long required = signatures.requiredMasks[candidate];
+		return (required & present) == required;
+	}
+
+	@Override
+	void encode(Object value, JsonWriter out) {
+		if (!(value instanceof UnionValue)) {
+			throw unexpectedValue("a union value for " + shapeId, value);
+		}
+		final UnionValue union = (UnionValue) value;
+		final Member member = membersByName.get(union.getMember());
+		if (member == null) {
+			throw new JsonCodecException("unknown member " + union.getMember() + " of " + shapeId);
+		}
+		member.codec.encode(union.getValue(), out);
+	}
+}
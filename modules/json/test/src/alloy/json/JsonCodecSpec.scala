@@ -0,0 +1,912 @@
+/* Copyright 2022 Disney Streaming
+ *
+ * Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package alloy.json
+
+import software.amazon.smithy.model.Model
+import software.amazon.smithy.model.node.Node
+import software.amazon.smithy.model.node.ObjectNode
+import software.amazon.smithy.model.shapes.MemberShape
+import software.amazon.smithy.model.shapes.ShapeId
+import software.amazon.smithy.model.shapes.StructureShape
+import software.amazon.smithy.model.traits._
+import software.amazon.smithy.model.transform.ModelTransformer
+
+import java.math.BigDecimal
+import java.nio.charset.StandardCharsets
+import java.time._
+import java.util.UUID
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+import java.util.regex.Pattern
+import scala.jdk.CollectionConverters._
+import scala.jdk.OptionConverters._
+
+final class JsonCodecSpec extends munit.FunSuite {
+
+  private lazy val protocolTestsModel: Model =
+    Model.assembler().discoverModels().assemble().unwrap()
+
+  private val simpleRestJson = ShapeId.from("alloy#simpleRestJson")
+  private val restJson1 = ShapeId.from("aws.protocols#restJson1")
+  private val httpRequestTests = ShapeId.from("smithy.test#httpRequestTests")
+  private val httpResponseTests = ShapeId.from("smithy.test#httpResponseTests")
+
+  // traits binding members outside of the body, for requests and responses
+  private val requestBindings: List[Class[_ <: Trait]] = List(
+    classOf[HttpHeaderTrait],
+    classOf[HttpLabelTrait],
+    classOf[HttpQueryTrait],
+    classOf[HttpQueryParamsTrait],
+    classOf[HttpPrefixHeadersTrait]
+  )
+  private val responseBindings: List[Class[_ <: Trait]] = List(
+    classOf[HttpHeaderTrait],
+    classOf[HttpPrefixHeadersTrait],
+    classOf[HttpResponseCodeTrait]
+  )
+
+  /** Values in the representation used by the params of the protocol tests:
+    * timestamps as epoch seconds, blobs as (utf-8) strings, and unions as
+    * single-field objects.
+    */
+  private def toParams(value: Any): Node = value match {
+    case null                     => Node.nullNode()
+    case node: Node               => node
+    case union: UnionValue        =>
+      Node.objectNode().withMember(union.getMember, toParams(union.getValue))
+    case map: java.util.Map[_, _] =>
+      Node.objectNode(
+        map.asScala.map { case (k, v) =>
+          Node.from(k.toString) -> toParams(v)
+        }.asJava
+      )
+    case list: java.util.List[_] =>
+      Node.fromNodes(list.asScala.map(toParams).asJava)
+    case string: String           => Node.from(string)
+    case boolean: java.lang.Boolean => Node.from(boolean.booleanValue)
+    case instant: Instant         => Node.from(seconds(instant))
+    case dateTime: OffsetDateTime => Node.from(seconds(dateTime.toInstant))
+    case duration: Duration       =>
+      Node.from(
+        BigDecimal
+          .valueOf(duration.getSeconds)
+          .add(BigDecimal.valueOf(duration.getNano.toLong, 9))
+      )
+    case bytes: Array[Byte] => Node.from(new String(bytes, StandardCharsets.UTF_8))
+    case number: Number     => Node.from(number)
+    case other              => Node.from(other.toString)
+  }
+
+  private def seconds(instant: Instant): BigDecimal =
+    BigDecimal
+      .valueOf(instant.getEpochSecond)
+      .add(BigDecimal.valueOf(instant.getNano.toLong, 9))
+
+  /** Normalizes numbers, so that 9, 9.0 and 9.0f compare equal. */
+  private def canonical(node: Node): Node =
+    if (node.isNumberNode)
+      Node.from(
+        new BigDecimal(node.expectNumberNode.getValue.toString)
+          .stripTrailingZeros()
+      )
+    else if (node.isObjectNode)
+      Node.objectNode(
+        node.expectObjectNode.getMembers.asScala.map { case (k, v) =>
+          k -> canonical(v)
+        }.asJava
+      )
+    else if (node.isArrayNode)
+      Node.fromNodes(
+        node.expectArrayNode.getElements.asScala.map(canonical).asJava
+      )
+    else node
+
+  /** Whether a restJson1 protocol test, given its id and type (request or
+    * response), is borrowed by simpleRestJson, per the
+    * `alloySimpleRestJsonBorrowedTests` metadata of the protocol tests: its id
+    * matches a pattern of the allow list, and no entry of the disallow list
+    * applying to its type of test.
+    */
+  private def borrowedTests(model: Model): (String, String) => Boolean = {
+    val lists = model
+      .getMetadataProperty("alloySimpleRestJsonBorrowedTests")
+      .toScala
+      .flatMap(_.expectObjectNode.getObjectMember(restJson1.toString).toScala)
+    def entries(list: String) = lists.toList
+      .flatMap(_.getArrayMember(list).toScala.toList)
+      .flatMap(_.getElements.asScala.map(_.expectObjectNode))
+    val allowed = entries("allowList")
+    val disallowed = entries("disallowList")
+    // ids of the lists may use `*` as a wildcard
+    def matches(id: String, testType: String)(entry: ObjectNode) = {
+      val pattern = entry
+        .expectStringMember("id")
+        .getValue
+        .split("\\*+", -1)
+        .map(Pattern.quote)
+        .mkString(".*")
+      id.matches(pattern) &&
+      entry.getStringMember("testType").toScala.forall(_.getValue == testType)
+    }
+    (id, testType) =>
+      allowed.exists(matches(id, testType)) &&
+        !disallowed.exists(matches(id, testType))
+  }
+
+  // every simpleRestJson protocol test with a JSON body, and every restJson1
+  // one borrowed by simpleRestJson, as
+  // (id, codec of the body, body, expected params of the body)
+  private lazy val protocolTestCases = {
+    val model = protocolTestsModel
+    val isBorrowed = borrowedTests(model)
+    // members bound to other parts of the http message are not part of the
+    // body, so the codecs are compiled from models without them
+    def bodyCodecs(bindings: List[Class[_ <: Trait]]) = JsonCodecs.of(
+      ModelTransformer
+        .create()
+        .removeShapes(
+          model,
+          model
+            .getMemberShapes()
+            .asScala
+            .filter(m => bindings.exists(m.hasTrait(_)))
+            .asJava
+        )
+    )
+    val requestCodecs = bodyCodecs(requestBindings)
+    val responseCodecs = bodyCodecs(responseBindings)
+    def cases(shapeId: ShapeId, traitId: ShapeId, structureId: ShapeId) = {
+      val (codecs, bindings) =
+        if (traitId == httpRequestTests) (requestCodecs, requestBindings)
+        else (responseCodecs, responseBindings)
+      model
+        .expectShape(shapeId)
+        .findTrait(traitId)
+        .toScala
+        .toList
+        .flatMap(_.toNode.expectArrayNode.getElements.asScala)
+        .map(_.expectObjectNode)
+        .filter { testCase =>
+          val id = testCase.expectStringMember("id").getValue
+          val testType =
+            if (traitId == httpRequestTests) "request" else "response"
+          testCase.expectStringMember("protocol").getValue match {
+            case protocol if protocol == simpleRestJson.toString => true
+            case protocol if protocol == restJson1.toString =>
+              isBorrowed(id, testType)
+            case _ => false
+          }
+        }
+        .flatMap { testCase =>
+          val body =
+            testCase.getStringMemberOrDefault("body", "").trim
+          val params = testCase
+            .getObjectMember("params")
+            .toScala
+            .getOrElse(Node.objectNode())
+          val structure =
+            model.expectShape(structureId, classOf[StructureShape])
+          val members = structure.members.asScala.toList
+          val id = testCase.expectStringMember("id").getValue
+          if (body.isEmpty) Nil
+          else
+            members.find(_.hasTrait(classOf[HttpPayloadTrait])) match {
+              case Some(payload) =>
+                List(
+                  (
+                    id,
+                    codecs.getCodec(payload.getId),
+                    body,
+                    params.expectMember(payload.getMemberName)
+                  )
+                )
+              case None =>
+                val bodyMembers = members
+                  .filterNot(m => bindings.exists(m.hasTrait(_)))
+                  .map(_.getMemberName)
+                  .toSet
+                val expected = params.getMembers.asScala.filter {
+                  case (k, _) => bodyMembers(k.getValue)
+                }
+                List(
+                  (
+                    id,
+                    codecs.getCodec(structureId),
+                    body,
+                    Node.objectNode(expected.asJava): Node
+                  )
+                )
+            }
+        }
+    }
+
+    model
+      .shapes()
+      .iterator()
+      .asScala
+      .toList
+      .sortBy(_.getId)
+      .flatMap { shape =>
+        shape.asOperationShape.toScala match {
+          case Some(operation) =>
+            cases(shape.getId, httpRequestTests, operation.getInputShape) ++
+              cases(shape.getId, httpResponseTests, operation.getOutputShape)
+          case None =>
+            cases(shape.getId, httpResponseTests, shape.getId)
+        }
+      }
+  }
+
+  test("protocol tests with a JSON body are found") {
+    assert(protocolTestCases.size >= 20, protocolTestCases.size)
+  }
+
+  test("restJson1 protocol tests borrowed by simpleRestJson are included") {
+    val ids = protocolTestCases.map(_._1).toSet
+    List(
+      "RestJsonJsonTimestamps",
+      "RestJsonJsonTimestampsWithDateTimeFormat",
+      "RestJsonJsonTimestampsWithHttpDateOnTargetFormat",
+      "RestJsonSerializeStringUnionValue",
+      "RestJsonRecursiveShapes",
+      "RestJsonSimpleScalarProperties"
+    ).foreach(id => assert(ids(id), id))
+    assert(!ids("RestJsonHttpPayloadTraitsWithBlob"))
+  }
+
+  test("decode and re-encode the bodies of the protocol tests") {
+    protocolTestCases.foreach { case (id, codec, body, expected) =>
+      val decoded = codec.decode(body)
+      assertEquals(canonical(toParams(decoded)), canonical(expected), id)
+      val encoded = codec.encodeToString(decoded)
+      assertEquals(Node.parse(encoded), Node.parse(body), s"$id: $encoded")
+    }
+  }
+
+  private lazy val model: Model = Model
+    .assembler()
+    .discoverModels()
+    .addUnparsedModel(
+      "test.smithy",
+      """|$version: "2"
+         |namespace test
+         |
+         |use alloy#dateFormat
+         |use alloy#defaultValue
+         |use alloy#discriminated
+         |use alloy#jsonUnknown
+         |use alloy#nullable
+         |use alloy#openEnum
+         |use alloy#preserveKeyOrder
+         |use alloy#untagged
+         |
+         |structure Foo {
+         |  @nullable
+         |  nullable: Integer
+         |  regular: Integer
+         |  @jsonName("renamed")
+         |  name: String
+         |  @defaultValue("N/A")
+         |  withDefault: String
+         |  @timestampFormat("date-time")
+         |  at: Timestamp
+         |  @dateFormat
+         |  day: String
+         |  blob: Blob
+         |}
+         |
+         |structure Required {
+         |  @required
+         |  id: String
+         |}
+         |
+         |structure Data {
+         |  known: String
+         |  @jsonUnknown
+         |  unknown: UnknownProperties
+         |}
+         |
+         |map UnknownProperties {
+         |  key: String
+         |  value: Document
+         |}
+         |
+         |union Tagged {
+         |  first: String
+         |  second: IntWrapper
+         |}
+         |
+         |@untagged
+         |union Untagged {
+         |  first: String
+         |  second: IntWrapper
+         |}
+         |
+         |@untagged
+         |union Geometry {
+         |  circle: Circle
+         |  rectangle: Rectangle
+         |  square: Square
+         |  label: String
+         |  flag: Boolean
+         |}
+         |
+         |@untagged
+         |union OpenGeometry {
+         |  other: Document
+         |  circle: Circle
+         |}
+         |
+         |@discriminated("kind")
+         |union DiscriminatedGeometry {
+         |  circle: Circle
+         |  rectangle: Rectangle
+         |}
+         |
+         |structure Circle {
+         |  @required
+         |  radius: Integer
+         |}
+         |
+         |structure Rectangle {
+         |  @required
+         |  width: Integer
+         |  @required
+         |  height: Integer
+         |}
+         |
+         |structure Square {
+         |  @required
+         |  width: Integer
+         |  name: String
+         |}
+         |
+         |@discriminated("tpe")
+         |union Discriminated {
+         |  first: StringWrapper
+         |  second: IntWrapper
+         |  @jsonUnknown other: Document
+         |}
+         |
+         |structure StringWrapper {
+         |  myString: String
+         |}
+         |
+         |structure IntWrapper {
+         |  int: Integer
+         |  myInt: Integer
+         |}
+         |
+         |@preserveKeyOrder
+         |map Ordered {
+         |  key: String
+         |  value: Integer
+         |}
+         |
+         |enum Closed {
+         |  A
+         |  B
+         |}
+         |
+         |@openEnum
+         |enum Open {
+         |  A
+         |}
+         |
+         |structure Tree {
+         |  value: Integer
+         |  children: Trees
+         |}
+         |
+         |list Trees {
+         |  member: Tree
+         |}
+         |""".stripMargin
+    )
+    .assemble()
+    .unwrap()
+
+  private def codec(name: String): JsonCodec =
+    JsonCodecs.of(model).getCodec(ShapeId.from(s"test#$name"))
+
+  private def roundTrip(name: String, json: String): Any = {
+    val c = codec(name)
+    val decoded = c.decode(json)
+    assertEquals(Node.parse(c.encodeToString(decoded)), Node.parse(json))
+    decoded
+  }
+
+  private def struct(entries: (String, Any)*): java.util.Map[String, Any] = {
+    val result = new java.util.HashMap[String, Any]()
+    entries.foreach { case (k, v) => result.put(k, v) }
+    result
+  }
+
+  test("nullable members retain explicit nulls") {
+    val foo = codec("Foo")
+    val explicitNull = foo
+      .decode("""{"nullable": null, "regular": null}""")
+      .asInstanceOf[java.util.Map[String, Any]]
+    assert(explicitNull.containsKey("nullable"))
+    assert(!explicitNull.containsKey("regular"))
+    assertEquals(
+      Node.parse(foo.encodeToString(explicitNull)),
+      Node.parse("""{"nullable": null, "withDefault": "N/A"}""")
+    )
+    val absent = foo.decode("{}").asInstanceOf[java.util.Map[String, Any]]
+    assert(!absent.containsKey("nullable"))
+  }
+
+  test("json names, default values and formats") {
+    val decoded = codec("Foo").decode(
+      """{"renamed": "a", "at": "2025-08-15T20:26:51.5+02:00", "day": "2025-08-15", "blob": "aGVsbG8="}"""
+    )
+    val fields = decoded.asInstanceOf[java.util.Map[String, Any]]
+    assertEquals(fields.get("name"), "a")
+    assertEquals(fields.get("withDefault"), "N/A")
+    assertEquals(
+      fields.get("at"),
+      Instant.parse("2025-08-15T18:26:51.500Z")
+    )
+    assertEquals(fields.get("day"), LocalDate.of(2025, 8, 15))
+    assertEquals(
+      new String(fields.get("blob").asInstanceOf[Array[Byte]], "UTF-8"),
+      "hello"
+    )
+    assertEquals(
+      Node.parse(codec("Foo").encodeToString(decoded)),
+      Node.parse(
+        """{"renamed": "a", "withDefault": "N/A", "at": "2025-08-15T18:26:51.500Z", "day": "2025-08-15", "blob": "aGVsbG8="}"""
+      )
+    )
+  }
+
+  test("date-time timestamps") {
+    val at = JsonCodecs.of(model).getCodec(ShapeId.from("test#Foo$at"))
+    List(
+      "2025-08-15T20:26:51Z",
+      "2025-08-15T20:26:51.1Z",
+      "2025-08-15T20:26:51.123456789Z",
+      "2025-08-15T20:26:51-07:30",
+      "2024-02-29T23:59:59.5+18:00",
+      "0001-01-01T00:00:00Z",
+      "2025-08-15t20:26:51z",
+      "2025-08-15T20:26:51.Z"
+    ).foreach { dateTime =>
+      assertEquals(
+        at.decode("\"" + dateTime + "\""),
+        OffsetDateTime.parse(dateTime).toInstant,
+        dateTime
+      )
+    }
+    List(
+      "2025-02-29T20:26:51Z",
+      "2025-08-15T24:00:00Z",
+      "2025-08-15T20:26:51+01:60",
+      "2025-08-15T20:26:51+19:00",
+      "2025-08-15T20:26:51.1234567891Z",
+      "2025-08-15 20:26:51Z"
+    ).foreach { dateTime =>
+      intercept[JsonCodecException](at.decode("\"" + dateTime + "\""))
+    }
+  }
+
+  test("missing required members are rejected") {
+    val e = intercept[JsonCodecException](codec("Required").decode("{}"))
+    assert(e.getMessage.contains("missing required member id"), e.getMessage)
+    assertEquals(
+      codec("Required").decode("""{"id": "x"}"""),
+      struct("id" -> "x")
+    )
+  }
+
+  test("unknown fields are retained with @jsonUnknown") {
+    assertEquals(
+      roundTrip("Data", """{"known": "known value"}"""),
+      struct("known" -> "known value")
+    )
+    val decoded = roundTrip(
+      "Data",
+      """{"known": "known value", "aField": 1, "unknown": {"a": [true]}}"""
+    ).asInstanceOf[java.util.Map[String, Any]]
+    assertEquals(
+      decoded.get("unknown"),
+      Map[String, Node](
+        "aField" -> Node.from(1),
+        "unknown" -> Node.parse("""{"a": [true]}""")
+      ).asJava
+    )
+  }
+
+  test("unknown fields are written back as they were read") {
+    val data = codec("Data")
+    val decoded = data
+      .decode(
+        "{\"price\": 1.50, \"known\": \"k\", \"n\": null, " +
+          "\"esc\\u0061ped\": \"\\u00e9\", \"nested\" : { \"b\" : [1, 2] }}"
+      )
+      .asInstanceOf[java.util.Map[String, Any]]
+    assertEquals(
+      data.encodeToString(decoded),
+      "{\"known\":\"k\",\"price\": 1.50,\"n\": null," +
+        "\"esc\\u0061ped\": \"\\u00e9\",\"nested\" : { \"b\" : [1, 2] }}"
+    )
+    val unknown = decoded.get("unknown").asInstanceOf[UnknownFields]
+    assertEquals(unknown.size, 4)
+    assertEquals(unknown.get("escaped"), Node.from("\u00e9"))
+    assertEquals(unknown.get("n"), Node.nullNode())
+    assertEquals(
+      unknown.keySet.asScala.toList,
+      List("price", "n", "escaped", "nested")
+    )
+    intercept[UnsupportedOperationException](
+      unknown.put("other", Node.from(1))
+    )
+  }
+
+  test("unknown fields can be built from nodes") {
+    val unknown = UnknownFields.of(
+      Map[String, Node]("a" -> Node.from(1), "b" -> Node.from("\"")).asJava
+    )
+    assertEquals(
+      codec("Data").encodeToString(
+        struct("known" -> "k", "unknown" -> unknown)
+      ),
+      """{"known":"k","a":1,"b":"\""}"""
+    )
+    assertEquals[java.util.Map[String, Node], java.util.Map[String, Node]](
+      unknown,
+      Map[String, Node]("a" -> Node.from(1), "b" -> Node.from("\"")).asJava
+    )
+    assert(UnknownFields.of(new java.util.HashMap[String, Node]()).isEmpty)
+    assertEquals(
+      codec("Data").encodeToString(
+        struct("unknown" -> UnknownFields.of(Map.empty[String, Node].asJava))
+      ),
+      "{}"
+    )
+  }
+
+  test("unknown fields with invalid escapes are rejected") {
+    List(
+      "{\"known\":\"a\",\"x\":\"\\q\"}",
+      "{\"x\":\"\\u12\"}",
+      "{\"x\":[\"\\u00e9\", {\"y\": \"\\uzzzz\"}]}"
+    ).foreach { json =>
+      intercept[JsonCodecException](codec("Data").decode(json))
+    }
+  }
+
+  test("tagged unions") {
+    assertEquals(
+      roundTrip("Tagged", """{"first": "alloy"}"""),
+      new UnionValue("first", "alloy")
+    )
+    assertEquals(
+      roundTrip("Tagged", """{"second": {"int": 42}}"""),
+      new UnionValue("second", struct("int" -> 42))
+    )
+    intercept[JsonCodecException](
+      codec("Tagged").decode("""{"first": "a", "second": {}}""")
+    )
+    intercept[JsonCodecException](codec("Tagged").decode("""{"third": 1}"""))
+  }
+
+  test("untagged unions") {
+    assertEquals(
+      roundTrip("Untagged", "\"alloy\""),
+      new UnionValue("first", "alloy")
+    )
+    assertEquals(
+      roundTrip("Untagged", """{"int": 42}"""),
+      new UnionValue("second", struct("int" -> 42))
+    )
+    intercept[JsonCodecException](codec("Untagged").decode("42"))
+  }
+
+  test("untagged unions are narrowed down by required fields") {
+    assertEquals(
+      roundTrip("Geometry", """{"radius": 1}"""),
+      new UnionValue("circle", struct("radius" -> 1))
+    )
+    assertEquals(
+      roundTrip("Geometry", """{"height": 2, "width": 1}"""),
+      new UnionValue("rectangle", struct("width" -> 1, "height" -> 2))
+    )
+    assertEquals(
+      roundTrip("Geometry", """{"width": 1, "name": "s"}"""),
+      new UnionValue("square", struct("width" -> 1, "name" -> "s"))
+    )
+    assertEquals(roundTrip("Geometry", "true"), new UnionValue("flag", true))
+    assertEquals(roundTrip("Geometry", "\"l\""), new UnionValue("label", "l"))
+    // the only candidate reports its own failure
+    val e = intercept[JsonCodecException](
+      codec("Geometry").decode("""{"radius": "1"}""")
+    )
+    assert(e.getMessage.contains("expected"), e.getMessage)
+    intercept[JsonCodecException](codec("Geometry").decode("{}"))
+    intercept[JsonCodecException](codec("Geometry").decode("[]"))
+  }
+
+  test("untagged unions are ready to be shared once compiled") {
+    val codecs = new JsonCodecs(model)
+    val geometry = codecs.getCodec(ShapeId.from("test#Geometry"))
+    val open = codecs.getCodec(ShapeId.from("test#OpenGeometry"))
+    val pool = Executors.newFixedThreadPool(8)
+    try {
+      val decodes = (0 until 64).map { i =>
+        val task: Callable[Any] = () =>
+          if (i % 2 == 0) geometry.decode("""{"height": 2, "width": 1}""")
+          else open.decode("""{"radius": 1}""")
+        pool.submit(task)
+      }
+      decodes.zipWithIndex.foreach { case (decode, i) =>
+        assertEquals(
+          decode.get(),
+          if (i % 2 == 0)
+            new UnionValue("rectangle", struct("width" -> 1, "height" -> 2))
+          else new UnionValue("circle", struct("radius" -> 1))
+        )
+      }
+    } finally {
+      pool.shutdown()
+    }
+  }
+
+  test("untagged unions fall back to document members") {
+    assertEquals(
+      roundTrip("OpenGeometry", """{"radius": 1}"""),
+      new UnionValue("circle", struct("radius" -> 1))
+    )
+    assertEquals(
+      roundTrip("OpenGeometry", """{"radius": "1"}"""),
+      new UnionValue("other", Node.parse("""{"radius": "1"}"""))
+    )
+    assertEquals(
+      roundTrip("OpenGeometry", "[1]"),
+      new UnionValue("other", Node.parse("[1]"))
+    )
+  }
+
+  test("discriminated unions") {
+    assertEquals(
+      roundTrip("Discriminated", """{"tpe": "first", "myString": "alloy"}"""),
+      new UnionValue("first", struct("myString" -> "alloy"))
+    )
+    // the discriminator does not have to come first when decoding
+    assertEquals(
+      codec("Discriminated").decode("""{"myInt": 42, "tpe": "second"}"""),
+      new UnionValue("second", struct("myInt" -> 42))
+    )
+    assertEquals(
+      codec("Discriminated").encodeToString(
+        new UnionValue("second", struct("myInt" -> 42))
+      ),
+      """{"tpe":"second","myInt":42}"""
+    )
+    assertEquals(
+      roundTrip("Discriminated", """{"k": 1, "tpe": "other"}"""),
+      new UnionValue("other", Node.parse("""{"k": 1, "tpe": "other"}"""))
+    )
+    intercept[JsonCodecException](
+      codec("Discriminated").decode("""{"myInt": 42}""")
+    )
+  }
+
+  test("fields preceding the discriminator are decoded once it is found") {
+    val geometry = codec("DiscriminatedGeometry")
+    assertEquals(
+      geometry.decode(
+        """{"width": 1, "other": [{"kind": "circle"}], "kind": "rectangle", "height": 2}"""
+      ),
+      new UnionValue("rectangle", struct("width" -> 1, "height" -> 2))
+    )
+    // more fields than the initial capacity of the recorded positions
+    val unknownFields = (0 until 20).map(i => s""""f$i": $i""").mkString(", ")
+    assertEquals(
+      geometry.decode(
+        s"""{$unknownFields, "radius": 3, "kind": "circle", $unknownFields}"""
+      ),
+      new UnionValue("circle", struct("radius" -> 3))
+    )
+    assertEquals(
+      geometry.decode("""{"kind": "circle", "radius": 3, "kind": "circle"}"""),
+      new UnionValue("circle", struct("radius" -> 3))
+    )
+    val e = intercept[JsonCodecException](
+      geometry.decode("""{"width": 1, "kind": "rectangle"}""")
+    )
+    assert(e.getMessage.contains("missing required member height"))
+    intercept[JsonCodecException](geometry.decode("{}"))
+    intercept[JsonCodecException](geometry.decode("""{"kind": 1}"""))
+    intercept[JsonCodecException](geometry.decode("""{"kind": "square"}"""))
+    intercept[JsonCodecException](
+      geometry.decode("""{"radius": "3", "kind": "circle"}""")
+    )
+  }
+
+  test("@preserveKeyOrder maps keep the order of their keys") {
+    val json = """{"z":1,"a":2,"m":3,"b":4}"""
+    assertEquals(
+      codec("Ordered").encodeToString(codec("Ordered").decode(json)),
+      json
+    )
+    // larger maps are looked up through a hash index
+    val keys = (0 until 40).map(i => s"key${(i * 17) % 40}")
+    val large = keys.zipWithIndex
+      .map { case (k, i) => s""""$k":$i""" }
+      .mkString("{", ",", "}")
+    val decoded = codec("Ordered").decode(large)
+    assertEquals(codec("Ordered").encodeToString(decoded), large)
+    val map = decoded.asInstanceOf[java.util.Map[String, Any]]
+    assertEquals(map.keySet.asScala.toList, keys.toList)
+    keys.zipWithIndex.foreach { case (k, i) => assertEquals(map.get(k), i) }
+    assertEquals(map.get("other"), null)
+    intercept[UnsupportedOperationException](map.put("other", 1))
+  }
+
+  test("ordered maps keep the first position and last value of a key") {
+    List(3, 20).foreach { size =>
+      val keys = (0 until size).map(i => s"k$i")
+      val json = (keys.map(k => s""""$k":1""") :+ s""""${keys.head}":2""")
+        .mkString("{", ",", "}")
+      val decoded =
+        codec("Ordered").decode(json).asInstanceOf[java.util.Map[String, Any]]
+      assertEquals(decoded.size, size)
+      assertEquals(decoded.keySet.asScala.toList, keys.toList)
+      assertEquals(decoded.get(keys.head), 2)
+      val expected = new java.util.LinkedHashMap[String, Any]()
+      keys.foreach(expected.put(_, 1))
+      expected.put(keys.head, 2)
+      assertEquals[Any, Any](decoded, expected)
+      assertEquals(decoded.hashCode, expected.hashCode)
+      assertEquals[Any, Any](OrderedMap.copyOf(expected), decoded)
+    }
+    assertEquals(codec("Ordered").decode("{}"), OrderedMap.empty[String, Any])
+  }
+
+  test("enums") {
+    assertEquals(codec("Closed").decode("\"A\""), "A")
+    intercept[JsonCodecException](codec("Closed").decode("\"C\""))
+    assertEquals(codec("Open").decode("\"C\""), "C")
+  }
+
+  test("recursive shapes") {
+    val json = """{"value":1,"children":[{"value":2,"children":[{"value":3}]}]}"""
+    assertEquals(codec("Tree").encodeToString(codec("Tree").decode(json)), json)
+  }
+
+  test("input nested deeper than the maximum depth is rejected") {
+    def tree(levels: Int) =
+      """{"value":1,"children":[""" * levels + """{"value":0}""" +
+        "]}" * levels
+    // two levels of nesting per tree level, an object and an array
+    codec("Tree").decode(tree(JsonCodec.DEFAULT_MAX_DEPTH / 2 - 1))
+    intercept[JsonCodecException](
+      codec("Tree").decode(tree(JsonCodec.DEFAULT_MAX_DEPTH / 2 + 1))
+    )
+
+    val deep = "[" * 100000 + "]" * 100000
+    intercept[JsonCodecException](codec("Data").decode(s"""{"x":$deep}"""))
+    intercept[JsonCodecException](codec("OpenGeometry").decode(deep))
+
+    val shallow = codec("Tree").withMaxDepth(3)
+    assertEquals(shallow.getMaxDepth, 3)
+    shallow.decode(tree(1))
+    intercept[JsonCodecException](shallow.decode(tree(2)))
+    // the depth is restored when going back to decode a document
+    codec("Discriminated")
+      .withMaxDepth(3)
+      .decode("""{"tpe": "third", "x": [[1]]}""")
+    intercept[IllegalArgumentException](shallow.withMaxDepth(0))
+  }
+
+  test("unknown fields are parsed with the maximum depth of their codec") {
+    val deep = "[" * 1500 + "]" * 1500
+    val json = s"""{"known":"k","x":$deep}"""
+    val data = codec("Data").withMaxDepth(3000)
+    val decoded = data.decode(json).asInstanceOf[java.util.Map[String, Any]]
+    assertEquals(data.encodeToString(decoded), json)
+    val unknown = decoded.get("unknown").asInstanceOf[UnknownFields]
+    assertEquals(unknown.size, 1)
+    assert(unknown.get("x").isArrayNode())
+  }
+
+  test("alloy date/time formats") {
+    val primitives =
+      JsonCodecs
+        .of(protocolTestsModel)
+        .getCodec(ShapeId.from("alloy.test#PrimitiveEncodings"))
+    val decoded = primitives
+      .decode(
+        """{"localTime":"13:26:51.123456789","duration":86400.000000001,"uuid":"51216269-c0c8-454a-871e-329513e54e23","offsetDateTime":"2025-08-15T20:26:51+01:00","localDate":"2025-08-15"}"""
+      )
+      .asInstanceOf[java.util.Map[String, Any]]
+    assertEquals(decoded.get("localTime"), LocalTime.of(13, 26, 51, 123456789))
+    assertEquals(decoded.get("duration"), Duration.ofSeconds(86400, 1))
+    assertEquals(
+      decoded.get("uuid"),
+      UUID.fromString("51216269-c0c8-454a-871e-329513e54e23")
+    )
+    assertEquals(
+      decoded.get("offsetDateTime"),
+      OffsetDateTime.of(2025, 8, 15, 20, 26, 51, 0, ZoneOffset.ofHours(1))
+    )
+    assertEquals(
+      Node.parse(primitives.encodeToString(decoded)).expectObjectNode
+        .expectStringMember("offsetDateTime")
+        .getValue,
+      "2025-08-15T20:26:51+01:00"
+    )
+  }
+
+  test("strings, escapes and numbers") {
+    val c = JsonCodecs
+      .of(model)
+      .getCodec(ShapeId.from("smithy.api#String"))
+    val decoded = c.decode("\"a\\\"\\\\\\n\\u00e9\\ud83d\\ude00\u00e9\"")
+    assertEquals(decoded, "a\"\\\né\ud83d\ude00é")
+    assertEquals(c.decode(c.encode(decoded)), decoded)
+    assertEquals(c.encodeToString("\u0001"), "\"\\u0001\"")
+    val long = JsonCodecs.of(model).getCodec(ShapeId.from("smithy.api#Long"))
+    assertEquals[Any, Any](long.decode("-9223372036854775808"), Long.MinValue)
+    intercept[JsonCodecException](long.decode("9223372036854775808"))
+    intercept[JsonCodecException](long.decode("1.5"))
+    val double =
+      JsonCodecs.of(model).getCodec(ShapeId.from("smithy.api#Double"))
+    assertEquals(double.decode("\"NaN\"").asInstanceOf[Double].isNaN, true)
+    assertEquals[Any, Any](double.decode("-1.5e3"), -1500.0)
+  }
+
+  test("malformed inputs are rejected") {
+    val foo = codec("Foo")
+    List(
+      "",
+      "{",
+      """{"regular": 1,}""",
+      """{"regular": "1"}""",
+      """{"regular": 1} {}""",
+      """{"regular" 1}""",
+      """{"renamed": "\x"}"""
+    ).foreach { json =>
+      intercept[JsonCodecException](foo.decode(json))
+    }
+  }
+
+  test("member codecs take the traits of the member into account") {
+    val member = model
+      .expectShape(ShapeId.from("test#Foo$at"), classOf[MemberShape])
+    assertEquals(
+      JsonCodecs
+        .of(model)
+        .getCodec(member.getId)
+        .decode("\"1970-01-01T00:00:01Z\""),
+      Instant.ofEpochSecond(1)
+    )
+    assertEquals(
+      codec("Foo")
+        .decode("""{"at": "1970-01-01T00:00:01Z"}""")
+        .asInstanceOf[java.util.Map[String, Any]]
+        .get("at"),
+      Instant.ofEpochSecond(1)
+    )
+  }
+
+  test("codecs are cached on the model") {
+    assert(JsonCodecs.of(model) eq JsonCodecs.of(model))
+    assert(codec("Foo") eq codec("Foo"))
+  }
+}
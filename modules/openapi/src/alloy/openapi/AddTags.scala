@@ -34,15 +34,15 @@ class AddTags() extends OpenApiMapper {
       path: String
   ): OperationObject = {
     val maybeTags = shape.getTrait(classOf[TagsTrait])
-    val builder = operation.toBuilder()
     if (maybeTags.isPresent()) {
+      val builder = operation.toBuilder()
       maybeTags
         .get()
         .getValues()
         .asScala
         .foreach(builder.addTag)
-    }
-    builder.build()
+      builder.build()
+    } else operation
   }
 
 }
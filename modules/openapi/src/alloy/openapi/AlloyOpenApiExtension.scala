@@ -27,11 +27,19 @@ import scala.jdk.CollectionConverters._
 
 final class AlloyOpenApiExtension() extends Smithy2OpenApiExtension {
 
-  override def getProtocols(): ju.List[OpenApiProtocol[_]] = List(
-    new AlloyOpenApiProtocol()
-  ).asJava.asInstanceOf[ju.List[OpenApiProtocol[_]]]
+  override def getProtocols(): ju.List[OpenApiProtocol[_]] =
+    OpenApiProfiling
+      .protocols(List(new AlloyOpenApiProtocol()))
+      .asJava
+      .asInstanceOf[ju.List[OpenApiProtocol[_]]]
 
-  override def getOpenApiMappers(): ju.List[OpenApiMapper] = List(
+  override def getOpenApiMappers(): ju.List[OpenApiMapper] =
+    OpenApiProfiling.mappers(openApiMappers).asJava
+
+  override def getJsonSchemaMappers(): ju.List[JsonSchemaMapper] =
+    OpenApiProfiling.jsonSchemaMappers(jsonSchemaMappers).asJava
+
+  private def openApiMappers: List[OpenApiMapper] = List(
     new CheckForGreedyLabels(),
     new CheckForPrefixHeaders(),
     new OpenApiJsonSubstitutions(),
@@ -40,13 +48,12 @@ final class AlloyOpenApiExtension() extends Smithy2OpenApiExtension {
     new UnsupportedTraits(),
     new RemoveEmptyComponents(),
     new AddTags(),
-    new ExternalDocumentationMapperOpenApi(),
-    new DiscriminatedUnionMemberComponents(),
-    new MakeHeadersOptionalMapper(),
+    new AlloyPostProcessingMapper(),
+    new DeduplicateErrorResponses(),
     new SummaryMapper()
-  ).asJava
+  )
 
-  override def getJsonSchemaMappers(): ju.List[JsonSchemaMapper] = List(
+  private def jsonSchemaMappers: List[JsonSchemaMapper] = List(
     new OpenApiJsonSchemaMapper(): JsonSchemaMapper,
     new UntaggedUnions(),
     new OpenEnums(),
@@ -56,6 +63,6 @@ final class AlloyOpenApiExtension() extends Smithy2OpenApiExtension {
     new DiscriminatedUnionShapeId(),
     new JsonUnknownMapper(),
     new DateTimeFormatMapper()
-  ).asJava
+  )
 
 }
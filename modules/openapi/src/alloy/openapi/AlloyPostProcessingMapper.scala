@@ -0,0 +1,64 @@
+/* Copyright 2022 Disney Streaming
+ *
+ * Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package alloy.openapi
+
+import software.amazon.smithy.model.shapes.OperationShape
+import software.amazon.smithy.model.traits.Trait
+import software.amazon.smithy.openapi.fromsmithy.Context
+import software.amazon.smithy.openapi.fromsmithy.OpenApiMapper
+import software.amazon.smithy.openapi.model.OpenApi
+import software.amazon.smithy.openapi.model.OperationObject
+
+/** Runs the document-level rewrites of [[ExternalDocumentationMapperOpenApi]],
+  * [[DiscriminatedUnionMemberComponents]] and [[MakeHeadersOptionalMapper]] in
+  * a single traversal of the OpenAPI document. Parts of the document that none
+  * of the rewrites touch are shared with the input rather than rebuilt.
+  */
+final class AlloyPostProcessingMapper() extends OpenApiMapper {
+
+  private val externalDocs = new ExternalDocumentationMapperOpenApi()
+
+  override def updateOperation(
+      context: Context[_ <: Trait],
+      shape: OperationShape,
+      operation: OperationObject,
+      httpMethodName: String,
+      path: String
+  ): OperationObject =
+    externalDocs.updateOperation(
+      context,
+      shape,
+      operation,
+      httpMethodName,
+      path
+    )
+
+  override def after(
+      context: Context[_ <: Trait],
+      openapi: OpenApi
+  ): OpenApi =
+    OpenApiRewrite.run(context, openapi, AlloyPostProcessingMapper.rewrites)
+
+}
+
+object AlloyPostProcessingMapper {
+
+  private val rewrites: List[OpenApiRewrite] = List(
+    ExternalDocumentationMapperOpenApi.rewrite,
+    DiscriminatedUnionMemberComponents.rewrite,
+    MakeHeadersOptionalMapper.rewrite
+  )
+
+}
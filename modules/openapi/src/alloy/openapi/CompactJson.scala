@@ -0,0 +1,102 @@
+/* Copyright 2022 Disney Streaming
+ *
+ * Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package alloy.openapi
+
+import software.amazon.smithy.model.node.ArrayNode
+import software.amazon.smithy.model.node.BooleanNode
+import software.amazon.smithy.model.node.Node
+import software.amazon.smithy.model.node.NodeVisitor
+import software.amazon.smithy.model.node.NullNode
+import software.amazon.smithy.model.node.NumberNode
+import software.amazon.smithy.model.node.ObjectNode
+import software.amazon.smithy.model.node.StringNode
+
+import java.io.Writer
+import scala.jdk.CollectionConverters._
+
+/** Writes a node as JSON without whitespace, as `Node.printJson` does, but to
+  * a writer rather than to an in-memory string.
+  */
+private[openapi] object CompactJson {
+
+  def write(node: Node, writer: Writer): Unit = {
+    val _ = node.accept(new Printer(writer))
+  }
+
+  private final class Printer(writer: Writer) extends NodeVisitor[Unit] {
+
+    override def arrayNode(node: ArrayNode): Unit = {
+      writer.write('[')
+      node.getElements().asScala.zipWithIndex.foreach { case (e, i) =>
+        if (i > 0) writer.write(',')
+        e.accept(this)
+      }
+      writer.write(']')
+    }
+
+    override def booleanNode(node: BooleanNode): Unit =
+      writer.write(node.getValue().toString())
+
+    override def nullNode(node: NullNode): Unit = writer.write("null")
+
+    override def numberNode(node: NumberNode): Unit =
+      writer.write(node.toString())
+
+    override def objectNode(node: ObjectNode): Unit = {
+      writer.write('{')
+      node.getMembers().asScala.zipWithIndex.foreach { case ((k, v), i) =>
+        if (i > 0) writer.write(',')
+        string(k.getValue())
+        writer.write(':')
+        v.accept(this)
+      }
+      writer.write('}')
+    }
+
+    override def stringNode(node: StringNode): Unit = string(node.getValue())
+
+    // Same escaping as `Node.printJson`.
+    private def string(value: String): Unit = {
+      writer.write('"')
+      var start = 0
+      var i = 0
+      while (i < value.length) {
+        val replacement = escape(value.charAt(i))
+        if (replacement != null) {
+          writer.write(value, start, i - start)
+          writer.write(replacement)
+          start = i + 1
+        }
+        i += 1
+      }
+      writer.write(value, start, value.length - start)
+      writer.write('"')
+    }
+
+    private def escape(c: Char): String = c match {
+      case '"'                            => "\\\""
+      case '\\'                           => "\\\\"
+      case '\n'                           => "\\n"
+      case '\r'                           => "\\r"
+      case '\t'                           => "\\t"
+      case _ if c < ' ' || isSeparator(c) => "\\u%04x".format(c.toInt)
+      case _                              => null
+    }
+
+    // U+2028 and U+2029 are valid in JSON strings but not in JavaScript ones.
+    private def isSeparator(c: Char): Boolean = c == 0x2028 || c == 0x2029
+  }
+
+}
@@ -0,0 +1,219 @@
+/* Copyright 2022 Disney Streaming
+ *
+ * Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package alloy.openapi
+
+import software.amazon.smithy.jsonschema.Schema
+import software.amazon.smithy.model.node.Node
+import software.amazon.smithy.model.traits.Trait
+import software.amazon.smithy.openapi.fromsmithy.Context
+import software.amazon.smithy.openapi.fromsmithy.OpenApiMapper
+import software.amazon.smithy.openapi.model.MediaTypeObject
+import software.amazon.smithy.openapi.model.OpenApi
+import software.amazon.smithy.openapi.model.OperationObject
+import software.amazon.smithy.openapi.model.ParameterObject
+import software.amazon.smithy.openapi.model.Ref
+import software.amazon.smithy.openapi.model.ResponseObject
+
+import scala.collection.mutable
+import scala.jdk.CollectionConverters._
+
+/** Moves the `oneOf` schemas and the headers of the responses combining
+  * several errors (see `AlloyAbstractRestProtocol.combineResponseContent`)
+  * to the components of the document, when they are shared by several
+  * responses. The responses then reference them with `$ref`.
+  *
+  * Only enabled when the `alloyDeduplicateErrorResponses` setting of the
+  * OpenAPI config is set to `true`.
+  */
+final class DeduplicateErrorResponses() extends OpenApiMapper {
+
+  override def after(
+      context: Context[_ <: Trait],
+      openapi: OpenApi
+  ): OpenApi =
+    if (
+      context
+        .getConfig()
+        .getExtensions()
+        .getBooleanMemberOrDefault(DeduplicateErrorResponses.configKey, false)
+    ) DeduplicateErrorResponses.deduplicate(openapi)
+    else openapi
+
+}
+
+object DeduplicateErrorResponses {
+
+  val configKey = "alloyDeduplicateErrorResponses"
+
+  private val schemaPrefix = "#/components/schemas/"
+  private val headerPrefix = "#/components/headers/"
+  private val contentSuffix = "ResponseContent"
+
+  private[openapi] def deduplicate(openapi: OpenApi): OpenApi = {
+    val responses = for {
+      pathItem <- openapi.getPaths().asScala.valuesIterator
+      operation <- pathItem.getOperations().asScala.valuesIterator
+      response <- operation.getResponses().asScala.valuesIterator
+      if isCombined(response)
+    } yield response
+    val components = openapi.getComponents()
+    val schemas = mutable.LinkedHashMap.empty[Node, (Schema, Int)]
+    val headers =
+      mutable.LinkedHashMap.empty[(String, Node), (ParameterObject, Int)]
+    responses.foreach { response =>
+      combinedSchemas(response).foreach { schema =>
+        val key = schema.toNode()
+        val count = schemas.get(key).fold(0)(_._2)
+        schemas.update(key, schema -> (count + 1))
+      }
+      response.getHeaders().asScala.foreach { case (name, header) =>
+        if (!header.getPointer().isPresent()) {
+          val key = name -> header.toNode()
+          val count = headers.get(key).fold(0)(_._2)
+          headers.update(key, header.deref(components) -> (count + 1))
+        }
+      }
+    }
+
+    val schemaNames = mutable.Set.empty[String]
+    val headerNames = mutable.Set.empty[String]
+    schemaNames ++= components.getSchemas().keySet().asScala
+    headerNames ++= components.getHeaders().keySet().asScala
+    val sharedSchemas = schemas.toList.collect {
+      case (node, (schema, count)) if count > 1 =>
+        (node, schema, freshName(schemaName(schema), schemaNames))
+    }
+    val sharedHeaders = headers.toList.collect {
+      case (key @ (name, _), (header, count)) if count > 1 =>
+        (key, header, freshName(headerName(name), headerNames))
+    }
+
+    if (sharedSchemas.isEmpty && sharedHeaders.isEmpty) openapi
+    else {
+      val schemaRefs = sharedSchemas.map { case (k, _, n) => k -> n }.toMap
+      val headerRefs = sharedHeaders.map { case (k, _, n) => k -> n }.toMap
+      val builder = openapi.toBuilder()
+      openapi.getPaths().asScala.foreach { case (path, pathItem) =>
+        val updated = pathItem.getOperations().asScala.toList.flatMap {
+          case (method, operation) =>
+            updateOperation(operation, schemaRefs, headerRefs)
+              .map(method -> _)
+        }
+        if (updated.nonEmpty) {
+          val pathBuilder = pathItem.toBuilder()
+          updated.foreach { case (method, operation) =>
+            MakeHeadersOptionalMapper.updatePathItem(
+              pathBuilder,
+              method,
+              operation
+            )
+          }
+          builder.putPath(path, pathBuilder.build())
+        }
+      }
+      val componentsBuilder = components.toBuilder()
+      sharedSchemas.foreach { case (_, schema, name) =>
+        componentsBuilder.putSchema(name, schema)
+      }
+      sharedHeaders.foreach { case (_, header, name) =>
+        componentsBuilder.putHeader(name, header)
+      }
+      builder.components(componentsBuilder.build()).build()
+    }
+  }
+
+  private def updateOperation(
+      operation: OperationObject,
+      sharedSchemas: Map[Node, String],
+      sharedHeaders: Map[(String, Node), String]
+  ): Option[OperationObject] = {
+    val updated = operation.getResponses().asScala.toList.collect {
+      case (code, response) if isCombined(response) =>
+        code -> updateResponse(response, sharedSchemas, sharedHeaders)
+    }
+    if (updated.isEmpty) None
+    else {
+      val builder = operation.toBuilder()
+      updated.foreach { case (code, response) =>
+        builder.putResponse(code, response)
+      }
+      Some(builder.build())
+    }
+  }
+
+  private def updateResponse(
+      response: ResponseObject,
+      sharedSchemas: Map[Node, String],
+      sharedHeaders: Map[(String, Node), String]
+  ): ResponseObject = {
+    val builder = response.toBuilder()
+    response.getContent().asScala.foreach { case (mediaType, media) =>
+      media.getSchema().asScala
+        .flatMap(schema => sharedSchemas.get(schema.toNode()))
+        .foreach { name =>
+          val ref = Schema.builder().ref(schemaPrefix + name).build()
+          builder.putContent(mediaType, media.toBuilder().schema(ref).build())
+        }
+    }
+    response.getHeaders().asScala.foreach { case (name, header) =>
+      sharedHeaders.get(name -> header.toNode()).foreach { component =>
+        val ref = Ref.remote[ParameterObject](headerPrefix + component)
+        builder.putHeader(name, ref)
+      }
+    }
+    builder.build()
+  }
+
+  // Responses combining several errors are the only ones with an inline
+  // `oneOf` schema, the others referencing a component.
+  private def isCombined(response: ResponseObject): Boolean =
+    combinedSchemas(response).nonEmpty
+
+  private def combinedSchemas(response: ResponseObject): List[Schema] =
+    response
+      .getContent()
+      .asScala
+      .valuesIterator
+      .flatMap((media: MediaTypeObject) => media.getSchema().asScala)
+      .filter(s => !s.getRef().isPresent() && !s.getOneOf().isEmpty())
+      .toList
+
+  // `NotFoundResponseContent` and `ForbiddenResponseContent` are combined as
+  // `NotFoundOrForbiddenResponseContent`.
+  private def schemaName(schema: Schema): String = {
+    val alternatives = schema.getOneOf().asScala.toList.map {
+      _.getRef().asScala
+        .filter(_.startsWith(schemaPrefix))
+        .map(_.stripPrefix(schemaPrefix).stripSuffix(contentSuffix))
+    }
+    if (alternatives.forall(_.isDefined))
+      alternatives.flatten.mkString("Or") + contentSuffix
+    else "Combined" + contentSuffix
+  }
+
+  private def headerName(name: String): String =
+    name.replaceAll("[^a-zA-Z0-9._-]", "_")
+
+  private def freshName(base: String, taken: mutable.Set[String]): String = {
+    val name = Iterator
+      .from(1)
+      .map(i => if (i == 1) base else base + i)
+      .find(!taken.contains(_))
+      .get
+    taken += name
+    name
+  }
+
+}
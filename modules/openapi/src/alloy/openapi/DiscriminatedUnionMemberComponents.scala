@@ -18,6 +18,7 @@ package alloy.openapi
 import scala.jdk.CollectionConverters._
 import software.amazon.smithy.openapi.fromsmithy.OpenApiMapper
 import software.amazon.smithy.openapi.fromsmithy.Context
+import software.amazon.smithy.openapi.model.ComponentsObject
 import software.amazon.smithy.openapi.model.OpenApi
 import software.amazon.smithy.model.traits.Trait
 import alloy.DiscriminatedUnionTrait
@@ -37,13 +38,34 @@ class DiscriminatedUnionMemberComponents() extends OpenApiMapper {
   override def after(
       context: Context[_ <: Trait],
       openapi: OpenApi
-  ): OpenApi = {
+  ): OpenApi =
+    OpenApiRewrite.run(
+      context,
+      openapi,
+      List(DiscriminatedUnionMemberComponents.rewrite)
+    )
+}
+
+object DiscriminatedUnionMemberComponents {
+
+  /** The components are only rebuilt if they hold discriminated unions. */
+  private[openapi] val rewrite: OpenApiRewrite = new OpenApiRewrite {
+    override def rewriteComponents(
+        context: Context[_ <: Trait],
+        openapi: OpenApi,
+        components: ComponentsObject
+    ): Option[ComponentsObject] =
+      updateComponents(context, components)
+  }
+
+  private def updateComponents(
+      context: Context[_ <: Trait],
+      components: ComponentsObject
+  ): Option[ComponentsObject] = {
     val unions = context
       .getModel()
       .getUnionShapesWithTrait(classOf[DiscriminatedUnionTrait])
-    val componentBuilder = openapi.getComponents().toBuilder()
-    val componentSchemas: Map[ShapeId, Schema] = openapi
-      .getComponents()
+    val componentSchemas: Map[ShapeId, Schema] = components
       .getSchemas()
       .asScala
       .toMap
@@ -57,11 +79,14 @@ class DiscriminatedUnionMemberComponents() extends OpenApiMapper {
           }
       }
     val componentNames =
-      openapi.getComponents().getSchemas().asScala.keysIterator.toSet
-
-    unions.asScala
-      .filter(u => componentSchemas.contains(u.getId()))
-      .foreach { union =>
+      components.getSchemas().asScala.keysIterator.toSet
+    val componentUnions =
+      unions.asScala.filter(u => componentSchemas.contains(u.getId())).toList
+
+    if (componentUnions.isEmpty) None
+    else {
+      val componentBuilder = components.toBuilder()
+      componentUnions.foreach { union =>
         val unionMixinName =
           calculateCompontName(union.getId().getName(), "Mixin", componentNames)
         val unionMixinId =
@@ -140,7 +165,8 @@ class DiscriminatedUnionMemberComponents() extends OpenApiMapper {
         }
 
       }
-    openapi.toBuilder.components(componentBuilder.build()).build()
+      Some(componentBuilder.build())
+    }
   }
 
   /*
@@ -20,8 +20,10 @@ import _root_.software.amazon.smithy.jsonschema.JsonSchemaMapper
 import _root_.software.amazon.smithy.jsonschema.Schema.Builder
 import _root_.software.amazon.smithy.model.shapes.Shape
 
+import java.{util => ju}
 import scala.jdk.CollectionConverters._
 import software.amazon.smithy.model.traits.ExternalDocumentationTrait
+import software.amazon.smithy.model.node.Node
 import software.amazon.smithy.model.node.ObjectNode
 import software.amazon.smithy.openapi.fromsmithy.OpenApiMapper
 import software.amazon.smithy.openapi.fromsmithy.Context
@@ -34,32 +36,11 @@ import software.amazon.smithy.openapi.model.ExternalDocumentation
 class ExternalDocumentationMapperOpenApi() extends OpenApiMapper {
 
   override def after(context: Context[_ <: Trait], openapi: OpenApi): OpenApi =
-    if (context.getService.hasTrait(classOf[ExternalDocumentationTrait])) {
-      context.getService
-        .expectTrait(classOf[ExternalDocumentationTrait])
-        .getUrls()
-        .asScala
-        .headOption match {
-        case Some((name, url)) =>
-          openapi
-            .toBuilder()
-            .extensions(
-              ObjectNode
-                .builder()
-                .withMember(
-                  "externalDocs",
-                  ObjectNode
-                    .builder()
-                    .withMember("description", name)
-                    .withMember("url", url)
-                    .build()
-                )
-                .build()
-            )
-            .build()
-        case _ => openapi
-      }
-    } else openapi
+    OpenApiRewrite.run(
+      context,
+      openapi,
+      List(ExternalDocumentationMapperOpenApi.rewrite)
+    )
 
   override def updateOperation(
       context: Context[_ <: Trait],
@@ -87,6 +68,33 @@ class ExternalDocumentationMapperOpenApi() extends OpenApiMapper {
 
 }
 
+object ExternalDocumentationMapperOpenApi {
+
+  /** Sets the `externalDocs` extension of the document from the
+    * `externalDocumentation` trait of the service.
+    */
+  private[openapi] val rewrite: OpenApiRewrite = new OpenApiRewrite {
+    override def rewriteExtensions(
+        context: Context[_ <: Trait],
+        openapi: OpenApi,
+        extensions: ju.Map[String, Node]
+    ): Option[ju.Map[String, Node]] =
+      context.getService
+        .getTrait(classOf[ExternalDocumentationTrait])
+        .asScala
+        .flatMap(_.getUrls().asScala.headOption)
+        .map { case (name, url) =>
+          Map[String, Node](
+            "externalDocs" -> ObjectNode
+              .builder()
+              .withMember("description", name)
+              .withMember("url", url)
+              .build()
+          ).asJava
+        }
+  }
+}
+
 class ExternalDocumentationMapperJsonSchema() extends JsonSchemaMapper {
 
   override def updateSchema(
@@ -36,69 +36,85 @@ final class MakeHeadersOptionalMapper extends OpenApiMapper {
   override def after(
       context: Context[_ <: Trait],
       openapi: OpenApi
-  ): OpenApi = {
-    val openBuilder = openapi.toBuilder()
-    openapi.getPaths().asScala.foreach { case (pathKey, pathItem) =>
-      val pathBuilder = pathItem.toBuilder()
-      pathItem.getOperations().asScala.foreach { case (opMethod, op) =>
-        val opBuilder = op.toBuilder()
-        op.getResponses().asScala.foreach { case (responseKey, response) =>
-          val responseBuilder = response.toBuilder()
-          val shouldMakeHeadersOptional = response
-            .getExtension(ExtensionKeys.shouldMakeHeadersOptional)
-            .toScala
-            .contains(Node.from(true))
-          if (shouldMakeHeadersOptional) {
-            response.getHeaders().asScala.foreach {
-              case (headerKey, headerRef) =>
-                makeHeadersOptional(
-                  openapi,
-                  pathBuilder,
-                  opMethod,
-                  opBuilder,
-                  responseKey,
-                  responseBuilder,
-                  headerKey,
-                  headerRef
-                )
-            }
-          }
+  ): OpenApi =
+    OpenApiRewrite.run(
+      context,
+      openapi,
+      List(MakeHeadersOptionalMapper.rewrite)
+    )
+}
+
+object MakeHeadersOptionalMapper {
+
+  /** Only the path items holding a flagged response are rebuilt. */
+  private[openapi] val rewrite: OpenApiRewrite = new OpenApiRewrite {
+    override def rewritePath(
+        context: Context[_ <: Trait],
+        openapi: OpenApi,
+        path: String,
+        pathItem: PathItem
+    ): Option[PathItem] = {
+      val updatedOperations = pathItem.getOperations().asScala.toList.flatMap {
+        case (method, op) =>
+          updateOperation(openapi, op).map(method -> _)
+      }
+      if (updatedOperations.isEmpty) None
+      else {
+        val builder = pathItem.toBuilder()
+        updatedOperations.foreach { case (method, op) =>
+          updatePathItem(builder, method, op)
         }
+        Some(builder.build())
       }
-      openBuilder.putPath(pathKey, pathBuilder.build())
+    }
+  }
 
+  private def updateOperation(
+      openapi: OpenApi,
+      op: OperationObject
+  ): Option[OperationObject] = {
+    val updatedResponses = op.getResponses().asScala.toList.collect {
+      case (responseKey, response) if shouldMakeHeadersOptional(response) =>
+        responseKey -> makeHeadersOptional(openapi, response)
+    }
+    if (updatedResponses.isEmpty) None
+    else {
+      val builder = op.toBuilder()
+      updatedResponses.foreach { case (responseKey, response) =>
+        builder.putResponse(responseKey, response)
+      }
+      Some(builder.build())
     }
-    openBuilder.build()
   }
 
+  private def shouldMakeHeadersOptional(response: ResponseObject): Boolean =
+    response
+      .getExtension(ExtensionKeys.shouldMakeHeadersOptional)
+      .toScala
+      .contains(Node.from(true))
+
   private def makeHeadersOptional(
       openapi: OpenApi,
-      pathBuilder: PathItem.Builder,
-      opMethod: String,
-      opBuilder: OperationObject.Builder,
-      responseKey: String,
-      responseBuilder: ResponseObject.Builder,
-      headerKey: String,
-      headerRef: Ref[ParameterObject]
-  ): PathItem.Builder = {
-    val deref = headerRef.deref(openapi.getComponents())
-    val updated = deref.toBuilder().required(false).build()
-    opBuilder.putResponse(
-      responseKey,
-      responseBuilder
-        .putHeader(headerKey, Ref.local[ParameterObject](updated))
-        .removeExtension(ExtensionKeys.shouldMakeHeadersOptional)
-        .build()
-    )
-    updatePathItem(pathBuilder, opMethod, opBuilder.build())
+      response: ResponseObject
+  ): ResponseObject = {
+    val responseBuilder = response
+      .toBuilder()
+      .removeExtension(ExtensionKeys.shouldMakeHeadersOptional)
+    response.getHeaders().asScala.foreach { case (headerKey, headerRef) =>
+      val deref = headerRef.deref(openapi.getComponents())
+      val updated = deref.toBuilder().required(false).build()
+      responseBuilder.putHeader(headerKey, Ref.local[ParameterObject](updated))
+    }
+    responseBuilder.build()
   }
 
-  private def updatePathItem(
+  private[openapi] def updatePathItem(
       pi: PathItem.Builder,
       method: String,
       op: OperationObject
   ): PathItem.Builder = method.toUpperCase match {
     case "GET"     => pi.get(op)
+    case "PATCH"   => pi.patch(op)
     case "PUT"     => pi.put(op)
     case "POST"    => pi.post(op)
     case "DELETE"  => pi.delete(op)
@@ -0,0 +1,38 @@
+/* Copyright 2022 Disney Streaming
+ *
+ * Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package alloy.openapi
+
+/** Encoding of the documents written by `convertWithConfigToStream` and
+  * `convertWithConfigToDirectory`.
+  *
+  * @param minify
+  *   whether to print the JSON without any whitespace, rather than indented
+  * @param gzip
+  *   whether to gzip-compress the JSON as it is written
+  */
+final case class OpenApiOutputFormat(minify: Boolean, gzip: Boolean) {
+
+  /** Extension of the files written in this format, without leading dot. */
+  def fileExtension: String = if (gzip) "json.gz" else "json"
+
+}
+
+object OpenApiOutputFormat {
+
+  /** Indented, uncompressed JSON, as returned by `convertWithConfig`. */
+  val default: OpenApiOutputFormat =
+    OpenApiOutputFormat(minify = false, gzip = false)
+
+}
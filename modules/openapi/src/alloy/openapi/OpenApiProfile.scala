@@ -0,0 +1,77 @@
+/* Copyright 2022 Disney Streaming
+ *
+ * Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package alloy.openapi
+
+import software.amazon.smithy.model.node.Node
+import software.amazon.smithy.model.shapes.ShapeId
+
+/** Time spent converting services to OpenAPI, by service, protocol and phase.
+  * See `OpenApiProfile.record`.
+  */
+final case class OpenApiProfile(entries: List[OpenApiProfile.Entry]) {
+
+  /** Entries of all services, the most time consuming first. */
+  def slowest: List[OpenApiProfile.Entry] =
+    entries.sortBy(e => -e.wallTimeNanos)
+
+  def toNode(): Node =
+    Node.fromNodes(
+      entries.map { e =>
+        Node
+          .objectNodeBuilder()
+          .withMember("service", e.serviceId.toString())
+          .withMember("protocol", e.protocol.toString())
+          .withMember("phase", e.phase)
+          .withMember("invocations", Node.from(Long.box(e.invocations)))
+          .withMember("wallTimeNanos", Node.from(Long.box(e.wallTimeNanos)))
+          .withMember("allocatedBytes", Node.from(Long.box(e.allocatedBytes)))
+          .build(): Node
+      }: _*
+    )
+
+}
+
+object OpenApiProfile {
+
+  /** Statistics of a phase of the conversion of a service.
+    *
+    * Phases are `convert` (the whole conversion), `serialize` (printing of the
+    * document), `protocol:<method>` for the methods of the alloy protocols,
+    * `mapper:<class>` for the OpenAPI mappers and `jsonSchemaMapper:<class>`
+    * for the JSON schema mappers registered by alloy. Phases can be nested:
+    * the time of a mapper is included in the time of `convert`.
+    *
+    * `allocatedBytes` is -1 if the JVM does not measure allocations.
+    */
+  final case class Entry(
+      serviceId: ShapeId,
+      protocol: ShapeId,
+      phase: String,
+      invocations: Long,
+      wallTimeNanos: Long,
+      allocatedBytes: Long
+  )
+
+  /** Runs `f`, profiling the OpenAPI conversions it makes through the
+    * `alloy.openapi` entry points, including those run on an executor.
+    * Outside of `record`, conversions are not instrumented.
+    */
+  def record[A](f: => A): (A, OpenApiProfile) = {
+    val recorder = new OpenApiProfiling.Recorder()
+    val result = OpenApiProfiling.withRecorder(recorder)(f)
+    (result, recorder.profile())
+  }
+
+}
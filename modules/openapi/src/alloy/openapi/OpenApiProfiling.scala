@@ -0,0 +1,376 @@
+/* Copyright 2022 Disney Streaming
+ *
+ * Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package alloy.openapi
+
+import software.amazon.smithy.jsonschema.JsonSchemaMapper
+import software.amazon.smithy.jsonschema.JsonSchemaMapperContext
+import software.amazon.smithy.jsonschema.Schema
+import software.amazon.smithy.model.Model
+import software.amazon.smithy.model.node.ObjectNode
+import software.amazon.smithy.model.shapes.OperationShape
+import software.amazon.smithy.model.shapes.Shape
+import software.amazon.smithy.model.shapes.ShapeId
+import software.amazon.smithy.model.shapes.ToShapeId
+import software.amazon.smithy.model.traits.Trait
+import software.amazon.smithy.openapi.OpenApiConfig
+import software.amazon.smithy.openapi.fromsmithy.Context
+import software.amazon.smithy.openapi.fromsmithy.OpenApiMapper
+import software.amazon.smithy.openapi.fromsmithy.OpenApiProtocol
+import software.amazon.smithy.openapi.fromsmithy.SecuritySchemeConverter
+import software.amazon.smithy.openapi.model.OpenApi
+import software.amazon.smithy.openapi.model.OperationObject
+import software.amazon.smithy.openapi.model.ParameterObject
+import software.amazon.smithy.openapi.model.PathItem
+import software.amazon.smithy.openapi.model.RequestBodyObject
+import software.amazon.smithy.openapi.model.ResponseObject
+import software.amazon.smithy.openapi.model.SecurityScheme
+
+import java.lang.management.ManagementFactory
+import java.util.concurrent.ConcurrentHashMap
+import java.util.function.Supplier
+import java.{util => ju}
+import scala.jdk.CollectionConverters._
+
+/** Instrumentation behind `OpenApiProfile.record`.
+  *
+  * The recorder and the service being converted are held in a thread local,
+  * so that the mappers and protocols instantiated by smithy's
+  * `OpenApiConverter` can find them. When no recorder is installed, the
+  * extension registers the mappers and protocols as they are, unwrapped.
+  */
+private[openapi] object OpenApiProfiling {
+
+  private final case class Key(
+      serviceId: ShapeId,
+      protocol: ShapeId,
+      phase: String
+  )
+
+  private final class Stats {
+    var invocations = 0L
+    var wallTimeNanos = 0L
+    var allocatedBytes = 0L
+  }
+
+  final class Recorder {
+    private val stats = new ConcurrentHashMap[Key, Stats]()
+
+    private[OpenApiProfiling] def add(
+        key: Key,
+        wallTimeNanos: Long,
+        allocatedBytes: Long
+    ): Unit = {
+      val s = stats.computeIfAbsent(key, _ => new Stats())
+      s.synchronized {
+        s.invocations += 1
+        s.wallTimeNanos += wallTimeNanos
+        if (allocatedBytes < 0 || s.allocatedBytes < 0) s.allocatedBytes = -1
+        else s.allocatedBytes += allocatedBytes
+      }
+    }
+
+    def profile(): OpenApiProfile =
+      OpenApiProfile(
+        stats.asScala.toList
+          .map { case (k, s) =>
+            s.synchronized {
+              OpenApiProfile.Entry(
+                k.serviceId,
+                k.protocol,
+                k.phase,
+                s.invocations,
+                s.wallTimeNanos,
+                s.allocatedBytes
+              )
+            }
+          }
+          .sortBy(e => (e.serviceId.toString(), e.protocol.toString(), e.phase))
+      )
+  }
+
+  private final case class Scope(
+      recorder: Recorder,
+      service: Option[(ShapeId, ShapeId)]
+  )
+
+  private val scope = new ThreadLocal[Scope]()
+
+  def enabled: Boolean = scope.get() != null
+
+  def withRecorder[A](recorder: Recorder)(f: => A): A =
+    withScope(Scope(recorder, None))(f)
+
+  /** Attributes the phases run by `f` to the conversion of `serviceId` for
+    * `protocol`.
+    */
+  def withService[A](serviceId: ShapeId, protocol: ShapeId)(f: => A): A =
+    scope.get() match {
+      case null    => f
+      case current =>
+        withScope(current.copy(service = Some(serviceId -> protocol)))(f)
+    }
+
+  def timed[A](phase: String)(f: => A): A =
+    scope.get() match {
+      case Scope(recorder, Some((serviceId, protocol))) =>
+        val bytesBefore = allocatedBytes()
+        val start = System.nanoTime()
+        try f
+        finally {
+          val elapsed = System.nanoTime() - start
+          val bytesAfter = allocatedBytes()
+          val allocated =
+            if (bytesBefore < 0 || bytesAfter < 0) -1L
+            else bytesAfter - bytesBefore
+          recorder.add(Key(serviceId, protocol, phase), elapsed, allocated)
+        }
+      case _ => f
+    }
+
+  /** Propagates the profiling scope of the calling thread to the thread
+    * running `task`.
+    */
+  def propagate[A](task: Supplier[A]): Supplier[A] =
+    scope.get() match {
+      case null    => task
+      case current => () => withScope(current)(task.get())
+    }
+
+  private def withScope[A](s: Scope)(f: => A): A = {
+    val previous = scope.get()
+    scope.set(s)
+    try f
+    finally scope.set(previous)
+  }
+
+  private val threads: Option[com.sun.management.ThreadMXBean] =
+    ManagementFactory.getThreadMXBean() match {
+      case t: com.sun.management.ThreadMXBean
+          if t.isThreadAllocatedMemorySupported() &&
+            t.isThreadAllocatedMemoryEnabled() =>
+        Some(t)
+      case _ => None
+    }
+
+  private def allocatedBytes(): Long =
+    threads.fold(-1L)(
+      _.getThreadAllocatedBytes(Thread.currentThread().getId())
+    )
+
+  def mappers(mappers: List[OpenApiMapper]): List[OpenApiMapper] =
+    if (enabled) mappers.map(new ProfiledOpenApiMapper(_)) else mappers
+
+  def jsonSchemaMappers(
+      mappers: List[JsonSchemaMapper]
+  ): List[JsonSchemaMapper] =
+    if (enabled) mappers.map(new ProfiledJsonSchemaMapper(_)) else mappers
+
+  def protocols(
+      protocols: List[OpenApiProtocol[_ <: Trait]]
+  ): List[OpenApiProtocol[_ <: Trait]] =
+    if (enabled) protocols.map(p => new ProfiledOpenApiProtocol(p))
+    else protocols
+
+  private def phaseName(kind: String, instance: AnyRef): String =
+    s"$kind:${instance.getClass().getSimpleName()}"
+
+  private final class ProfiledOpenApiMapper(underlying: OpenApiMapper)
+      extends OpenApiMapper {
+    private val phase = phaseName("mapper", underlying)
+
+    override def getOrder(): Byte = underlying.getOrder()
+
+    override def updateDefaultSettings(
+        model: Model,
+        config: OpenApiConfig
+    ): Unit = timed(phase)(underlying.updateDefaultSettings(model, config))
+
+    override def updateOperation(
+        context: Context[_ <: Trait],
+        shape: OperationShape,
+        operation: OperationObject,
+        httpMethodName: String,
+        path: String
+    ): OperationObject = timed(phase)(
+      underlying
+        .updateOperation(context, shape, operation, httpMethodName, path)
+    )
+
+    override def postProcessOperation(
+        context: Context[_ <: Trait],
+        shape: OperationShape,
+        operation: OperationObject,
+        httpMethodName: String,
+        path: String
+    ): OperationObject = timed(phase)(
+      underlying
+        .postProcessOperation(context, shape, operation, httpMethodName, path)
+    )
+
+    override def updatePathItem(
+        context: Context[_ <: Trait],
+        path: String,
+        pathItem: PathItem
+    ): PathItem =
+      timed(phase)(underlying.updatePathItem(context, path, pathItem))
+
+    override def updateParameter(
+        context: Context[_ <: Trait],
+        operation: OperationShape,
+        httpMethodName: String,
+        path: String,
+        parameterObject: ParameterObject
+    ): ParameterObject = timed(phase)(
+      underlying.updateParameter(
+        context,
+        operation,
+        httpMethodName,
+        path,
+        parameterObject
+      )
+    )
+
+    override def updateRequestBody(
+        context: Context[_ <: Trait],
+        operation: OperationShape,
+        httpMethodName: String,
+        path: String,
+        requestBody: RequestBodyObject
+    ): RequestBodyObject = timed(phase)(
+      underlying.updateRequestBody(
+        context,
+        operation,
+        httpMethodName,
+        path,
+        requestBody
+      )
+    )
+
+    override def updateResponse(
+        context: Context[_ <: Trait],
+        operation: OperationShape,
+        status: String,
+        httpMethodName: String,
+        path: String,
+        response: ResponseObject
+    ): ResponseObject = timed(phase)(
+      underlying.updateResponse(
+        context,
+        operation,
+        status,
+        httpMethodName,
+        path,
+        response
+      )
+    )
+
+    override def before(
+        context: Context[_ <: Trait],
+        builder: OpenApi.Builder
+    ): Unit = timed(phase)(underlying.before(context, builder))
+
+    override def updateSecurityScheme(
+        context: Context[_ <: Trait],
+        authTrait: Trait,
+        securityScheme: SecurityScheme
+    ): SecurityScheme = timed(phase)(
+      underlying.updateSecurityScheme(context, authTrait, securityScheme)
+    )
+
+    override def updateSecurity(
+        context: Context[_ <: Trait],
+        shape: Shape,
+        converter: SecuritySchemeConverter[_ <: Trait],
+        requirement: ju.Map[String, ju.List[String]]
+    ): ju.Map[String, ju.List[String]] = timed(phase)(
+      underlying.updateSecurity(context, shape, converter, requirement)
+    )
+
+    override def after(
+        context: Context[_ <: Trait],
+        openapi: OpenApi
+    ): OpenApi =
+      timed(phase)(underlying.after(context, openapi))
+
+    override def updateNode(
+        context: Context[_ <: Trait],
+        openapi: OpenApi,
+        node: ObjectNode
+    ): ObjectNode = timed(phase)(underlying.updateNode(context, openapi, node))
+  }
+
+  private final class ProfiledJsonSchemaMapper(underlying: JsonSchemaMapper)
+      extends JsonSchemaMapper {
+    private val phase = phaseName("jsonSchemaMapper", underlying)
+
+    override def getOrder(): Byte = underlying.getOrder()
+
+    override def updateSchema(
+        context: JsonSchemaMapperContext,
+        schemaBuilder: Schema.Builder
+    ): Schema.Builder =
+      timed(phase)(underlying.updateSchema(context, schemaBuilder))
+  }
+
+  private final class ProfiledOpenApiProtocol[T <: Trait](
+      underlying: OpenApiProtocol[T]
+  ) extends OpenApiProtocol[T] {
+    private val prefix = "protocol:"
+
+    override def getProtocolType(): Class[T] = underlying.getProtocolType()
+
+    override def updateDefaultSettings(
+        model: Model,
+        config: OpenApiConfig
+    ): Unit = underlying.updateDefaultSettings(model, config)
+
+    override def createOperation(
+        context: Context[T],
+        operation: OperationShape
+    ): ju.Optional[OpenApiProtocol.Operation] =
+      timed(prefix + "createOperation")(
+        underlying.createOperation(context, operation)
+      )
+
+    override def getOperationUri(
+        context: Context[T],
+        operation: OperationShape
+    ): String = underlying.getOperationUri(context, operation)
+
+    override def getOperationMethod(
+        context: Context[T],
+        operation: OperationShape
+    ): String = underlying.getOperationMethod(context, operation)
+
+    override def getOperationResponseStatusCode(
+        context: Context[T],
+        operationOrError: ToShapeId
+    ): String =
+      underlying.getOperationResponseStatusCode(context, operationOrError)
+
+    override def getProtocolRequestHeaders(
+        context: Context[T],
+        operationShape: OperationShape
+    ): ju.Set[String] =
+      underlying.getProtocolRequestHeaders(context, operationShape)
+
+    override def getProtocolResponseHeaders(
+        context: Context[T],
+        operationShape: OperationShape
+    ): ju.Set[String] =
+      underlying.getProtocolResponseHeaders(context, operationShape)
+  }
+
+}
@@ -0,0 +1,100 @@
+/* Copyright 2022 Disney Streaming
+ *
+ * Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package alloy.openapi
+
+import software.amazon.smithy.model.shapes.Shape
+import software.amazon.smithy.model.shapes.ShapeId
+import software.amazon.smithy.model.traits.Trait
+import software.amazon.smithy.openapi.fromsmithy.Smithy2OpenApiExtension
+
+import java.lang.ref.SoftReference
+import java.util.ServiceLoader
+import java.util.WeakHashMap
+import scala.jdk.CollectionConverters._
+
+/** The `Smithy2OpenApiExtension`s visible from a class loader, and their
+  * protocol traits, loaded once per class loader.
+  *
+  * Class loaders are weakly referenced, and the cached extensions softly so,
+  * as they hold on to classes of the class loader they were loaded from.
+  */
+private[openapi] object OpenApiProtocols {
+
+  final case class TraitKey[T <: Trait](cls: Class[T]) {
+    def getIdIfApplied(shape: Shape): Option[ShapeId] = {
+      val maybeTrait = shape.getTrait(cls)
+      if (maybeTrait.isPresent()) {
+        Some(maybeTrait.get().toShapeId())
+      } else None
+    }
+  }
+
+  private final case class Extensions(
+      traitKeys: Set[TraitKey[_]],
+      versions: List[String]
+  )
+
+  private val cache =
+    new WeakHashMap[ClassLoader, SoftReference[Extensions]]()
+
+  private def extensions(classLoader: ClassLoader): Extensions =
+    cache.synchronized {
+      Option(cache.get(classLoader)).flatMap(ref => Option(ref.get())) match {
+        case Some(extensions) => extensions
+        case None             =>
+          val extensions = load(classLoader)
+          cache.put(classLoader, new SoftReference(extensions))
+          extensions
+      }
+    }
+
+  def traitKeys(classLoader: ClassLoader): Set[TraitKey[_]] =
+    extensions(classLoader).traitKeys
+
+  /** The class names of the extensions, each followed by the implementation
+    * version of its package (empty if its jar manifest has none), sorted.
+    */
+  def versions(classLoader: ClassLoader): List[String] =
+    extensions(classLoader).versions
+
+  /** Protocols of the service that can be converted to OpenAPI. */
+  def of(service: Shape, classLoader: ClassLoader): Set[ShapeId] =
+    traitKeys(classLoader).flatMap(_.getIdIfApplied(service))
+
+  private def load(classLoader: ClassLoader): Extensions = {
+    val loaded = ServiceLoader
+      .load(
+        classOf[Smithy2OpenApiExtension],
+        classLoader
+      )
+      .asScala
+      .toVector
+    Extensions(
+      loaded
+        .flatMap(
+          _.getProtocols().asScala.map(p => TraitKey(p.getProtocolType()))
+        )
+        .toSet,
+      loaded.map { extension =>
+        val version = Option(extension.getClass().getPackage())
+          .flatMap(p => Option(p.getImplementationVersion()))
+          .getOrElse("")
+        s"${extension.getClass().getName()}:$version"
+      }.sorted.toList
+    )
+  }
+
+}
@@ -0,0 +1,93 @@
+/* Copyright 2022 Disney Streaming
+ *
+ * Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package alloy.openapi
+
+import software.amazon.smithy.model.node.Node
+import software.amazon.smithy.model.traits.Trait
+import software.amazon.smithy.openapi.fromsmithy.Context
+import software.amazon.smithy.openapi.model.ComponentsObject
+import software.amazon.smithy.openapi.model.OpenApi
+import software.amazon.smithy.openapi.model.PathItem
+
+import java.{util => ju}
+import scala.jdk.CollectionConverters._
+
+/** A rewrite of parts of an OpenAPI document, run after the document is
+  * built. Each method returns `None` when the rewrite leaves its part of the
+  * document untouched, so that untouched parts are not copied.
+  */
+private[openapi] trait OpenApiRewrite {
+
+  def rewriteExtensions(
+      context: Context[_ <: Trait],
+      openapi: OpenApi,
+      extensions: ju.Map[String, Node]
+  ): Option[ju.Map[String, Node]] = None
+
+  def rewriteComponents(
+      context: Context[_ <: Trait],
+      openapi: OpenApi,
+      components: ComponentsObject
+  ): Option[ComponentsObject] = None
+
+  def rewritePath(
+      context: Context[_ <: Trait],
+      openapi: OpenApi,
+      path: String,
+      pathItem: PathItem
+  ): Option[PathItem] = None
+
+}
+
+private[openapi] object OpenApiRewrite {
+
+  /** Runs the rewrites in order, in a single traversal of the document. The
+    * document is only rebuilt if one of the rewrites changed part of it, and
+    * then only the changed parts are replaced.
+    */
+  def run(
+      context: Context[_ <: Trait],
+      openapi: OpenApi,
+      rewrites: List[OpenApiRewrite]
+  ): OpenApi = {
+    def fold[A](original: A)(rewrite: (OpenApiRewrite, A) => Option[A]) =
+      rewrites.foldLeft(Option.empty[A]) { (rewritten, r) =>
+        rewrite(r, rewritten.getOrElse(original)).orElse(rewritten)
+      }
+
+    val extensions = fold(openapi.getExtensions()) {
+      (r, e) => r.rewriteExtensions(context, openapi, e)
+    }
+    val components = fold(openapi.getComponents()) { (r, c) =>
+      r.rewriteComponents(context, openapi, c)
+    }
+    val paths = openapi.getPaths().asScala.toList.flatMap {
+      case (path, pathItem) =>
+        fold(pathItem)((r, p) => r.rewritePath(context, openapi, path, p))
+          .map(path -> _)
+    }
+
+    if (extensions.isEmpty && components.isEmpty && paths.isEmpty) openapi
+    else {
+      val builder = openapi.toBuilder()
+      extensions.foreach(builder.extensions(_))
+      components.foreach(builder.components(_))
+      paths.foreach { case (path, pathItem) => builder.putPath(path, pathItem) }
+      builder.build()
+    }
+  }
+
+}
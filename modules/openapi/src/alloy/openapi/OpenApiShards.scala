@@ -0,0 +1,152 @@
+/* Copyright 2022 Disney Streaming
+ *
+ * Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package alloy.openapi
+
+import software.amazon.smithy.model.Model
+import software.amazon.smithy.model.loader.Prelude
+import software.amazon.smithy.model.neighbor.Walker
+import software.amazon.smithy.model.node.ArrayNode
+import software.amazon.smithy.model.node.Node
+import software.amazon.smithy.model.node.ObjectNode
+import software.amazon.smithy.model.node.StringNode
+import software.amazon.smithy.model.shapes.MemberShape
+import software.amazon.smithy.model.shapes.Shape
+
+import scala.jdk.CollectionConverters._
+
+/** Splits an OpenAPI document into a root document and one file of component
+  * schemas per smithy namespace. References to component schemas are
+  * rewritten into relative references between these files.
+  */
+private[openapi] object OpenApiShards {
+
+  val rootFileName = "openapi.json"
+  val componentsDirectory = "components"
+
+  private val schemaPrefix = "#/components/schemas/"
+
+  /** The files of a sharded document, by path relative to the directory
+    * holding the root document.
+    */
+  def split(
+      model: Model,
+      service: Shape,
+      document: ObjectNode
+  ): List[(String, Node)] = {
+    val schemas = document
+      .getObjectMember("components")
+      .asScala
+      .flatMap(_.getObjectMember("schemas").asScala)
+      .map(_.getMembers().asScala.toList)
+      .getOrElse(Nil)
+    val namespaceOf = schemaNamespaces(model, service)
+    val fileOf = schemas.map { case (name, _) =>
+      name.getValue() -> s"${namespaceOf(name.getValue())}.json"
+    }.toMap
+
+    val shards = schemas.groupBy { case (name, _) => fileOf(name.getValue()) }
+    val shardFiles = shards.toList.sortBy(_._1).map { case (file, members) =>
+      val builder = ObjectNode.builder()
+      members.foreach { case (name, schema) =>
+        builder.withMember(name, rewriteRefs(schema, fileOf, Some(file)))
+      }
+      s"$componentsDirectory/$file" -> (builder.build(): Node)
+    }
+
+    val withoutSchemas = document
+      .getObjectMember("components")
+      .asScala
+      .fold(document) { components =>
+        val rest = components.withoutMember("schemas")
+        if (rest.isEmpty()) document.withoutMember("components")
+        else document.withMember("components", rest)
+      }
+    val root = rewriteRefs(withoutSchemas, fileOf, None)
+    (rootFileName -> root) :: shardFiles
+  }
+
+  private def rewriteRefs(
+      node: Node,
+      fileOf: Map[String, String],
+      currentFile: Option[String]
+  ): Node =
+    node match {
+      case obj: ObjectNode =>
+        val builder = ObjectNode.builder()
+        obj.getMembers().asScala.foreach { case (key, value) =>
+          val updated = value match {
+            case pointer: StringNode if key.getValue() == "$ref" =>
+              Node.from(rewriteRef(pointer.getValue(), fileOf, currentFile))
+            case other => rewriteRefs(other, fileOf, currentFile)
+          }
+          builder.withMember(key, updated)
+        }
+        builder.build()
+      case array: ArrayNode =>
+        Node.fromNodes(
+          array
+            .getElements()
+            .asScala
+            .map(rewriteRefs(_, fileOf, currentFile))
+            .asJava
+        )
+      case other => other
+    }
+
+  private def rewriteRef(
+      ref: String,
+      fileOf: Map[String, String],
+      currentFile: Option[String]
+  ): String =
+    if (!ref.startsWith(schemaPrefix)) ref
+    else {
+      val name = ref.stripPrefix(schemaPrefix)
+      fileOf.get(name) match {
+        case None => ref
+        case Some(file) if currentFile.isEmpty =>
+          s"$componentsDirectory/$file#/$name"
+        case Some(file) if currentFile.contains(file) => s"#/$name"
+        case Some(file)                               => s"$file#/$name"
+      }
+    }
+
+  /** Component schemas are named after the shape they are created from,
+    * possibly with a suffix (`<Operation>RequestContent`, `<Union><Member>`,
+    * ...). A schema is attributed to the namespace of the shape of the service
+    * closure with the longest name prefixing its own, or to the namespace of
+    * the service.
+    */
+  private def schemaNamespaces(
+      model: Model,
+      service: Shape
+  ): String => String = {
+    val namespaces = new Walker(model)
+      .walkShapes(service)
+      .asScala
+      .filterNot(s => s.isInstanceOf[MemberShape] || Prelude.isPreludeShape(s))
+      .toList
+      .sortBy(_.getId().toString())
+      .map(s => s.getId().getName() -> s.getId().getNamespace())
+      .toMap
+    val names = namespaces.keys.toList.sortBy(-_.length)
+    val default = service.getId().getNamespace()
+
+    schemaName =>
+      names
+        .find(schemaName.startsWith)
+        .fold(default)(namespaces)
+  }
+
+}
@@ -0,0 +1,86 @@
+/* Copyright 2022 Disney Streaming
+ *
+ * Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package alloy.openapi
+
+import software.amazon.smithy.model.Model
+import software.amazon.smithy.model.loader.Prelude
+import software.amazon.smithy.model.neighbor.Walker
+import software.amazon.smithy.model.node.Node
+import software.amazon.smithy.model.node.NodeMapper
+import software.amazon.smithy.model.shapes.ModelSerializer
+import software.amazon.smithy.model.shapes.Shape
+import software.amazon.smithy.model.shapes.ShapeId
+import software.amazon.smithy.openapi.OpenApiConfig
+
+import java.nio.charset.StandardCharsets
+import java.security.MessageDigest
+import scala.jdk.CollectionConverters._
+
+/** Content hashes identifying the inputs of an OpenAPI conversion, used to
+  * skip the conversion of services that did not change since the previous run.
+  */
+private[openapi] object ServiceFingerprint {
+
+  // Bump whenever a change of the conversion invalidates previous documents.
+  private val formatVersion = "1"
+
+  /** Canonical serialization of the shapes reachable from `service`, traits
+    * included. Object keys are sorted, so that the order in which shapes and
+    * trait values are declared does not matter.
+    */
+  def closure(model: Model, service: Shape): Array[Byte] = {
+    val shapes = new Walker(model)
+      .walkShapes(service)
+      .asScala
+      .filterNot(s => Prelude.isPreludeShape(s))
+    val node = ModelSerializer
+      .builder()
+      .build()
+      .serialize(Model.builder().addShapes(shapes.asJava).build())
+    Node.printJson(node.withDeepSortedKeys()).getBytes(StandardCharsets.UTF_8)
+  }
+
+  /** Hash of the conversion of a service closure for a protocol, with the
+    * given config and OpenAPI extensions (as listed by
+    * `OpenApiProtocols.versions`), as a lowercase hexadecimal string.
+    */
+  def hash(
+      closure: Array[Byte],
+      protocol: ShapeId,
+      config: OpenApiConfig,
+      extensions: List[String]
+  ): String = {
+    val configNode = new NodeMapper().serialize(config).withDeepSortedKeys()
+    val digest = MessageDigest.getInstance("SHA-256")
+    List(
+      formatVersion.getBytes(StandardCharsets.UTF_8),
+      implementationVersion.getBytes(StandardCharsets.UTF_8),
+      protocol.toString().getBytes(StandardCharsets.UTF_8),
+      Node.printJson(configNode).getBytes(StandardCharsets.UTF_8),
+      extensions.mkString("\n").getBytes(StandardCharsets.UTF_8),
+      closure
+    ).foreach { bytes =>
+      digest.update(bytes)
+      digest.update(0.toByte)
+    }
+    digest.digest().map(b => f"${b & 0xff}%02x").mkString
+  }
+
+  private def implementationVersion: String =
+    Option(getClass().getPackage())
+      .flatMap(p => Option(p.getImplementationVersion()))
+      .getOrElse("")
+
+}
@@ -19,86 +19,370 @@ import software.amazon.smithy.model.Model
 import software.amazon.smithy.model.node.Node
 import software.amazon.smithy.model.shapes.Shape
 import software.amazon.smithy.model.shapes.ShapeId
-import software.amazon.smithy.model.traits.Trait
 import software.amazon.smithy.openapi.OpenApiConfig
 import software.amazon.smithy.openapi.fromsmithy.OpenApiConverter
-import software.amazon.smithy.openapi.fromsmithy.Smithy2OpenApiExtension
 
-import java.util.ServiceLoader
+import java.io.BufferedWriter
+import java.io.OutputStream
+import java.io.OutputStreamWriter
+import java.io.Writer
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CompletionException
+import java.util.concurrent.Executor
+import java.util.function.Supplier
+import java.util.zip.GZIPOutputStream
 import scala.jdk.CollectionConverters._
 
 package object openapi {
 
+  private val BufferSize = 64 * 1024
+
   def convertWithConfig(
       model: Model,
       service: Shape,
       buildConfig: Unit => OpenApiConfig,
       classLoader: ClassLoader
-  ): List[OpenApiConversionResult] = {
+  ): List[OpenApiConversionResult] =
+    OpenApiProtocols.of(service, classLoader).map { protocol =>
+      val openapi =
+        convertToNode(model, service, protocol, buildConfig, classLoader)
+      val jsonString =
+        serialize(service.getId(), protocol)(Node.prettyPrintJson(openapi))
+      OpenApiConversionResult(protocol, service.getId(), jsonString)
+    }.toList
 
-    import scala.jdk.CollectionConverters._
+  /** Variant of `convertWithConfig` writing each document to the writer
+    * returned by `openWriter` (called with the protocol and the service id)
+    * instead of keeping it in memory as a string. Each writer is closed once
+    * its document is written.
+    */
+  def convertWithConfigTo(
+      model: Model,
+      service: Shape,
+      buildConfig: Unit => OpenApiConfig,
+      classLoader: ClassLoader,
+      openWriter: (ShapeId, ShapeId) => Writer
+  ): List[OpenApiWriteResult] =
+    convertWithConfigTo(
+      model,
+      service,
+      buildConfig,
+      classLoader,
+      openWriter,
+      minify = false
+    )
 
-    case class TraitKey[T <: Trait](cls: Class[T]) {
-      def getIdIfApplied(shape: Shape): Option[ShapeId] = {
-        val maybeTrait = shape.getTrait(cls)
-        if (maybeTrait.isPresent()) {
-          Some(maybeTrait.get().toShapeId())
-        } else None
+  private def convertWithConfigTo(
+      model: Model,
+      service: Shape,
+      buildConfig: Unit => OpenApiConfig,
+      classLoader: ClassLoader,
+      openWriter: (ShapeId, ShapeId) => Writer,
+      minify: Boolean
+  ): List[OpenApiWriteResult] =
+    OpenApiProtocols.of(service, classLoader).map { protocol =>
+      val serviceId = service.getId()
+      val writer = openWriter(protocol, serviceId)
+      try {
+        val document =
+          convertToNode(model, service, protocol, buildConfig, classLoader)
+        serialize(serviceId, protocol) {
+          if (minify) CompactJson.write(document, writer)
+          else Node.prettyPrintJsonToWriter(document, writer)
+          writer.flush()
+        }
+      } finally {
+        writer.close()
       }
-    }
-    val openapiAwareTraits: Set[TraitKey[_]] = ServiceLoader
-      .load(
-        classOf[Smithy2OpenApiExtension],
-        classLoader
-      )
-      .asScala
-      .toVector
-      .flatMap(_.getProtocols().asScala.map(p => TraitKey(p.getProtocolType())))
-      .toSet
+      OpenApiWriteResult(protocol, serviceId)
+    }.toList
 
-    val protocols: Set[ShapeId] =
-      openapiAwareTraits.flatMap(_.getIdIfApplied(service))
+  /** Variant of `convertWithConfigTo` writing each document, encoded as
+    * specified by `format`, to the stream returned by `openStream` (called with
+    * the protocol and the service id). The document is minified and compressed
+    * as it is written. Each stream is closed once its document is written.
+    */
+  def convertWithConfigToStream(
+      model: Model,
+      service: Shape,
+      buildConfig: Unit => OpenApiConfig,
+      classLoader: ClassLoader,
+      format: OpenApiOutputFormat,
+      openStream: (ShapeId, ShapeId) => OutputStream
+  ): List[OpenApiWriteResult] =
+    convertWithConfigTo(
+      model,
+      service,
+      buildConfig,
+      classLoader,
+      (protocol, serviceId) => {
+        val stream = openStream(protocol, serviceId)
+        val encoded =
+          if (format.gzip) new GZIPOutputStream(stream, BufferSize)
+          else stream
+        new BufferedWriter(
+          new OutputStreamWriter(encoded, StandardCharsets.UTF_8),
+          BufferSize
+        )
+      },
+      format.minify
+    )
 
-    protocols.map { protocol =>
-      val serviceId = service.getId()
-      val config = buildConfig(())
-      config.setService(serviceId)
-      config.setProtocol(protocol)
-      config.setIgnoreUnsupportedTraits(true)
-      val openapi =
-        OpenApiConverter
-          .create()
-          .config(config)
-          .classLoader(classLoader)
-          .convertToNode(model)
-      val jsonString = Node.prettyPrintJson(openapi)
-      OpenApiConversionResult(protocol, serviceId, jsonString)
+  def convertWithConfig(
+      model: Model,
+      allowedNS: Option[Set[String]],
+      buildConfig: Unit => OpenApiConfig,
+      classLoader: ClassLoader
+  ): List[OpenApiConversionResult] =
+    filterServices(model, allowedNS).flatMap { service =>
+      convertWithConfig(
+        model = model,
+        service = service,
+        buildConfig = buildConfig,
+        classLoader = classLoader
+      )
     }.toList
-  }
 
-  def convertWithConfig(
+  /** Lazy variant of `convertWithConfig`: a service is only converted when the
+    * iterator reaches it, so that each document can be processed and released
+    * before the next one is produced. Results of a same service come together;
+    * services are not ordered as in the list returned by `convertWithConfig`.
+    */
+  def convertWithConfigIterator(
       model: Model,
       allowedNS: Option[Set[String]],
       buildConfig: Unit => OpenApiConfig,
       classLoader: ClassLoader
-  ): List[OpenApiConversionResult] = {
-    val serviceShapes =
-      model.getServiceShapes().asScala.toSet[Shape]
+  ): Iterator[OpenApiConversionResult] =
+    filterServices(model, allowedNS).iterator.flatMap { service =>
+      convertWithConfig(
+        model = model,
+        service = service,
+        buildConfig = buildConfig,
+        classLoader = classLoader
+      )
+    }
 
-    val filteredServices = allowedNS match {
-      case None             => serviceShapes
-      case Some(namespaces) =>
-        serviceShapes.filter(s => namespaces.contains(s.getId.getNamespace()))
+  /** Variant of `convertWithConfig` converting services concurrently, on
+    * `executor`. `buildConfig` may be called from several threads at once.
+    * Results are assembled from the set of services as in the sequential
+    * variant, so that they come in the same order.
+    */
+  def convertWithConfig(
+      model: Model,
+      allowedNS: Option[Set[String]],
+      buildConfig: Unit => OpenApiConfig,
+      classLoader: ClassLoader,
+      executor: Executor
+  ): List[OpenApiConversionResult] = {
+    val services = filterServices(model, allowedNS)
+    val conversions = services.toList.map { service =>
+      val task: Supplier[List[OpenApiConversionResult]] =
+        () => convertWithConfig(model, service, buildConfig, classLoader)
+      service -> CompletableFuture
+        .supplyAsync(OpenApiProfiling.propagate(task), executor)
     }
+    val results = conversions
+      .map(_._1)
+      .zip(joinAll(conversions.map(_._2)))
+      .toMap
+    services.flatMap(results).toList
+  }
 
-    filteredServices.flatMap { service =>
-      convertWithConfig(
+  def convertWithConfigTo(
+      model: Model,
+      allowedNS: Option[Set[String]],
+      buildConfig: Unit => OpenApiConfig,
+      classLoader: ClassLoader,
+      openWriter: (ShapeId, ShapeId) => Writer
+  ): List[OpenApiWriteResult] =
+    filterServices(model, allowedNS).flatMap { service =>
+      convertWithConfigTo(
         model = model,
         service = service,
         buildConfig = buildConfig,
-        classLoader = classLoader
+        classLoader = classLoader,
+        openWriter = openWriter
       )
     }.toList
+
+  def convertWithConfigToStream(
+      model: Model,
+      allowedNS: Option[Set[String]],
+      buildConfig: Unit => OpenApiConfig,
+      classLoader: ClassLoader,
+      format: OpenApiOutputFormat,
+      openStream: (ShapeId, ShapeId) => OutputStream
+  ): List[OpenApiWriteResult] =
+    filterServices(model, allowedNS).flatMap { service =>
+      convertWithConfigToStream(
+        model = model,
+        service = service,
+        buildConfig = buildConfig,
+        classLoader = classLoader,
+        format = format,
+        openStream = openStream
+      )
+    }.toList
+
+  /** Writes the documents to `directory`, in files named
+    * `<namespace>.<service>.<protocol>.json`.
+    */
+  def convertWithConfigToDirectory(
+      model: Model,
+      allowedNS: Option[Set[String]],
+      buildConfig: Unit => OpenApiConfig,
+      classLoader: ClassLoader,
+      directory: Path
+  ): List[OpenApiWriteResult] =
+    convertWithConfigToDirectory(
+      model,
+      allowedNS,
+      buildConfig,
+      classLoader,
+      directory,
+      OpenApiOutputFormat.default
+    )
+
+  /** Writes the documents to `directory` in the given format, in files named
+    * `<namespace>.<service>.<protocol>.<extension>` where the extension is
+    * `json`, or `json.gz` for compressed documents.
+    */
+  def convertWithConfigToDirectory(
+      model: Model,
+      allowedNS: Option[Set[String]],
+      buildConfig: Unit => OpenApiConfig,
+      classLoader: ClassLoader,
+      directory: Path,
+      format: OpenApiOutputFormat
+  ): List[OpenApiWriteResult] =
+    convertWithConfigToStream(
+      model,
+      allowedNS,
+      buildConfig,
+      classLoader,
+      format,
+      (protocol, serviceId) =>
+        Files.newOutputStream(
+          directory.resolve(
+            documentName(protocol, serviceId) + "." + format.fileExtension
+          )
+        )
+    )
+
+  /** Writes each document to its own `<namespace>.<service>.<protocol>`
+    * subdirectory of `directory`, split in several files: a root `openapi.json`
+    * document and, for each smithy namespace, a `components/<namespace>.json`
+    * file holding the component schemas created from the shapes of that
+    * namespace. References between these files are relative, so that a
+    * consumer only needs to load the files it uses.
+    *
+    * The files of a document are written concurrently, on `executor`. Files
+    * whose content did not change are not rewritten.
+    */
+  def convertWithConfigToShardedDirectory(
+      model: Model,
+      allowedNS: Option[Set[String]],
+      buildConfig: Unit => OpenApiConfig,
+      classLoader: ClassLoader,
+      directory: Path,
+      executor: Executor
+  ): List[OpenApiWriteResult] =
+    filterServices(model, allowedNS).toList.flatMap { service =>
+      OpenApiProtocols.of(service, classLoader).map { protocol =>
+        val serviceId = service.getId()
+        val document =
+          convertToNode(model, service, protocol, buildConfig, classLoader)
+        val documentDirectory =
+          directory.resolve(documentName(protocol, serviceId))
+        val shards =
+          OpenApiShards.split(model, service, document.expectObjectNode())
+        val componentsDirectory =
+          documentDirectory.resolve(OpenApiShards.componentsDirectory)
+        Files.createDirectories(componentsDirectory)
+        val writes = shards.map { case (file, node) =>
+          val task: Supplier[Unit] = () =>
+            writeIfChanged(
+              documentDirectory.resolve(file),
+              serialize(serviceId, protocol)(Node.prettyPrintJson(node))
+            )
+          CompletableFuture
+            .supplyAsync(OpenApiProfiling.propagate(task), executor)
+        }
+        joinAll(writes)
+        // Shards of namespaces that are no longer used.
+        val written = shards.map(s => documentDirectory.resolve(s._1)).toSet
+        val stream = Files.list(componentsDirectory)
+        try
+          stream.iterator().asScala.filterNot(written).foreach { path =>
+            Files.delete(path)
+          }
+        finally stream.close()
+        OpenApiWriteResult(protocol, serviceId)
+      }
+    }
+
+  /** Incremental variant of `convertWithConfig`. Documents are kept in
+    * `cacheDirectory` (named as by `convertWithConfigToDirectory`), each with
+    * a `.sha256` file holding a hash of what it was generated from: the shapes
+    * reachable from the service with their trait values, the protocol, the
+    * config returned by `buildConfig`, and the `Smithy2OpenApiExtension`
+    * classes visible from `classLoader` with the implementation versions of
+    * their packages. A document is only regenerated when that hash changed;
+    * otherwise it is read back from the cache directory.
+    *
+    * Changes the hash does not capture leave stale documents behind; the cache
+    * directory must then be cleared. These are changes to the code of an
+    * extension (or of the mappers and protocols it provides) that keep its
+    * implementation version, as with snapshots or extensions loaded from class
+    * directories, and changes to shapes outside of the closure of the service
+    * that a mapper reads from the model.
+    */
+  def convertWithConfigIncremental(
+      model: Model,
+      allowedNS: Option[Set[String]],
+      buildConfig: Unit => OpenApiConfig,
+      classLoader: ClassLoader,
+      cacheDirectory: Path
+  ): List[OpenApiConversionResult] = {
+    Files.createDirectories(cacheDirectory)
+    filterServices(model, allowedNS).toList.flatMap { service =>
+      lazy val closure = ServiceFingerprint.closure(model, service)
+      OpenApiProtocols.of(service, classLoader).map { protocol =>
+        val config = configFor(service, protocol, buildConfig)
+        val hash = ServiceFingerprint.hash(
+          closure,
+          protocol,
+          config,
+          OpenApiProtocols.versions(classLoader)
+        )
+        val fileName = documentFileName(protocol, service.getId())
+        val documentFile = cacheDirectory.resolve(fileName)
+        val hashFile = cacheDirectory.resolve(fileName + ".sha256")
+        val upToDate =
+          Files.isRegularFile(documentFile) &&
+            Files.isRegularFile(hashFile) &&
+            readUtf8(hashFile) == hash
+        val jsonString =
+          if (upToDate) readUtf8(documentFile)
+          else {
+            // The hash is removed first so that a partially written document
+            // is never considered up to date.
+            Files.deleteIfExists(hashFile)
+            val document = runConverter(model, config, classLoader)
+            val json = serialize(service.getId(), protocol) {
+              Node.prettyPrintJson(document)
+            }
+            writeUtf8(documentFile, json)
+            writeUtf8(hashFile, hash)
+            json
+          }
+        OpenApiConversionResult(protocol, service.getId(), jsonString)
+      }
+    }
   }
 
   def convertWithConfig(
@@ -133,6 +417,101 @@ package object openapi {
   ): List[OpenApiConversionResult] =
     convert(model, allowedNS, this.getClass().getClassLoader())
 
+  private def convertToNode(
+      model: Model,
+      service: Shape,
+      protocol: ShapeId,
+      buildConfig: Unit => OpenApiConfig,
+      classLoader: ClassLoader
+  ): Node =
+    runConverter(model, configFor(service, protocol, buildConfig), classLoader)
+
+  private def runConverter(
+      model: Model,
+      config: OpenApiConfig,
+      classLoader: ClassLoader
+  ): Node =
+    OpenApiProfiling.withService(config.getService(), config.getProtocol()) {
+      OpenApiProfiling.timed("convert") {
+        OpenApiConverter
+          .create()
+          .config(config)
+          .classLoader(classLoader)
+          .convertToNode(model)
+      }
+    }
+
+  private def serialize[A](serviceId: ShapeId, protocol: ShapeId)(f: => A): A =
+    OpenApiProfiling.withService(serviceId, protocol) {
+      OpenApiProfiling.timed("serialize")(f)
+    }
+
+  private def configFor(
+      service: Shape,
+      protocol: ShapeId,
+      buildConfig: Unit => OpenApiConfig
+  ): OpenApiConfig = {
+    val config = buildConfig(())
+    config.setService(service.getId())
+    config.setProtocol(protocol)
+    config.setIgnoreUnsupportedTraits(true)
+    config
+  }
+
+  private def documentFileName(protocol: ShapeId, serviceId: ShapeId) =
+    documentName(protocol, serviceId) + ".json"
+
+  private def documentName(protocol: ShapeId, serviceId: ShapeId) =
+    List(
+      serviceId.getNamespace(),
+      serviceId.getName(),
+      protocol.getName()
+    ).mkString(".")
+
+  private def writeIfChanged(path: Path, content: String): Unit = {
+    val bytes = content.getBytes(StandardCharsets.UTF_8)
+    val unchanged =
+      Files.isRegularFile(path) &&
+        java.util.Arrays.equals(Files.readAllBytes(path), bytes)
+    if (!unchanged) {
+      val _ = Files.write(path, bytes)
+    }
+  }
+
+  /** Waits for all the futures. If one of them fails, the others are
+    * cancelled and its failure is rethrown.
+    */
+  private def joinAll[A](futures: List[CompletableFuture[A]]): List[A] =
+    futures.map { future =>
+      try future.join()
+      catch {
+        case e: CompletionException if e.getCause() != null =>
+          futures.foreach(_.cancel(false))
+          throw e.getCause()
+      }
+    }
+
+  private def readUtf8(path: Path): String =
+    new String(Files.readAllBytes(path), StandardCharsets.UTF_8)
+
+  private def writeUtf8(path: Path, content: String): Unit = {
+    val _ = Files.write(path, content.getBytes(StandardCharsets.UTF_8))
+  }
+
+  private def filterServices(
+      model: Model,
+      allowedNS: Option[Set[String]]
+  ): Set[Shape] = {
+    val serviceShapes =
+      model.getServiceShapes().asScala.toSet[Shape]
+
+    allowedNS match {
+      case None             => serviceShapes
+      case Some(namespaces) =>
+        serviceShapes.filter(s => namespaces.contains(s.getId.getNamespace()))
+    }
+  }
+
   implicit class OptionalExt[A](opt: java.util.Optional[A]) {
     def asScala: Option[A] = if (opt.isPresent()) Some(opt.get()) else None
   }
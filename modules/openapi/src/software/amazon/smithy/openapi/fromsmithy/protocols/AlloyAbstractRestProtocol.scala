@@ -15,12 +15,9 @@
 
 package software.amazon.smithy.openapi.fromsmithy.protocols
 
-import cats.syntax.all._
-import alloy.UncheckedExamplesTrait
 import software.amazon.smithy.jsonschema.Schema
 import software.amazon.smithy.model.knowledge.HttpBinding.Location
 import software.amazon.smithy.model.knowledge._
-import software.amazon.smithy.model.node.Node
 import software.amazon.smithy.model.shapes._
 import software.amazon.smithy.model.traits._
 import software.amazon.smithy.openapi.OpenApiException
@@ -31,6 +28,7 @@ import software.amazon.smithy.openapi.model._
 
 import java.util
 import java.util.function.Function
+import scala.collection.mutable
 import scala.jdk.CollectionConverters._
 import software.amazon.smithy.model.traits.ExamplesTrait.Example
 
@@ -112,14 +110,18 @@ abstract class AlloyAbstractRestProtocol[T <: Trait]
           context.getOpenApiProtocol.getOperationUri(context, operation)
         val builder =
           OperationObject.builder.operationId(operation.getId.getName)
-        val bindingIndex = HttpBindingIndex.of(context.getModel)
-        createPathParameters(context, operation).foreach(builder.addParameter)
-        createQueryParameters(context, operation).foreach(builder.addParameter)
-        createRequestHeaderParameters(context, operation)
+        val bindings =
+          OperationBindings.of(HttpBindingIndex.of(context.getModel), operation)
+        val examples = OperationExamples.of(operation)
+        createPathParameters(context, operation, bindings, examples)
           .foreach(builder.addParameter)
-        createRequestBody(context, bindingIndex, operation)
+        createQueryParameters(context, bindings, examples)
+          .foreach(builder.addParameter)
+        createRequestHeaderParameters(context, bindings, examples)
+          .foreach(builder.addParameter)
+        createRequestBody(context, bindings, operation, examples)
           .foreach(builder.requestBody)
-        createResponses(context, bindingIndex, operation)
+        createResponses(context, bindings, operation)
           .foreach { case (k, values) =>
             combineResponseContent(values, k)
               .foreach(v => builder.putResponse(k, v))
@@ -186,18 +188,23 @@ abstract class AlloyAbstractRestProtocol[T <: Trait]
   def createPathParameters(
       context: Context[T],
       operation: OperationShape
-  ) = {
-    val bindingIndex = HttpBindingIndex.of(context.getModel)
+  ): mutable.Buffer[ParameterObject] =
+    createPathParameters(
+      context,
+      operation,
+      OperationBindings.of(HttpBindingIndex.of(context.getModel), operation),
+      OperationExamples.of(operation)
+    )
+
+  private def createPathParameters(
+      context: Context[T],
+      operation: OperationShape,
+      bindings: OperationBindings,
+      examples: OperationExamples
+  ): mutable.Buffer[ParameterObject] = {
     val httpTrait = operation.expectTrait(classOf[HttpTrait])
 
-    for (
-      binding <- bindingIndex
-        .getRequestBindings(
-          operation,
-          HttpBinding.Location.LABEL
-        )
-        .asScala
-    ) yield {
+    for (binding <- bindings.request.labels.asScala) yield {
       val schema = createPathParameterSchema(context, binding)
       val memberName = binding.getMemberName
       val label = httpTrait.getUri
@@ -228,7 +235,7 @@ abstract class AlloyAbstractRestProtocol[T <: Trait]
         .in("path")
         .schema(schema)
 
-      createInputExamples(operation, memberName).foreach(builder.examples)
+      examples.input(memberName).foreach(builder.examples)
 
       builder.build
     }
@@ -272,17 +279,10 @@ abstract class AlloyAbstractRestProtocol[T <: Trait]
   // has a location of "query".
   private def createQueryParameters(
       context: Context[T],
-      operation: OperationShape
+      bindings: OperationBindings,
+      examples: OperationExamples
   ) = {
-    val httpBindingIndex = HttpBindingIndex.of(context.getModel)
-    for (
-      binding <- httpBindingIndex
-        .getRequestBindings(
-          operation,
-          HttpBinding.Location.QUERY
-        )
-        .asScala
-    ) yield {
+    for (binding <- bindings.request.query.asScala) yield {
       val member = binding.getMember
       val param = ModelUtils
         .createParameterMember(context, member)
@@ -298,9 +298,7 @@ abstract class AlloyAbstractRestProtocol[T <: Trait]
       val refSchema = context.inlineOrReferenceSchema(member)
       val visitor = new QuerySchemaVisitor[T](context, refSchema, member)
       param.schema(target.accept(visitor))
-      createInputExamples(operation, binding.getMemberName).foreach(
-        param.examples
-      )
+      examples.input(binding.getMemberName).foreach(param.examples)
 
       param.build
     }
@@ -308,15 +306,13 @@ abstract class AlloyAbstractRestProtocol[T <: Trait]
 
   private def createRequestHeaderParameters(
       context: Context[T],
-      operation: OperationShape
+      bindings: OperationBindings,
+      examples: OperationExamples
   ) = {
-    val bindings = HttpBindingIndex
-      .of(context.getModel)
-      .getRequestBindings(operation, HttpBinding.Location.HEADER)
     createHeaderParameters(
       context,
-      bindings,
-      operation,
+      bindings.request.headers,
+      examples,
       AbstractRestProtocol.MessageType.REQUEST
     ).values
   }
@@ -324,7 +320,7 @@ abstract class AlloyAbstractRestProtocol[T <: Trait]
   private def createHeaderParameters(
       context: Context[T],
       bindings: util.List[HttpBinding],
-      operation: Shape,
+      examples: OperationExamples,
       messageType: AbstractRestProtocol.MessageType
   ) = {
     val result = for (binding <- bindings.asScala) yield {
@@ -333,12 +329,10 @@ abstract class AlloyAbstractRestProtocol[T <: Trait]
 
       if (messageType eq AbstractRestProtocol.MessageType.REQUEST) {
         param.in("header").name(binding.getLocationName)
-        createInputExamples(operation, binding.getMemberName)
-          .foreach(param.examples)
+        examples.input(binding.getMemberName).foreach(param.examples)
       } else { // Response headers don't use "in" or "name".
         param.in(null).name(null)
-        createOutputExamples(operation, binding.getMemberName)
-          .foreach(param.examples)
+        examples.output(binding.getMemberName).foreach(param.examples)
       }
       val target = context.getModel.expectShape(member.getTarget)
       val startingSchema = context.inlineOrReferenceSchema(member)
@@ -360,24 +354,22 @@ abstract class AlloyAbstractRestProtocol[T <: Trait]
 
   private def createRequestBody(
       context: Context[T],
-      bindingIndex: HttpBindingIndex,
-      operation: OperationShape
+      bindings: OperationBindings,
+      operation: OperationShape,
+      examples: OperationExamples
   ) = {
-    val payloadBindings =
-      bindingIndex.getRequestBindings(operation, HttpBinding.Location.PAYLOAD)
+    val payloadBindings = bindings.request.payload
     // Get the default media type if one cannot be resolved.
-    val mediaType =
-      determineContentType(
-        bindingIndex.getRequestBindings(operation).values().asScala
-      )
+    val mediaType = determineContentType(bindings.request.all)
     if (payloadBindings.isEmpty)
-      createRequestDocument(context, bindingIndex, operation)
+      createRequestDocument(context, bindings, operation, examples)
     else
       createRequestPayload(
         mediaType,
         context,
         payloadBindings.get(0),
-        operation
+        operation,
+        examples
       )
   }
 
@@ -385,7 +377,8 @@ abstract class AlloyAbstractRestProtocol[T <: Trait]
       mediaTypeRange: Option[String],
       context: Context[T],
       binding: HttpBinding,
-      operation: OperationShape
+      operation: OperationShape,
+      examples: OperationExamples
   ) = { // API Gateway validation requires that in-line schemas must be objects
     // or arrays. These schemas are synthesized as references so that
     // any schemas with string types will pass validation.
@@ -401,7 +394,8 @@ abstract class AlloyAbstractRestProtocol[T <: Trait]
     )
     val mtr = mediaTypeRange.getOrElse(getDocumentMediaType())
 
-    val updatedMtObject = createInputExamples(operation, binding.getMemberName)
+    val updatedMtObject = examples
+      .input(binding.getMemberName)
       .map(mediaTypeObject.toBuilder.examples(_).build)
       .getOrElse(mediaTypeObject)
 
@@ -414,11 +408,11 @@ abstract class AlloyAbstractRestProtocol[T <: Trait]
 
   private def createRequestDocument(
       context: Context[T],
-      bindingIndex: HttpBindingIndex,
-      operation: OperationShape
+      operationBindings: OperationBindings,
+      operation: OperationShape,
+      examples: OperationExamples
   ): Option[RequestBodyObject] = {
-    val bindings =
-      bindingIndex.getRequestBindings(operation, HttpBinding.Location.DOCUMENT)
+    val bindings = operationBindings.request.document
     // If nothing is bound to the document, then no schema needs to be synthesized.
     if (bindings.isEmpty) None
     else {
@@ -433,8 +427,7 @@ abstract class AlloyAbstractRestProtocol[T <: Trait]
       val pointer = context.putSynthesizedSchema(synthesizedName, schema)
 
       val memberNames = bindings.asScala.toList.map(_.getMemberName)
-      val maybeExamples =
-        createExamples(operation)(ExampleNode.forInputMembers(_, memberNames))
+      val maybeExamples = examples.inputMembers(memberNames)
       val builder =
         MediaTypeObject.builder.schema(Schema.builder.ref(pointer).build)
       maybeExamples.foreach(builder.examples)
@@ -452,7 +445,7 @@ abstract class AlloyAbstractRestProtocol[T <: Trait]
 
   private def createResponses(
       context: Context[T],
-      bindingIndex: HttpBindingIndex,
+      bindings: OperationBindings,
       operation: OperationShape
   ) = {
     // Hack to ensure that the model contains the potentially updated
@@ -467,7 +460,7 @@ abstract class AlloyAbstractRestProtocol[T <: Trait]
       .foreach((output: StructureShape) => {
         updateResponsesMapWithResponseStatusAndObject(
           context,
-          bindingIndex,
+          bindings,
           operation,
           output,
           result
@@ -476,7 +469,7 @@ abstract class AlloyAbstractRestProtocol[T <: Trait]
     for (error <- operationIndex.getErrors(operation).asScala) {
       updateResponsesMapWithResponseStatusAndObject(
         context,
-        bindingIndex,
+        bindings,
         operation,
         error,
         result
@@ -522,7 +515,7 @@ abstract class AlloyAbstractRestProtocol[T <: Trait]
 
   private def updateResponsesMapWithResponseStatusAndObject(
       context: Context[T],
-      bindingIndex: HttpBindingIndex,
+      bindings: OperationBindings,
       operation: OperationShape,
       shape: StructureShape,
       responses: util.Map[String, List[ResponseObject]]
@@ -534,7 +527,7 @@ abstract class AlloyAbstractRestProtocol[T <: Trait]
     )
     val response = createResponse(
       context,
-      bindingIndex,
+      bindings.response(operationOrError),
       statusCode,
       operationOrError
     )
@@ -550,7 +543,7 @@ abstract class AlloyAbstractRestProtocol[T <: Trait]
 
   private def createResponse(
       context: Context[T],
-      bindingIndex: HttpBindingIndex,
+      bindings: MessageBindings,
       statusCode: String,
       operationOrError: Shape
   ) = {
@@ -562,62 +555,60 @@ abstract class AlloyAbstractRestProtocol[T <: Trait]
         statusCode
       )
     )
-    createResponseHeaderParameters(context, operationOrError).foreach {
-      case (k: String, v: ParameterObject) =>
+    val examples = OperationExamples.of(operationOrError)
+    createResponseHeaderParameters(context, bindings, examples)
+      .foreach { case (k: String, v: ParameterObject) =>
         responseBuilder.putHeader(k, Ref.local(v))
-    }
+      }
     addResponseContent(
       context,
-      bindingIndex,
+      bindings,
       responseBuilder,
-      operationOrError
+      operationOrError,
+      examples
     )
     responseBuilder.build
   }
 
   private def createResponseHeaderParameters(
       context: Context[T],
-      operationOrError: Shape
+      bindings: MessageBindings,
+      examples: OperationExamples
   ) = {
-    val bindings = HttpBindingIndex
-      .of(context.getModel)
-      .getResponseBindings(operationOrError, HttpBinding.Location.HEADER)
     createHeaderParameters(
       context,
-      bindings,
-      operationOrError,
+      bindings.headers,
+      examples,
       AbstractRestProtocol.MessageType.RESPONSE
     )
   }
 
   private def addResponseContent(
       context: Context[T],
-      bindingIndex: HttpBindingIndex,
+      bindings: MessageBindings,
       responseBuilder: ResponseObject.Builder,
-      operationOrError: Shape
+      operationOrError: Shape,
+      examples: OperationExamples
   ) = {
-    val payloadBindings = bindingIndex.getResponseBindings(
-      operationOrError,
-      HttpBinding.Location.PAYLOAD
-    )
-    val mediaType = determineContentType(
-      bindingIndex.getResponseBindings(operationOrError).values().asScala
-    )
+    val payloadBindings = bindings.payload
+    val mediaType = determineContentType(bindings.all)
     if (!payloadBindings.isEmpty)
       createResponsePayload(
         mediaType,
         context,
         payloadBindings.get(0),
         responseBuilder,
-        operationOrError
+        operationOrError,
+        examples
       )
     else
       createResponseDocumentIfNeeded(
         getDocumentMediaType(),
         context,
-        bindingIndex,
+        bindings.document,
         responseBuilder,
-        operationOrError
+        operationOrError,
+        examples
       )
   }
 
@@ -626,7 +617,8 @@ abstract class AlloyAbstractRestProtocol[T <: Trait]
       context: Context[T],
       binding: HttpBinding,
       responseBuilder: ResponseObject.Builder,
-      operationOrError: Shape
+      operationOrError: Shape,
+      examples: OperationExamples
   ) = {
     val schema = context.inlineOrReferenceSchema(binding.getMember)
     val mediaTypeObject = getMediaTypeObject(
@@ -641,7 +633,8 @@ abstract class AlloyAbstractRestProtocol[T <: Trait]
     )
 
     val updatedMtObject =
-      createOutputExamples(operationOrError, binding.getMemberName)
+      examples
+        .output(binding.getMemberName)
         .map(mediaTypeObject.toBuilder.examples(_).build)
         .getOrElse(mediaTypeObject)
 
@@ -671,14 +664,11 @@ abstract class AlloyAbstractRestProtocol[T <: Trait]
   private def createResponseDocumentIfNeeded(
       mediaType: String,
       context: Context[T],
-      bindingIndex: HttpBindingIndex,
+      bindings: util.List[HttpBinding],
       responseBuilder: ResponseObject.Builder,
-      operationOrError: Shape
+      operationOrError: Shape,
+      examples: OperationExamples
   ): ResponseObject.Builder = {
-    val bindings = bindingIndex.getResponseBindings(
-      operationOrError,
-      HttpBinding.Location.DOCUMENT
-    )
     // If the operation doesn't have any document bindings, then do nothing.
     if (bindings.isEmpty) responseBuilder
     else {
@@ -719,9 +709,7 @@ abstract class AlloyAbstractRestProtocol[T <: Trait]
       val pointer = context.putSynthesizedSchema(synthesizedName, schema)
 
       val memberNames = bindings.asScala.toList.map(_.getMemberName)
-      val maybeExamples = createExamples(operationOrError)(
-        ExampleNode.forOutputMembers(_, memberNames)
-      )
+      val maybeExamples = examples.outputMembers(memberNames)
       val builder =
         MediaTypeObject.builder.schema(Schema.builder.ref(pointer).build)
       maybeExamples.foreach(builder.examples)
@@ -736,50 +724,4 @@ abstract class AlloyAbstractRestProtocol[T <: Trait]
         getDocumentMediaType()
     }
   }
-
-  private def createInputExamples(operation: Shape, memberName: String) =
-    createExamples(operation)(ExampleNode.forInputMember(_, memberName))
-
-  private def createOutputExamples(operation: Shape, memberName: String) =
-    createExamples(operation)(ExampleNode.forOutputMember(_, memberName))
-
-  private def createExamples(
-      operation: Shape
-  )(
-      createNode: ExamplesTrait.Example => ExampleNode
-  ): Option[util.Map[String, Node]] = {
-    val maybeCheckedExamples: Option[List[ExamplesTrait.Example]] =
-      operation.getTrait(classOf[ExamplesTrait]).asScala.map { exampleTrait =>
-        exampleTrait.getExamples.asScala.toList
-      }
-
-    val maybeUncheckedExamples: Option[List[ExamplesTrait.Example]] =
-      operation.getTrait(classOf[UncheckedExamplesTrait]).asScala.map {
-        uncheckedExampleTrait =>
-          uncheckedExampleTrait
-            .getExamples()
-            .asScala
-            .map { unchecked =>
-              val builder =
-                ExamplesTrait.Example
-                  .builder()
-                  .title(unchecked.getTitle())
-                  .input(unchecked.getInput())
-                  .output(unchecked.getOutput())
-              if (unchecked.getDocumentation().isPresent()) {
-                builder.documentation(unchecked.getDocumentation().get())
-              }
-              builder.build()
-            }
-            .toList
-      }
-
-    (maybeCheckedExamples |+| maybeUncheckedExamples).map { examples =>
-      examples
-        .map(createNode(_).build)
-        .collect { case Some(exampleNode) => exampleNode }
-        .toMap
-        .asJava
-    }
-  }
 }
@@ -0,0 +1,84 @@
+/* Copyright 2022 Disney Streaming
+ *
+ * Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package software.amazon.smithy.openapi.fromsmithy.protocols
+
+import software.amazon.smithy.model.knowledge.HttpBinding
+import software.amazon.smithy.model.knowledge.HttpBinding.Location
+import software.amazon.smithy.model.knowledge.HttpBindingIndex
+import software.amazon.smithy.model.shapes.OperationShape
+import software.amazon.smithy.model.shapes.ShapeId
+import software.amazon.smithy.model.shapes.ToShapeId
+
+import java.util
+import scala.jdk.CollectionConverters._
+
+/** HTTP bindings of a message (the input or output of an operation, or one of
+  * its errors), grouped by location once.
+  */
+private[protocols] final class MessageBindings(
+    bindings: util.Map[String, HttpBinding]
+) {
+  private def bound(location: Location): util.List[HttpBinding] =
+    bindings.values().asScala.filter(_.getLocation() == location).toList.asJava
+
+  val all: Iterable[HttpBinding] = bindings.values().asScala
+  val labels: util.List[HttpBinding] = bound(Location.LABEL)
+  val query: util.List[HttpBinding] = bound(Location.QUERY)
+  val headers: util.List[HttpBinding] = bound(Location.HEADER)
+  val payload: util.List[HttpBinding] = bound(Location.PAYLOAD)
+  val document: util.List[HttpBinding] = bound(Location.DOCUMENT)
+}
+
+/** Snapshot of the HTTP bindings of an operation: its request, and the
+  * responses of its output and errors. It is built once per operation and
+  * shared by the methods creating the parts of the OpenAPI operation, instead
+  * of each of them querying and filtering the `HttpBindingIndex`.
+  */
+private[protocols] final class OperationBindings(
+    index: HttpBindingIndex,
+    val request: MessageBindings,
+    responses: Map[ShapeId, MessageBindings]
+) {
+
+  /** Response bindings of the operation (for its output) or of one of its
+    * errors.
+    */
+  def response(operationOrError: ToShapeId): MessageBindings = {
+    val id = operationOrError.toShapeId()
+    responses.getOrElse(
+      id,
+      new MessageBindings(index.getResponseBindings(id))
+    )
+  }
+}
+
+private[protocols] object OperationBindings {
+
+  def of(
+      index: HttpBindingIndex,
+      operation: OperationShape
+  ): OperationBindings = {
+    val responseShapes =
+      operation.getId() :: operation.getErrorsSet().asScala.toList
+    new OperationBindings(
+      index,
+      new MessageBindings(index.getRequestBindings(operation)),
+      responseShapes
+        .map(id => id -> new MessageBindings(index.getResponseBindings(id)))
+        .toMap
+    )
+  }
+}
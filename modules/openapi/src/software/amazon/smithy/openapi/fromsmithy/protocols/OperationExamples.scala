@@ -0,0 +1,129 @@
+/* Copyright 2022 Disney Streaming
+ *
+ * Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.smithy.openapi.fromsmithy.protocols
+
+import alloy.UncheckedExamplesTrait
+import software.amazon.smithy.model.node.Node
+import software.amazon.smithy.model.node.ObjectNode
+import software.amazon.smithy.model.shapes.Shape
+import software.amazon.smithy.model.traits.ExamplesTrait
+import software.amazon.smithy.model.traits.ExamplesTrait.Example
+
+import java.util
+import scala.jdk.CollectionConverters._
+
+/** Examples of an operation (or of one of its errors), read once from its
+  * `ExamplesTrait` and `UncheckedExamplesTrait`. The examples of each member
+  * are tabulated up front, in a single pass over the examples, and shared by
+  * the methods creating the parameters and bodies of the operation.
+  *
+  * Lookups return `None` if the shape has neither trait, and an empty map if
+  * none of its examples have a value for the member.
+  */
+private[protocols] final class OperationExamples private (
+    examples: Option[List[Example]],
+    inputByMember: Map[String, util.Map[String, Node]],
+    outputByMember: Map[String, util.Map[String, Node]]
+) {
+  private def noExamples = util.Collections.emptyMap[String, Node]()
+
+  def input(memberName: String): Option[util.Map[String, Node]] =
+    examples.map(_ => inputByMember.getOrElse(memberName, noExamples))
+
+  def output(memberName: String): Option[util.Map[String, Node]] =
+    examples.map(_ => outputByMember.getOrElse(memberName, noExamples))
+
+  def inputMembers(memberNames: List[String]): Option[util.Map[String, Node]] =
+    create(ExampleNode.forInputMembers(_, memberNames))
+
+  def outputMembers(
+      memberNames: List[String]
+  ): Option[util.Map[String, Node]] =
+    create(ExampleNode.forOutputMembers(_, memberNames))
+
+  private def create(
+      createNode: Example => ExampleNode
+  ): Option[util.Map[String, Node]] =
+    examples.map { examples =>
+      examples
+        .map(createNode(_).build)
+        .collect { case Some(exampleNode) => exampleNode }
+        .toMap
+        .asJava
+    }
+}
+
+private[protocols] object OperationExamples {
+
+  def of(operationOrError: Shape): OperationExamples = {
+    val maybeCheckedExamples: Option[List[Example]] =
+      operationOrError.getTrait(classOf[ExamplesTrait]).asScala.map {
+        exampleTrait => exampleTrait.getExamples.asScala.toList
+      }
+
+    val maybeUncheckedExamples: Option[List[Example]] =
+      operationOrError.getTrait(classOf[UncheckedExamplesTrait]).asScala.map {
+        uncheckedExampleTrait =>
+          uncheckedExampleTrait
+            .getExamples()
+            .asScala
+            .map { unchecked =>
+              val builder =
+                Example
+                  .builder()
+                  .title(unchecked.getTitle())
+                  .input(unchecked.getInput())
+                  .output(unchecked.getOutput())
+              if (unchecked.getDocumentation().isPresent()) {
+                builder.documentation(unchecked.getDocumentation().get())
+              }
+              builder.build()
+            }
+            .toList
+      }
+
+    val examples = (maybeCheckedExamples, maybeUncheckedExamples) match {
+      case (Some(checked), Some(unchecked)) => Some(checked ++ unchecked)
+      case (checked, unchecked)             => checked.orElse(unchecked)
+    }
+    val all = examples.getOrElse(Nil)
+    new OperationExamples(
+      examples,
+      byMember(all, example => Some(example.getInput))(
+        ExampleNode.forInputMember
+      ),
+      byMember(all, _.getOutput.asScala)(ExampleNode.forOutputMember)
+    )
+  }
+
+  // the example nodes of every member having a value in some example, keyed
+  // by title as the examples of a single member are
+  private def byMember(
+      examples: List[Example],
+      values: Example => Option[ObjectNode]
+  )(
+      createNode: (Example, String) => ExampleNode
+  ): Map[String, util.Map[String, Node]] = {
+    val nodes = for {
+      example <- examples
+      value <- values(example).toList
+      memberName <- value.getStringMap.keySet.asScala.toList
+      exampleNode <- createNode(example, memberName).build.toList
+    } yield memberName -> exampleNode
+    nodes.groupBy(_._1).map { case (memberName, entries) =>
+      memberName -> entries.map(_._2).toMap.asJava
+    }
+  }
+}
@@ -17,10 +17,23 @@ package alloy.openapi
 
 import _root_.software.amazon.smithy.model.Model
 
+import software.amazon.smithy.model.node.ArrayNode
 import software.amazon.smithy.model.node.Node
+import software.amazon.smithy.model.node.ObjectNode
+import software.amazon.smithy.model.shapes.ServiceShape
+import software.amazon.smithy.model.shapes.ShapeId
+import software.amazon.smithy.model.traits.DocumentationTrait
 import software.amazon.smithy.openapi.OpenApiConfig
 import software.amazon.smithy.openapi.OpenApiVersion
-
+import software.amazon.smithy.openapi.fromsmithy.Smithy2OpenApiExtension
+
+import java.io.ByteArrayOutputStream
+import java.io.StringWriter
+import java.net.URLClassLoader
+import java.nio.charset.StandardCharsets
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.zip.GZIPInputStream
 import scala.jdk.CollectionConverters._
 import os.ResourcePath
 import munit.diff.Printer
@@ -245,6 +258,676 @@ final class OpenApiConversionSpec extends munit.FunSuite {
     }
   }
 
+  test("OpenAPI conversion written to a writer") {
+    val model = Model
+      .assembler()
+      .addImport(getClass().getClassLoader().getResource("foo.smithy"))
+      .addImport(getClass().getClassLoader().getResource("baz.smithy"))
+      .discoverModels()
+      .assemble()
+      .unwrap()
+    val buildConfig: Unit => OpenApiConfig = _ => new OpenApiConfig()
+    val classLoader = getClass().getClassLoader()
+
+    val writers = scala.collection.mutable.Map.empty[String, StringWriter]
+    val result = convertWithConfigTo(
+      model,
+      None,
+      buildConfig,
+      classLoader,
+      (protocol, serviceId) =>
+        writers.getOrElseUpdate(s"$serviceId $protocol", new StringWriter())
+    )
+
+    val expected = convertWithConfig(model, None, buildConfig, classLoader)
+    assertEquals(
+      result.map(r => (r.protocol, r.serviceId)).toSet,
+      expected.map(r => (r.protocol, r.serviceId)).toSet
+    )
+    expected.foreach { r =>
+      assertEquals(
+        writers(s"${r.serviceId} ${r.protocol}").toString,
+        r.contents
+      )
+    }
+  }
+
+  test("OpenAPI conversion written to a directory") {
+    val model = Model
+      .assembler()
+      .addImport(getClass().getClassLoader().getResource("foo.smithy"))
+      .discoverModels()
+      .assemble()
+      .unwrap()
+    val dir = os.temp.dir()
+
+    val result = convertWithConfigToDirectory(
+      model,
+      None,
+      _ => new OpenApiConfig(),
+      getClass().getClassLoader(),
+      dir.toNIO
+    )
+
+    assertEquals(result.size, 1)
+    assertEquals(
+      os.list(dir).map(_.last).toList,
+      List("foo.HelloWorldService.simpleRestJson.json")
+    )
+    assertEquals(
+      Node.parse(os.read(dir / "foo.HelloWorldService.simpleRestJson.json")),
+      readAndParse(os.resource / "foo.json")
+    )
+  }
+
+  test("OpenAPI conversion written minified and compressed") {
+    val model = Model
+      .assembler()
+      .addImport(getClass().getClassLoader().getResource("foo.smithy"))
+      .discoverModels()
+      .assemble()
+      .unwrap()
+    val buildConfig: Unit => OpenApiConfig = _ => new OpenApiConfig()
+    val classLoader = getClass().getClassLoader()
+    val expected = Node.parse(
+      convertWithConfig(model, None, buildConfig, classLoader).requireOnly
+        .contents
+    )
+
+    val minified = new ByteArrayOutputStream()
+    convertWithConfigToStream(
+      model,
+      None,
+      buildConfig,
+      classLoader,
+      OpenApiOutputFormat(minify = true, gzip = false),
+      (_, _) => minified
+    )
+    assertEquals(
+      new String(minified.toByteArray(), StandardCharsets.UTF_8),
+      Node.printJson(expected)
+    )
+
+    val dir = os.temp.dir()
+    convertWithConfigToDirectory(
+      model,
+      None,
+      buildConfig,
+      classLoader,
+      dir.toNIO,
+      OpenApiOutputFormat(minify = true, gzip = true)
+    )
+    val file = dir / "foo.HelloWorldService.simpleRestJson.json.gz"
+    val unzipped = new GZIPInputStream(os.read.inputStream(file))
+    try {
+      assertEquals(
+        new String(unzipped.readAllBytes(), StandardCharsets.UTF_8),
+        Node.printJson(expected)
+      )
+    } finally unzipped.close()
+  }
+
+  test("OpenAPI conversion as an iterator converts services on demand") {
+    val model = Model
+      .assembler()
+      .addImport(getClass().getClassLoader().getResource("foo.smithy"))
+      .addImport(getClass().getClassLoader().getResource("bar.smithy"))
+      .addImport(getClass().getClassLoader().getResource("baz.smithy"))
+      .discoverModels()
+      .assemble()
+      .unwrap()
+    val classLoader = getClass().getClassLoader()
+    val conversions = new AtomicInteger(0)
+    val buildConfig: Unit => OpenApiConfig = { _ =>
+      conversions.incrementAndGet()
+      new OpenApiConfig()
+    }
+
+    val expected = convertWithConfig(model, None, buildConfig, classLoader)
+    conversions.set(0)
+
+    val iterator =
+      convertWithConfigIterator(model, None, buildConfig, classLoader)
+    assertEquals(conversions.get(), 0)
+    val first = iterator.next()
+    assertEquals(conversions.get(), 1)
+    val results = first :: iterator.toList
+    assertEquals(conversions.get(), expected.size)
+    assertEquals(results.toSet, expected.toSet)
+  }
+
+  test("OpenAPI conversion on an executor keeps the sequential order") {
+    // more services than the 4 elements a Set keeps in insertion order
+    val services = (0 until 12).map { i =>
+      s"""|@simpleRestJson
+          |service Service$i {
+          |  operations: [Get$i]
+          |}
+          |
+          |@readonly
+          |@http(method: "GET", uri: "/service$i")
+          |operation Get$i {}
+          |""".stripMargin
+    }
+    val model = Model
+      .assembler()
+      .addUnparsedModel(
+        "services.smithy",
+        services.mkString(
+          "$version: \"2\"\nnamespace services\n\nuse alloy#simpleRestJson\n\n",
+          "\n",
+          ""
+        )
+      )
+      .discoverModels()
+      .assemble()
+      .unwrap()
+    val buildConfig: Unit => OpenApiConfig = _ => new OpenApiConfig()
+    val classLoader = getClass().getClassLoader()
+    val executor = Executors.newFixedThreadPool(4)
+
+    try {
+      val expected = convertWithConfig(model, None, buildConfig, classLoader)
+      val result =
+        convertWithConfig(model, None, buildConfig, classLoader, executor)
+      assertEquals(expected.size, 12)
+      assertEquals(result, expected)
+    } finally {
+      executor.shutdown()
+    }
+  }
+
+  test("OpenAPI conversion on an executor reports conversion failures") {
+    val model = Model
+      .assembler()
+      .addImport(getClass().getClassLoader().getResource("foo.smithy"))
+      .discoverModels()
+      .assemble()
+      .unwrap()
+    val executor = Executors.newFixedThreadPool(2)
+
+    try {
+      val error = intercept[IllegalStateException](
+        convertWithConfig(
+          model,
+          None,
+          _ => throw new IllegalStateException("boom"),
+          getClass().getClassLoader(),
+          executor
+        )
+      )
+      assertEquals(error.getMessage, "boom")
+    } finally {
+      executor.shutdown()
+    }
+  }
+
+  test("OpenAPI incremental conversion only regenerates changed services") {
+    val model = Model
+      .assembler()
+      .addImport(getClass().getClassLoader().getResource("foo.smithy"))
+      .addImport(getClass().getClassLoader().getResource("bar.smithy"))
+      .discoverModels()
+      .assemble()
+      .unwrap()
+    val buildConfig: Unit => OpenApiConfig = _ => new OpenApiConfig()
+    val classLoader = getClass().getClassLoader()
+    val dir = os.temp.dir()
+    val fooFile = dir / "foo.HelloWorldService.simpleRestJson.json"
+    val barFile = dir / "bar.BarService.simpleRestJson.json"
+
+    val expected = convertWithConfig(model, None, buildConfig, classLoader)
+    val first = convertWithConfigIncremental(
+      model,
+      None,
+      buildConfig,
+      classLoader,
+      dir.toNIO
+    )
+    assertEquals(first.toSet, expected.toSet)
+    assert(os.exists(fooFile) && os.exists(barFile))
+
+    // Unchanged services are read back from the cache directory.
+    os.write.over(fooFile, "cached foo")
+    os.write.over(barFile, "cached bar")
+    val cached = convertWithConfigIncremental(
+      model,
+      None,
+      buildConfig,
+      classLoader,
+      dir.toNIO
+    )
+    assertEquals(
+      cached.map(_.contents).toSet,
+      Set("cached foo", "cached bar")
+    )
+
+    // Changing a trait value in the closure of a service regenerates it only.
+    val barService = model.expectShape(
+      ShapeId.from("bar#BarService"),
+      classOf[ServiceShape]
+    )
+    val changedModel = model
+      .toBuilder()
+      .addShape(
+        barService.toBuilder().addTrait(new DocumentationTrait("Bar")).build()
+      )
+      .build()
+    val changed = convertWithConfigIncremental(
+      changedModel,
+      None,
+      buildConfig,
+      classLoader,
+      dir.toNIO
+    )
+    val byService = changed.map(r => r.serviceId.getName() -> r.contents).toMap
+    assertEquals(byService("HelloWorldService"), "cached foo")
+    assertNotEquals(byService("BarService"), "cached bar")
+    assertEquals(os.read(barFile), byService("BarService"))
+  }
+
+  test("OpenAPI incremental conversion regenerates on new extensions") {
+    val model = Model
+      .assembler()
+      .addImport(getClass().getClassLoader().getResource("foo.smithy"))
+      .discoverModels()
+      .assemble()
+      .unwrap()
+    val buildConfig: Unit => OpenApiConfig = _ => new OpenApiConfig()
+    val classLoader = getClass().getClassLoader()
+    val dir = os.temp.dir()
+    val fooFile = dir / "foo.HelloWorldService.simpleRestJson.json"
+
+    convertWithConfigIncremental(
+      model,
+      None,
+      buildConfig,
+      classLoader,
+      dir.toNIO
+    )
+    os.write.over(fooFile, "cached foo")
+
+    // A class loader registering one more extension.
+    val servicesDir = os.temp.dir()
+    os.write(
+      servicesDir / "META-INF" / "services" /
+        classOf[Smithy2OpenApiExtension].getName(),
+      classOf[EmptyOpenApiExtension].getName(),
+      createFolders = true
+    )
+    val extended =
+      new URLClassLoader(Array(servicesDir.toNIO.toUri().toURL()), classLoader)
+    val regenerated = convertWithConfigIncremental(
+      model,
+      None,
+      buildConfig,
+      extended,
+      dir.toNIO
+    )
+    assertEquals(
+      regenerated.toSet,
+      convertWithConfig(model, None, buildConfig, classLoader).toSet
+    )
+    assertEquals(os.read(fooFile), regenerated.head.contents)
+  }
+
+  test("OpenAPI conversion making headers optional on a PATCH operation") {
+    val model = Model
+      .assembler()
+      .addUnparsedModel(
+        "patch.smithy",
+        """|$version: "2"
+           |namespace patch
+           |
+           |use alloy#simpleRestJson
+           |
+           |@simpleRestJson
+           |service PatchService {
+           |  operations: [Update]
+           |}
+           |
+           |@idempotent
+           |@http(method: "PATCH", uri: "/update")
+           |operation Update {
+           |  errors: [Conflict, Locked]
+           |}
+           |
+           |@error("client")
+           |@httpError(409)
+           |structure Conflict {
+           |  @required
+           |  @httpHeader("x-conflict")
+           |  conflict: String
+           |}
+           |
+           |@error("client")
+           |@httpError(409)
+           |structure Locked {
+           |  @required
+           |  @httpHeader("x-locked")
+           |  locked: String
+           |}
+           |""".stripMargin
+      )
+      .discoverModels()
+      .assemble()
+      .unwrap()
+
+    val document = Node
+      .parse(convert(model, None).requireOnly.contents)
+      .expectObjectNode()
+    val headers = document
+      .expectObjectMember("paths")
+      .expectObjectMember("/update")
+      .expectObjectMember("patch")
+      .expectObjectMember("responses")
+      .expectObjectMember("409")
+      .expectObjectMember("headers")
+    assertEquals(
+      headers.getMembers().asScala.keys.map(_.getValue()).toSet,
+      Set("x-conflict", "x-locked")
+    )
+    headers.getMembers().asScala.values.foreach { header =>
+      assertEquals(
+        header.expectObjectNode().getBooleanMemberOrDefault("required"),
+        false
+      )
+    }
+  }
+
+  test("OpenAPI conversion sharing combined error responses") {
+    val model = Model
+      .assembler()
+      .addUnparsedModel(
+        "errors.smithy",
+        """|$version: "2"
+           |namespace errors
+           |
+           |use alloy#simpleRestJson
+           |
+           |@simpleRestJson
+           |service ErrorService {
+           |  operations: [GetA, GetB]
+           |}
+           |
+           |@readonly
+           |@http(method: "GET", uri: "/a")
+           |operation GetA {
+           |  errors: [NotFound, Gone]
+           |}
+           |
+           |@readonly
+           |@http(method: "GET", uri: "/b")
+           |operation GetB {
+           |  errors: [NotFound, Gone]
+           |}
+           |
+           |@error("client")
+           |@httpError(404)
+           |structure NotFound {
+           |  @httpHeader("x-reason")
+           |  reason: String
+           |  message: String
+           |}
+           |
+           |@error("client")
+           |@httpError(404)
+           |structure Gone {
+           |  @httpHeader("x-reason")
+           |  reason: String
+           |  message: String
+           |}
+           |""".stripMargin
+      )
+      .discoverModels()
+      .assemble()
+      .unwrap()
+    val buildConfig: Unit => OpenApiConfig = { _ =>
+      val config = new OpenApiConfig()
+      config.putExtension(DeduplicateErrorResponses.configKey, true)
+      config
+    }
+
+    val document = Node
+      .parse(
+        convertWithConfig(model, None, buildConfig).requireOnly.contents
+      )
+      .expectObjectNode()
+    def notFound(path: String) = document
+      .expectObjectMember("paths")
+      .expectObjectMember(path)
+      .expectObjectMember("get")
+      .expectObjectMember("responses")
+      .expectObjectMember("404")
+    val expectedResponse = Node.parse(
+      """|{
+         |  "description": "404 Response",
+         |  "headers": {
+         |    "x-reason": { "$ref": "#/components/headers/x-reason" }
+         |  },
+         |  "content": {
+         |    "application/json": {
+         |      "schema": {
+         |        "$ref": "#/components/schemas/NotFoundOrGoneResponseContent"
+         |      }
+         |    }
+         |  }
+         |}""".stripMargin
+    )
+    val components = document.expectObjectMember("components")
+
+    assertEquals(notFound("/a"): Node, expectedResponse)
+    assertEquals(notFound("/b"): Node, expectedResponse)
+    assertEquals(
+      components
+        .expectObjectMember("schemas")
+        .expectObjectMember("NotFoundOrGoneResponseContent"): Node,
+      Node.parse(
+        """|{
+           |  "oneOf": [
+           |    { "$ref": "#/components/schemas/NotFoundResponseContent" },
+           |    { "$ref": "#/components/schemas/GoneResponseContent" }
+           |  ]
+           |}""".stripMargin
+      )
+    )
+    assertEquals(
+      components
+        .expectObjectMember("headers")
+        .expectObjectMember("x-reason"): Node,
+      Node.parse("""{ "schema": { "type": "string" } }""")
+    )
+  }
+
+  test("OpenAPI conversion written as shards, one per namespace") {
+    val model = Model
+      .assembler()
+      .addUnparsedModel(
+        "shared.smithy",
+        """|$version: "2"
+           |namespace shared
+           |
+           |structure Page {
+           |  token: String
+           |  next: Page
+           |}
+           |""".stripMargin
+      )
+      .addUnparsedModel(
+        "pets.smithy",
+        """|$version: "2"
+           |namespace pets
+           |
+           |use alloy#simpleRestJson
+           |
+           |@simpleRestJson
+           |service PetService {
+           |  operations: [ListPets]
+           |}
+           |
+           |@readonly
+           |@http(method: "GET", uri: "/pets")
+           |operation ListPets {
+           |  output := {
+           |    pets: Pets
+           |    page: shared#Page
+           |  }
+           |}
+           |
+           |list Pets {
+           |  member: Pet
+           |}
+           |
+           |structure Pet {
+           |  name: String
+           |  page: shared#Page
+           |}
+           |""".stripMargin
+      )
+      .discoverModels()
+      .assemble()
+      .unwrap()
+    val buildConfig: Unit => OpenApiConfig = _ => new OpenApiConfig()
+    val classLoader = getClass().getClassLoader()
+    val executor = Executors.newFixedThreadPool(2)
+    val dir = os.temp.dir()
+    val documentDir = dir / "pets.PetService.simpleRestJson"
+    val stale = documentDir / "components" / "removed.json"
+
+    try {
+      os.write(stale, "{}", createFolders = true)
+      val result = convertWithConfigToShardedDirectory(
+        model,
+        None,
+        buildConfig,
+        classLoader,
+        dir.toNIO,
+        executor
+      )
+      assertEquals(result.size, 1)
+      assertEquals(
+        os.walk(documentDir).filter(os.isFile).map(_.relativeTo(documentDir)),
+        IndexedSeq(
+          os.rel / "components" / "pets.json",
+          os.rel / "components" / "shared.json",
+          os.rel / "openapi.json"
+        ).sortBy(_.toString)
+      )
+      val root = Node.parse(os.read(documentDir / "openapi.json"))
+      val pets = Node.parse(os.read(documentDir / "components" / "pets.json"))
+      assertEquals(
+        pets
+          .expectObjectNode()
+          .expectObjectMember("Pet")
+          .expectObjectMember("properties")
+          .expectObjectMember("page"): Node,
+        Node.parse("""{ "$ref": "shared.json#/Page" }""")
+      )
+
+      // Inlining the shards back gives the unsharded document.
+      def unshard(node: Node): Node = node match {
+        case obj: ObjectNode =>
+          val members = obj.getMembers().asScala.map {
+            case (key, pointer) if key.getValue() == "$ref" =>
+              val name = pointer.expectStringNode().getValue().split("#/")(1)
+              key -> (Node.from(s"#/components/schemas/$name"): Node)
+            case (key, value) => key -> unshard(value)
+          }
+          Node.objectNode(members.asJava)
+        case array: ArrayNode =>
+          Node.fromNodes(array.getElements().asScala.map(unshard).asJava)
+        case other => other
+      }
+      val schemas = os
+        .list(documentDir / "components")
+        .map(p => unshard(Node.parse(os.read(p))).expectObjectNode())
+        .reduce(_.merge(_))
+      val expected = Node.parse(
+        convertWithConfig(model, None, buildConfig).requireOnly.contents
+      )
+      assertEquals(
+        Node.printJson(
+          unshard(root)
+            .expectObjectNode()
+            .withMember(
+              "components",
+              Node.objectNode().withMember("schemas", schemas)
+            )
+            .withDeepSortedKeys()
+        ),
+        Node.printJson(expected.withDeepSortedKeys())
+      )
+
+      // Unchanged shards are not rewritten.
+      val shared = (documentDir / "components" / "shared.json").toNIO
+      val epoch = java.nio.file.attribute.FileTime.fromMillis(0)
+      java.nio.file.Files.setLastModifiedTime(shared, epoch)
+      convertWithConfigToShardedDirectory(
+        model,
+        None,
+        buildConfig,
+        classLoader,
+        dir.toNIO,
+        executor
+      )
+      assertEquals(java.nio.file.Files.getLastModifiedTime(shared), epoch)
+    } finally {
+      executor.shutdown()
+    }
+  }
+
+  test("OpenAPI conversion profiled by phase") {
+    val model = Model
+      .assembler()
+      .addImport(getClass().getClassLoader().getResource("foo.smithy"))
+      .addImport(getClass().getClassLoader().getResource("bar.smithy"))
+      .discoverModels()
+      .assemble()
+      .unwrap()
+    val buildConfig: Unit => OpenApiConfig = _ => new OpenApiConfig()
+    val classLoader = getClass().getClassLoader()
+    val executor = Executors.newFixedThreadPool(2)
+
+    try {
+      val expected = convertWithConfig(model, None, buildConfig, classLoader)
+      val (result, profile) = OpenApiProfile.record(
+        convertWithConfig(model, None, buildConfig, classLoader, executor)
+      )
+      assertEquals(result, expected)
+
+      val foo = profile.entries
+        .filter(_.serviceId == ShapeId.from("foo#HelloWorldService"))
+        .map(e => e.phase -> e)
+        .toMap
+      List(
+        "convert",
+        "serialize",
+        "protocol:createOperation",
+        "mapper:AddTags",
+        "jsonSchemaMapper:JsonUnknownMapper"
+      ).foreach { phase =>
+        assert(foo.contains(phase), s"Missing phase $phase in $profile")
+        assert(foo(phase).wallTimeNanos > 0)
+      }
+      assertEquals(foo("convert").invocations, 1L)
+      assertEquals(foo("protocol:createOperation").invocations, 5L)
+      assertEquals(
+        profile.entries.map(_.serviceId.getName()).distinct.sorted,
+        List("BarService", "HelloWorldService")
+      )
+
+      // Outside of `record`, the mappers are registered as they are.
+      assert(
+        new AlloyOpenApiExtension()
+          .getOpenApiMappers()
+          .asScala
+          .exists(_.isInstanceOf[AddTags])
+      )
+    } finally {
+      executor.shutdown()
+    }
+  }
+
   private def dropWhitespaceInJson(s: String): String =
     Node.printJson(Node.parse(s))
 
@@ -0,0 +1,432 @@
+/* Copyright 2022 Disney Streaming
+ *
+ * Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package alloy.router;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import alloy.SimpleRestJsonTrait;
+import software.amazon.smithy.model.Model;
+import software.amazon.smithy.model.knowledge.TopDownIndex;
+import software.amazon.smithy.model.pattern.SmithyPattern.Segment;
+import software.amazon.smithy.model.pattern.UriPattern;
+import software.amazon.smithy.model.shapes.OperationShape;
+import software.amazon.smithy.model.shapes.ServiceShape;
+import software.amazon.smithy.model.shapes.ShapeId;
+import software.amazon.smithy.model.traits.HttpTrait;
+
+/**
+ * Reference router for the {@code alloy#simpleRestJson} protocol, matching
+ * requests against the uri patterns of {@code smithy.api#http} bindings.
+ *
+ * Routes are compiled into a trie with one level per path segment. Each node
+ * has a hash table of literal children, a label child and a greedy label
+ * child, which are tried in that order, following the
+ * <a href="https://smithy.io/2.0/spec/http-bindings.html#specificity-routing">
+ * specificity routing</a> rules: a literal segment takes precedence over a
+ * label, which takes precedence over a greedy label. When a branch does not
+ * lead to a route, the next one is tried. Among the routes ending on the same
+ * node, the ones with the most query literals are tried first.
+ *
+ * Matching walks the uri once per explored branch and records label positions
+ * in a caller-provided {@link RouteMatch}, so it does not allocate. Literal
+ * segments are compared against the raw (not percent-decoded) path, and empty
+ * segments are ignored.
+ *
+ * Instances are immutable and can be shared across threads.
+ */
+public final class HttpRouter<A> {
+	private final Node<A> root;
+	private final int maxLabels;
+	private final int size;
+
+	private HttpRouter(Node<A> root, int maxLabels, int size) {
+		this.root = root;
+		this.maxLabels = maxLabels;
+		this.size = size;
+	}
+
+	public static <A> Builder<A> builder() {
+		return new Builder<>();
+	}
+
+	/**
+	 * Builds a router for the operations of a {@code alloy#simpleRestJson}
+	 * service, using their {@code smithy.api#http} trait.
+	 *
+	 * @throws IllegalArgumentException if the service is not annotated with
+	 *     {@code alloy#simpleRestJson}, if one of its operations is not annotated
+	 *     with {@code smithy.api#http}, or if two operations have conflicting
+	 *     bindings.
+	 */
+	public static HttpRouter<OperationShape> forService(Model model, ShapeId serviceId) {
+		final ServiceShape service = model.expectShape(serviceId, ServiceShape.class);
+		if (!service.hasTrait(SimpleRestJsonTrait.class)) {
+			throw new IllegalArgumentException(serviceId + " is not annotated with @" + SimpleRestJsonTrait.ID);
+		}
+		final Builder<OperationShape> builder = builder();
+		for (OperationShape operation : TopDownIndex.of(model).getContainedOperations(service)) {
+			final HttpTrait http = operation.getTrait(HttpTrait.class).orElseThrow(
+					() -> new IllegalArgumentException(operation.getId() + " is not annotated with @http"));
+			builder.addRoute(http.getMethod(), http.getUri(), operation);
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Returns the number of routes of this router.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Creates a {@link RouteMatch} large enough to hold the labels of any route
+	 * of this router.
+	 */
+	public RouteMatch<A> newMatch() {
+		return new RouteMatch<>(maxLabels);
+	}
+
+	/**
+	 * Convenience variant of {@link #match(String, String, RouteMatch)}
+	 * allocating a new {@link RouteMatch}.
+	 */
+	public Optional<RouteMatch<A>> match(String method, String uri) {
+		final RouteMatch<A> result = newMatch();
+		return match(method, uri, result) ? Optional.of(result) : Optional.empty();
+	}
+
+	/**
+	 * Matches a request against the routes of this router.
+	 *
+	 * @param method HTTP method of the request, such as {@code GET}.
+	 * @param uri path of the request, optionally followed by a query string.
+	 * @param result match to fill, created with {@link #newMatch()}.
+	 * @return true if a route was found, in which case {@code result} holds the
+	 *     route and its labels.
+	 */
+	public boolean match(String method, String uri, RouteMatch<A> result) {
+		result.clear();
+		int pathEnd = uri.indexOf('?');
+		final int queryStart;
+		if (pathEnd < 0) {
+			pathEnd = uri.length();
+			queryStart = -1;
+		} else {
+			queryStart = pathEnd + 1;
+		}
+		final Route<A> route = matchNode(root, method, uri, 0, pathEnd, queryStart, result, 0);
+		if (route == null) {
+			return false;
+		}
+		result.complete(uri, route);
+		return true;
+	}
+
+	private static <A> Route<A> matchNode(Node<A> node, String method, String uri, int position, int pathEnd,
+			int queryStart, RouteMatch<A> result, int labelIndex) {
+		final int start = skipSlashes(uri, position, pathEnd);
+		if (start == pathEnd) {
+			return node.matchRoute(method, uri, queryStart);
+		}
+		int end = uri.indexOf('/', start);
+		if (end < 0 || end > pathEnd) {
+			end = pathEnd;
+		}
+
+		final Node<A> literal = node.literalChild(uri, start, end);
+		if (literal != null) {
+			final Route<A> route = matchNode(literal, method, uri, end, pathEnd, queryStart, result, labelIndex);
+			if (route != null) {
+				return route;
+			}
+		}
+
+		if (node.label != null) {
+			result.setLabel(labelIndex, start, end);
+			final Route<A> route = matchNode(node.label, method, uri, end, pathEnd, queryStart, result,
+					labelIndex + 1);
+			if (route != null) {
+				return route;
+			}
+		}
+
+		final Node<A> greedy = node.greedyLabel;
+		if (greedy != null) {
+			// routes with segments after the greedy label are more specific than
+			// the ones ending with it, so the captures leaving some segments to
+			// match are tried first, longest to shortest, and the capture of the
+			// whole remaining path last
+			final int remainingEnd = trimTrailingSlashes(uri, start, pathEnd);
+			if (greedy.hasChildren()) {
+				int greedyEnd = trimTrailingSlashes(uri, start, uri.lastIndexOf('/', remainingEnd - 1));
+				while (greedyEnd >= end) {
+					result.setLabel(labelIndex, start, greedyEnd);
+					final Route<A> route = matchNode(greedy, method, uri, greedyEnd, pathEnd, queryStart, result,
+							labelIndex + 1);
+					if (route != null) {
+						return route;
+					}
+					greedyEnd = trimTrailingSlashes(uri, start, uri.lastIndexOf('/', greedyEnd - 1));
+				}
+			}
+			result.setLabel(labelIndex, start, remainingEnd);
+			return greedy.matchRoute(method, uri, queryStart);
+		}
+		return null;
+	}
+
+	private static int skipSlashes(String uri, int position, int pathEnd) {
+		int i = position;
+		while (i < pathEnd && uri.charAt(i) == '/') {
+			i++;
+		}
+		return i;
+	}
+
+	private static int trimTrailingSlashes(String uri, int start, int end) {
+		int i = end;
+		while (i > start && uri.charAt(i - 1) == '/') {
+			i--;
+		}
+		return i;
+	}
+
+	static final class Route<A> {
+		final String method;
+		final UriPattern pattern;
+		final A value;
+		final String[] labelNames;
+		final String[] queryKeys;
+		final String[] queryValues;
+
+		Route(String method, UriPattern pattern, A value) {
+			this.method = method;
+			this.pattern = pattern;
+			this.value = value;
+			final List<Segment> labels = pattern.getLabels();
+			this.labelNames = new String[labels.size()];
+			for (int i = 0; i < labelNames.length; i++) {
+				labelNames[i] = labels.get(i).getContent();
+			}
+			final Map<String, String> queryLiterals = pattern.getQueryLiterals();
+			this.queryKeys = queryLiterals.keySet().toArray(new String[0]);
+			this.queryValues = queryLiterals.values().toArray(new String[0]);
+		}
+
+		boolean matchesQuery(String uri, int queryStart, int queryEnd) {
+			for (int i = 0; i < queryKeys.length; i++) {
+				if (!hasQueryParam(uri, queryStart, queryEnd, queryKeys[i], queryValues[i])) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Query literals without a value (such as {@code ?foo}) only require the
+		 * key to be present, whatever its value.
+		 */
+		private static boolean hasQueryParam(String uri, int queryStart, int queryEnd, String key, String value) {
+			if (queryStart < 0) {
+				return false;
+			}
+			int paramStart = queryStart;
+			while (paramStart < queryEnd) {
+				int paramEnd = uri.indexOf('&', paramStart);
+				if (paramEnd < 0 || paramEnd > queryEnd) {
+					paramEnd = queryEnd;
+				}
+				final int keyEnd = paramStart + key.length();
+				if (keyEnd <= paramEnd && uri.regionMatches(paramStart, key, 0, key.length())) {
+					if (keyEnd == paramEnd) {
+						if (value.isEmpty()) {
+							return true;
+						}
+					} else if (uri.charAt(keyEnd) == '=') {
+						final int valueLength = paramEnd - keyEnd - 1;
+						if (value.isEmpty() || (valueLength == value.length()
+								&& uri.regionMatches(keyEnd + 1, value, 0, valueLength))) {
+							return true;
+						}
+					}
+				}
+				paramStart = paramEnd + 1;
+			}
+			return false;
+		}
+
+		boolean conflictsWith(Route<?> other) {
+			return method.equals(other.method) && pattern.getQueryLiterals().equals(other.pattern.getQueryLiterals());
+		}
+	}
+
+	private static final class Node<A> {
+		// open-addressing table of literal children, keyed by segment
+		private final String[] literalKeys;
+		private final int[] literalHashes;
+		private final Node<A>[] literalChildren;
+		private final int literalMask;
+		private final int literalCount;
+		private final Node<A> label;
+		private final Node<A> greedyLabel;
+		private final Route<A>[] routes;
+
+		@SuppressWarnings("unchecked")
+		Node(Map<String, Node<A>> literals, Node<A> label, Node<A> greedyLabel, List<Route<A>> routes) {
+			int capacity = 1;
+			while (capacity < literals.size() * 2) {
+				capacity <<= 1;
+			}
+			this.literalKeys = new String[capacity];
+			this.literalHashes = new int[capacity];
+			this.literalChildren = new Node[capacity];
+			this.literalMask = capacity - 1;
+			this.literalCount = literals.size();
+			for (Map.Entry<String, Node<A>> entry : literals.entrySet()) {
+				final int hash = entry.getKey().hashCode();
+				int slot = spread(hash) & literalMask;
+				while (literalKeys[slot] != null) {
+					slot = (slot + 1) & literalMask;
+				}
+				literalKeys[slot] = entry.getKey();
+				literalHashes[slot] = hash;
+				literalChildren[slot] = entry.getValue();
+			}
+			this.label = label;
+			this.greedyLabel = greedyLabel;
+			this.routes = routes.toArray(new Route[0]);
+		}
+
+		Node<A> literalChild(String uri, int start, int end) {
+			if (literalCount == 0) {
+				return null;
+			}
+			// same as String.hashCode, computed over the segment in place
+			int hash = 0;
+			for (int i = start; i < end; i++) {
+				hash = 31 * hash + uri.charAt(i);
+			}
+			final int length = end - start;
+			int slot = spread(hash) & literalMask;
+			String key;
+			while ((key = literalKeys[slot]) != null) {
+				if (literalHashes[slot] == hash && key.length() == length
+						&& uri.regionMatches(start, key, 0, length)) {
+					return literalChildren[slot];
+				}
+				slot = (slot + 1) & literalMask;
+			}
+			return null;
+		}
+
+		boolean hasChildren() {
+			return literalCount > 0 || label != null || greedyLabel != null;
+		}
+
+		Route<A> matchRoute(String method, String uri, int queryStart) {
+			for (Route<A> route : routes) {
+				if (route.method.equals(method) && route.matchesQuery(uri, queryStart, uri.length())) {
+					return route;
+				}
+			}
+			return null;
+		}
+
+		private static int spread(int hash) {
+			return hash ^ (hash >>> 16);
+		}
+	}
+
+	/**
+	 * Accumulates routes and compiles them into a {@link HttpRouter}.
+	 */
+	public static final class Builder<A> {
+		private final MutableNode<A> root = new MutableNode<>();
+		private int maxLabels = 0;
+		private int size = 0;
+
+		private Builder() {
+		}
+
+		/**
+		 * Adds a route to the router.
+		 *
+		 * @throws IllegalArgumentException if a route with the same method, the
+		 *     same uri pattern (modulo label names) and the same query literals
+		 *     was already added.
+		 */
+		public Builder<A> addRoute(String method, UriPattern pattern, A value) {
+			final Route<A> route = new Route<>(method, pattern, value);
+			MutableNode<A> node = root;
+			for (Segment segment : pattern.getSegments()) {
+				if (segment.isGreedyLabel()) {
+					if (node.greedyLabel == null) {
+						node.greedyLabel = new MutableNode<>();
+					}
+					node = node.greedyLabel;
+				} else if (segment.isLabel()) {
+					if (node.label == null) {
+						node.label = new MutableNode<>();
+					}
+					node = node.label;
+				} else {
+					node = node.literals.computeIfAbsent(segment.getContent(), s -> new MutableNode<>());
+				}
+			}
+			for (Route<A> existing : node.routes) {
+				if (existing.conflictsWith(route)) {
+					throw new IllegalArgumentException("Route " + method + " " + pattern + " conflicts with "
+							+ existing.method + " " + existing.pattern);
+				}
+			}
+			// routes with more query literals are more specific, so they are tried
+			// first, otherwise routes are kept in insertion order
+			int index = node.routes.size();
+			while (index > 0 && node.routes.get(index - 1).queryKeys.length < route.queryKeys.length) {
+				index--;
+			}
+			node.routes.add(index, route);
+			maxLabels = Math.max(maxLabels, route.labelNames.length);
+			size++;
+			return this;
+		}
+
+		public HttpRouter<A> build() {
+			return new HttpRouter<>(root.freeze(), maxLabels, size);
+		}
+	}
+
+	private static final class MutableNode<A> {
+		private final Map<String, MutableNode<A>> literals = new LinkedHashMap<>();
+		private MutableNode<A> label;
+		private MutableNode<A> greedyLabel;
+		private final List<Route<A>> routes = new ArrayList<>();
+
+		Node<A> freeze() {
+			final Map<String, Node<A>> frozenLiterals = new LinkedHashMap<>();
+			for (Map.Entry<String, MutableNode<A>> entry : literals.entrySet()) {
+				frozenLiterals.put(entry.getKey(), entry.getValue().freeze());
+			}
+			return new Node<>(frozenLiterals, label == null ? null : label.freeze(),
+					greedyLabel == null ? null : greedyLabel.freeze(), routes);
+		}
+	}
+}
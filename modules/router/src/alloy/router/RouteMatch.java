@@ -0,0 +1,157 @@
+/* Copyright 2022 Disney Streaming
+ *
+ * Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package alloy.router;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Mutable result of {@link HttpRouter#match(String, String, RouteMatch)}.
+ *
+ * Label values are recorded as offsets into the matched uri, so filling an
+ * instance does not allocate. Values are only extracted (and percent-decoded)
+ * when they are requested. Instances are meant to be reused across requests by
+ * a single thread, and must not be shared.
+ */
+public final class RouteMatch<A> {
+	private final int[] labelStarts;
+	private final int[] labelEnds;
+	private String uri;
+	private HttpRouter.Route<A> route;
+
+	RouteMatch(int maxLabels) {
+		this.labelStarts = new int[maxLabels];
+		this.labelEnds = new int[maxLabels];
+	}
+
+	void setLabel(int index, int start, int end) {
+		labelStarts[index] = start;
+		labelEnds[index] = end;
+	}
+
+	void complete(String uri, HttpRouter.Route<A> route) {
+		this.uri = uri;
+		this.route = route;
+	}
+
+	void clear() {
+		this.uri = null;
+		this.route = null;
+	}
+
+	/**
+	 * Returns true if the last call to {@link HttpRouter#match} filling this
+	 * instance found a route.
+	 */
+	public boolean isMatched() {
+		return route != null;
+	}
+
+	/**
+	 * Returns the value the matched route was registered with.
+	 */
+	public A getValue() {
+		return expectRoute().value;
+	}
+
+	/**
+	 * Returns the HTTP method of the matched route.
+	 */
+	public String getMethod() {
+		return expectRoute().method;
+	}
+
+	public int getLabelCount() {
+		return expectRoute().labelNames.length;
+	}
+
+	/**
+	 * Returns the name of the label at the given position in the uri pattern of
+	 * the matched route.
+	 */
+	public String getLabelName(int index) {
+		return expectRoute().labelNames[index];
+	}
+
+	/**
+	 * Returns the percent-decoded value of the label at the given position in
+	 * the uri pattern of the matched route.
+	 */
+	public String getLabelValue(int index) {
+		expectRoute();
+		return percentDecode(uri, labelStarts[index], labelEnds[index]);
+	}
+
+	/**
+	 * Returns the percent-decoded label values of the matched route, keyed by
+	 * label name, in the order they appear in the uri pattern.
+	 */
+	public Map<String, String> getLabels() {
+		final String[] names = expectRoute().labelNames;
+		final Map<String, String> labels = new LinkedHashMap<>();
+		for (int i = 0; i < names.length; i++) {
+			labels.put(names[i], getLabelValue(i));
+		}
+		return labels;
+	}
+
+	@Override
+	public String toString() {
+		if (route == null) {
+			return "RouteMatch(none)";
+		}
+		return "RouteMatch(" + route.method + " " + route.pattern + ", " + getLabels() + ")";
+	}
+
+	private HttpRouter.Route<A> expectRoute() {
+		if (route == null) {
+			throw new IllegalStateException("No route was matched");
+		}
+		return route;
+	}
+
+	private static String percentDecode(String uri, int start, int end) {
+		int percent = uri.indexOf('%', start);
+		if (percent < 0 || percent >= end) {
+			return uri.substring(start, end);
+		}
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream(end - start);
+		int i = start;
+		while (percent >= 0 && percent < end) {
+			writeUtf8(bytes, uri.substring(i, percent));
+			final int hi = percent + 2 < end ? Character.digit(uri.charAt(percent + 1), 16) : -1;
+			final int lo = percent + 2 < end ? Character.digit(uri.charAt(percent + 2), 16) : -1;
+			if (hi >= 0 && lo >= 0) {
+				bytes.write((hi << 4) + lo);
+				i = percent + 3;
+			} else {
+				// not an escape sequence, the '%' is kept as is
+				bytes.write('%');
+				i = percent + 1;
+			}
+			percent = uri.indexOf('%', i);
+		}
+		writeUtf8(bytes, uri.substring(i, end));
+		return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	private static void writeUtf8(ByteArrayOutputStream bytes, String chars) {
+		final byte[] encoded = chars.getBytes(StandardCharsets.UTF_8);
+		bytes.write(encoded, 0, encoded.length);
+	}
+}
@@ -0,0 +1,263 @@
+/* Copyright 2022 Disney Streaming
+ *
+ * Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package alloy.router
+
+import software.amazon.smithy.model.Model
+import software.amazon.smithy.model.node.Node
+import software.amazon.smithy.model.pattern.UriPattern
+import software.amazon.smithy.model.shapes.OperationShape
+import software.amazon.smithy.model.shapes.ShapeId
+
+import scala.jdk.CollectionConverters._
+import scala.jdk.OptionConverters._
+
+final class HttpRouterSpec extends munit.FunSuite {
+
+  private lazy val model: Model =
+    Model.assembler().discoverModels().assemble().unwrap()
+
+  private val routingService = ShapeId.from("alloy.test.routing#RoutingService")
+  private val httpRequestTests = ShapeId.from("smithy.test#httpRequestTests")
+
+  private def router(routes: (String, String)*): HttpRouter[String] =
+    routes
+      .foldLeft(HttpRouter.builder[String]()) { case (builder, (method, uri)) =>
+        builder.addRoute(method, UriPattern.parse(uri), s"$method $uri")
+      }
+      .build()
+
+  private def route(
+      router: HttpRouter[String],
+      method: String,
+      uri: String
+  ): Option[(String, List[(String, String)])] =
+    router
+      .`match`(method, uri)
+      .toScala
+      .map(m => (m.getValue, m.getLabels.asScala.toList))
+
+  // every request test of the routing protocol tests, as
+  // (operation, id, method, uri, params)
+  private lazy val routingTestCases = {
+    val service = model.expectShape(routingService)
+    service.asServiceShape.get.getOperations.asScala.toList.sorted.flatMap {
+      operationId =>
+        val operation = model.expectShape(operationId)
+        operation
+          .findTrait(httpRequestTests)
+          .toScala
+          .toList
+          .flatMap(_.toNode.expectArrayNode.getElements.asScala)
+          .map(_.expectObjectNode)
+          .map { testCase =>
+            val uri = testCase.expectStringMember("uri").getValue
+            val query = testCase
+              .getArrayMember("queryParams")
+              .toScala
+              .map(_.getElementsAs((n: Node) => n.expectStringNode.getValue))
+              .map(_.asScala.mkString("?", "&", ""))
+              .getOrElse("")
+            val params = testCase
+              .getObjectMember("params")
+              .toScala
+              .map(_.getStringMap.asScala.toList.map { case (k, v) =>
+                k -> v.expectStringNode.getValue
+              })
+              .getOrElse(Nil)
+            (
+              operationId,
+              testCase.expectStringMember("id").getValue,
+              testCase.expectStringMember("method").getValue,
+              uri + query,
+              params
+            )
+          }
+    }
+  }
+
+  test("routing protocol tests are found") {
+    assertEquals(routingTestCases.size, 5)
+  }
+
+  test("route every routing protocol test to its operation") {
+    val router = HttpRouter.forService(model, routingService)
+    assertEquals(router.size, 5)
+    routingTestCases.foreach { case (operationId, id, method, uri, params) =>
+      val result = router.`match`(method, uri).toScala
+      assertEquals(
+        result.map(_.getValue.getId),
+        Some(operationId),
+        s"$id: $method $uri"
+      )
+      assertEquals(
+        result.map(_.getLabels.asScala.toList).getOrElse(Nil).sorted,
+        params.sorted,
+        s"$id: $method $uri"
+      )
+    }
+  }
+
+  test("reuse a match across requests") {
+    val router = HttpRouter.forService(model, routingService)
+    val result: RouteMatch[OperationShape] = router.newMatch()
+    assert(router.`match`("GET", "/abc/xyz", result))
+    assertEquals(result.getValue.getId.getName, "AbcXyz")
+    assertEquals(result.getLabelCount, 0)
+    assert(router.`match`("GET", "/abc/123", result))
+    assertEquals(result.getValue.getId.getName, "AbcLabel")
+    assertEquals(result.getLabelName(0), "def")
+    assertEquals(result.getLabelValue(0), "123")
+    assert(!router.`match`("POST", "/abc/123", result))
+    assert(!result.isMatched)
+  }
+
+  test("reject services that are not simpleRestJson") {
+    val model = Model
+      .assembler()
+      .addUnparsedModel(
+        "test.smithy",
+        """|$version: "2"
+           |namespace test
+           |service NotRest {}
+           |""".stripMargin
+      )
+      .assemble()
+      .unwrap()
+    intercept[IllegalArgumentException](
+      HttpRouter.forService(model, ShapeId.from("test#NotRest"))
+    )
+  }
+
+  test("literal segments take precedence over labels and greedy labels") {
+    val r = router(
+      "GET" -> "/a/{b+}",
+      "GET" -> "/a/{b}",
+      "GET" -> "/a/b"
+    )
+    assertEquals(route(r, "GET", "/a/b"), Some(("GET /a/b", Nil)))
+    assertEquals(
+      route(r, "GET", "/a/c"),
+      Some(("GET /a/{b}", List("b" -> "c")))
+    )
+    assertEquals(
+      route(r, "GET", "/a/c/d"),
+      Some(("GET /a/{b+}", List("b" -> "c/d")))
+    )
+    assertEquals(route(r, "GET", "/a"), None)
+  }
+
+  test("backtrack when a more specific branch does not lead to a route") {
+    val r = router(
+      "GET" -> "/a/b/c",
+      "GET" -> "/a/{x}/d",
+      "POST" -> "/a/b"
+    )
+    assertEquals(
+      route(r, "GET", "/a/b/d"),
+      Some(("GET /a/{x}/d", List("x" -> "b")))
+    )
+    assertEquals(route(r, "GET", "/a/b"), None)
+    assertEquals(route(r, "POST", "/a/b"), Some(("POST /a/b", Nil)))
+  }
+
+  test("greedy labels followed by other segments") {
+    val r = router(
+      "GET" -> "/files/{path+}/meta",
+      "GET" -> "/files/{path+}"
+    )
+    assertEquals(
+      route(r, "GET", "/files/a/b/meta"),
+      Some(("GET /files/{path+}/meta", List("path" -> "a/b")))
+    )
+    assertEquals(
+      route(r, "GET", "/files/a/meta/b"),
+      Some(("GET /files/{path+}", List("path" -> "a/meta/b")))
+    )
+    assertEquals(
+      route(r, "GET", "/files/meta"),
+      Some(("GET /files/{path+}", List("path" -> "meta")))
+    )
+  }
+
+  test("query literals") {
+    val r = router(
+      "GET" -> "/a",
+      "GET" -> "/a?flag",
+      "GET" -> "/a?flag&mode=x"
+    )
+    assertEquals(route(r, "GET", "/a"), Some(("GET /a", Nil)))
+    assertEquals(route(r, "GET", "/a?flag=1"), Some(("GET /a?flag", Nil)))
+    assertEquals(
+      route(r, "GET", "/a?other&mode=x&flag"),
+      Some(("GET /a?flag&mode=x", Nil))
+    )
+    assertEquals(route(r, "GET", "/a?mode=y&flag"), Some(("GET /a?flag", Nil)))
+    assertEquals(route(r, "GET", "/a?flagged"), Some(("GET /a", Nil)))
+  }
+
+  test("empty segments and trailing slashes are ignored") {
+    val r = router("GET" -> "/a/{b}", "GET" -> "/c/{d+}")
+    assertEquals(
+      route(r, "GET", "//a//x/"),
+      Some(("GET /a/{b}", List("b" -> "x")))
+    )
+    assertEquals(
+      route(r, "GET", "/c/x/y/"),
+      Some(("GET /c/{d+}", List("d" -> "x/y")))
+    )
+  }
+
+  test("label values are percent-decoded") {
+    val r = router("GET" -> "/a/{b}", "GET" -> "/c/{d+}")
+    assertEquals(
+      route(r, "GET", "/a/x%20y%C3%A9%2"),
+      Some(("GET /a/{b}", List("b" -> "x yé%2")))
+    )
+    assertEquals(
+      route(r, "GET", "/c/x%2Fy/z"),
+      Some(("GET /c/{d+}", List("d" -> "x/y/z")))
+    )
+  }
+
+  test("reject conflicting routes") {
+    intercept[IllegalArgumentException](
+      router("GET" -> "/a/{b}", "GET" -> "/a/{c}")
+    )
+    // different methods or query literals do not conflict
+    assertEquals(
+      router("GET" -> "/a/{b}", "PUT" -> "/a/{c}", "GET" -> "/a/{c}?x").size,
+      3
+    )
+  }
+
+  test("many routes sharing prefixes") {
+    val routes = (0 until 500).flatMap { i =>
+      List("GET" -> s"/r$i/items", "GET" -> s"/r$i/items/{id}")
+    }
+    val r = router(routes: _*)
+    (0 until 500).foreach { i =>
+      assertEquals(
+        route(r, "GET", s"/r$i/items"),
+        Some((s"GET /r$i/items", Nil))
+      )
+      assertEquals(
+        route(r, "GET", s"/r$i/items/$i"),
+        Some((s"GET /r$i/items/{id}", List("id" -> i.toString)))
+      )
+    }
+    assertEquals(route(r, "GET", "/r500/items"), None)
+  }
+}